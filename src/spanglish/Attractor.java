@@ -2,16 +2,39 @@ package spanglish;
 
 public class Attractor extends Person {
 	
+	// attractors don't age, so their age is kept as it is instead of coming from the tick they were born in
+	protected int			age;
 	
 	
 	
 	
 	
-	
-	public Attractor( int r ) {
-		super( r );
+	public Attractor( SimulationContext aContext, int r ) {
+		super( aContext, r );
 		// all attractors are between 12 and 25
-		age = rng.nextInt( 14 ) + 12;
+		setAge( rng.nextInt( 14 ) + 12 );
+	}
+	
+	
+	/**
+	 * getAge
+	 * 
+	 * returns the age the attractor was given, overrides the method in the Person class
+	 */
+	@Override
+	public int getAge() {
+		return age;
+	}
+	
+	/**
+	 * setAge
+	 * 
+	 * attractors keep the age they are given, overrides the method in the Person class
+	 */
+	@Override
+	public void setAge( int a ) {
+		age = a;
+		storeTraits();
 	}
 	
 	
@@ -34,6 +57,16 @@ public class Attractor extends Person {
 	public void step() {
 	}
 	
+	/**
+	 * chooseItems
+	 * 
+	 * an Attractor hears nothing, the same as in their step method
+	 */
+	@Override
+	public void chooseItems() {
+		heardItems.numItems = 0;
+	}
+	
 	/**
 	 * updateStats
 	 * 
@@ -42,7 +75,7 @@ public class Attractor extends Person {
 	@Override
 	public void updateStats() {
 		super.updateStats();
-		status = 40;
+		setStatus( 40 );
 	}
 	
 	/**
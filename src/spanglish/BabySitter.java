@@ -19,7 +19,8 @@ public class BabySitter extends Person {
 	/**
 	 * constructor called at initialization. creates BabySitters with certain proportional traits
 	 */
-	public BabySitter() {
+	public BabySitter( SimulationContext aContext ) {
+		super( aContext );
 		// draw a uniform random number
 		double tempRand = rng.nextDouble();
 		
@@ -44,7 +45,7 @@ public class BabySitter extends Person {
 			socialClass = Model.LOWERCLASS;
 		
 		// all BabySitters are within the ages 22 and 63, contructor randomizes the age
-		age = rng.nextInt( 42 ) + 22;
+		setAge( rng.nextInt( 42 ) + 22 );
 		// all BabySitters are adults
 		ageClass = Model.ADULT;
 		// BabySitters have the highest possible status
@@ -62,8 +63,10 @@ public class BabySitter extends Person {
 		// set BabySitter color cyan
 		setColor( Color.cyan);
 		
+		// they come from outside the model, so they get the District of a random cell
+		district = context.layout.randomDistrict( rng );
 		// the only region BabySitters are in are the home
-		regions.add( home );
+		regions.add( district.home );
 	}
 	
 	/**
@@ -71,6 +74,7 @@ public class BabySitter extends Person {
 	 * and sets their age to be 22
 	 */
 	public BabySitter( Person p ) {
+		super( p.context );
 		
 		/*
 		 * Gets the race, gender, social class and both languages of the input person and
@@ -79,11 +83,13 @@ public class BabySitter extends Person {
 		race = p.getRace();
 		gender = p.getGender();
 		socialClass = p.getSocialClass();
-		firstLang = p.getFirstLang();
-		secondLang = p.getSecondLang();
+		// the BabySitter gets copies of the lexicons, so they stay the same while the input Person keeps learning
+		firstLang = p.getFirstLang().copy();
+		if ( p.getSecondLang() != null )
+			secondLang = p.getSecondLang().copy();
 		
 		// set age to 22, they are a new BabySitter
-		age = 22;
+		setAge( 22 );
 		
 		// BabySitters get the highest possible status
 		status = 40;
@@ -91,8 +97,10 @@ public class BabySitter extends Person {
 		// BabySitters are cyan
 		setColor( Color.cyan);
 		
+		// they stay in the District of the person they were cloned from
+		district = p.getDistrict();
 		// the only region BabySitters are in are the home
-		regions.add( home );
+		regions.add( district.home );
 	}
 	
 	
@@ -106,6 +114,16 @@ public class BabySitter extends Person {
 	public void step() {
 	}
 	
+	/**
+	 * chooseItems
+	 * 
+	 * a BabySitter hears nothing, the same as in their step method
+	 */
+	@Override
+	public void chooseItems() {
+		heardItems.numItems = 0;
+	}
+	
 	/**
 	 * updateStats
 	 * 
@@ -113,7 +131,7 @@ public class BabySitter extends Person {
 	 */
 	@Override
 	public void updateStats() {
-		status = 40;
+		setStatus( 40 );
 	}
 	
 	/**
@@ -137,7 +155,7 @@ public class BabySitter extends Person {
 	public boolean retire() {
 		
 		// they are retired if they are older than 64
-		if ( age > 64 )
+		if ( getAge() > 64 )
 			return true;
 		// not retired otherwise
 		else
@@ -13,8 +13,8 @@ package spanglish;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Random;
 
-import uchicago.src.sim.util.SimUtilities;
 
 	///////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 	// A BiLexicon is almost identical to a lexicon, except it contains the maximum amount of items from two different languages. These
@@ -23,11 +23,6 @@ import uchicago.src.sim.util.SimUtilities;
 
 public class BiLexicon extends Lexicon {
 	
-	////////////////////// Class Variables
-	
-	// there are twice as many lexicon items in a BiLexicon as there are in a Lexicon
-	public static int maxItemsBi = maxItems * 2;
-	
 	////////////////////// Instance Variables
 	
 	
@@ -38,29 +33,36 @@ public class BiLexicon extends Lexicon {
 	
 	
 	/**
-	 * creates an empty BiLexicon
+	 * creates an empty BiLexicon of the input run
 	 */
-	public BiLexicon() {
+	public BiLexicon( SimulationContext aContext ) {
 		// initialize empty ArrayList of lexicon items
-		lexicon = new ArrayList<int[]>();
+		super( aContext );
 	}
 	
 	/**
 	 * creates a BiLexicon with a single item, taken from the input
 	 */
-	public BiLexicon( int[] newItem ) {
+	public BiLexicon( SimulationContext aContext, int[] newItem ) {
 		// initialize empty ArrayList of lexicon items
-		lexicon = new ArrayList<int[]>();
-		// add the one heard item into the lexicon
+		super( aContext );
+		// add the shared copy of the one heard item into the lexicon, see SimulationContext.intern for details
+		newItem = context.intern( newItem );
 		lexicon.add( newItem );
+		itemAdded( newItem );
 	}
 	 
 	/**
 	 * creates a BiLexicon with a pre-specified ArrayList of integer arrays
 	 */
-	public BiLexicon( ArrayList<int[]> newLang ) {
-		// the matrix of items is now the input ArrayList of the constructor
+	public BiLexicon( SimulationContext aContext, ArrayList<int[]> newLang ) {
+		// the matrix of items is now the input ArrayList of the constructor, with shared copies of the items
+		super( aContext );
 		lexicon = newLang;
+		context.internAll( lexicon );
+		
+		// count the items of each type, see the countCategories method in the Lexicon class
+		countCategories();
 	}
 	
 	/**
@@ -68,7 +70,15 @@ public class BiLexicon extends Lexicon {
 	 */
 	public BiLexicon( Lexicon lex ) {
 		// the matrix of items is now the ArrayList of the input lexicon
+		super( lex.context );
 		lexicon = lex.getLexicon();
+		
+		// count the items of each type, see the countCategories method in the Lexicon class
+		countCategories();
+		
+		// the BiLexicon takes the place of the input lexicon, so it also takes over its frequency index
+		// and its owner, see the ItemFrequencyIndex and PopulationStore classes for details
+		takeOver( lex );
 	}
 	
 	
@@ -76,6 +86,16 @@ public class BiLexicon extends Lexicon {
 	// Methods
 	//////////////////////////////////////////////////////////////////////////////////////
 	
+	/**
+	 * copy
+	 * 
+	 * returns a new BiLexicon with the same items, see the copy method of the Lexicon class
+	 */
+	@Override
+	public Lexicon copy() {
+		return new BiLexicon( context, new ArrayList<int[]>( lexicon ) );
+	}
+	
 	/**
 	 * addItem
 	 * 
@@ -85,11 +105,11 @@ public class BiLexicon extends Lexicon {
 	@Override
 	public boolean addItem( int[] item ) {
 		// return false if the item is the wrong size
-		if ( item.length != numElements )
+		if ( item.length != context.numElements )
 			return false;
 		
 		// return false if there is no space
-		if ( lexicon.size() >= maxItemsBi )	{
+		if ( lexicon.size() >= context.maxItems * 2 )	{
 			return false;
 		}
 		
@@ -101,8 +121,11 @@ public class BiLexicon extends Lexicon {
 				return false;
 			}
 		
-		// if there is not another item with the same index and language, then we add the item
+		// if there is not another item with the same index and language, then we add the shared copy of the item
+		// see SimulationContext.intern for details
+		item = context.intern( item );
 		lexicon.add( item );
+		itemAdded( item );
 		
 		// sort the lexicon based on the comparator described below
 		Collections.sort( lexicon, 
@@ -115,10 +138,11 @@ public class BiLexicon extends Lexicon {
 	/**
 	 * getItemsFromLexicon
 	 * 
-	 * given a number of items as input, this method returns an ArrayList of numItems random items from the lexicon
+	 * given a number of items as input, this method returns an ArrayList of numItems random items from the lexicon,
+	 * drawn from the input random numbers
 	 */
 	@Override
-	public ArrayList<int[]> getRandomItemsFromLexicon( int numItems ) {
+	public ArrayList<int[]> getRandomItemsFromLexicon( int numItems, Random random ) {
 		// return null if the lexicon has no items in it
 		if ( numItems < 1 )
 			return null;
@@ -131,7 +155,7 @@ public class BiLexicon extends Lexicon {
 		ArrayList<int[]> tempArray = new ArrayList<int[]>();
 		
 		// randomly shuffle the existing ArrayList of lexicon items
-		SimUtilities.shuffle( lexicon, uchicago.src.sim.util.Random.uniform );
+		Collections.shuffle( lexicon, random );
 		
 		// draw the first numItems items from the randomly shuffled lexicon
 		for ( int i = 0 ; i < numItems ; ++i )
@@ -151,8 +175,8 @@ public class BiLexicon extends Lexicon {
 	 */
 	@Override
 	public boolean isFull() {
-		// the lexicon is not full if there are less than maxItemsBi items
-		if( lexicon.size() < maxItemsBi)
+		// the lexicon is not full if there are less than twice maxItems items, there are two languages
+		if( lexicon.size() < context.maxItems * 2 )
 			return false;
 		
 		// the lexicon is full otherwise
@@ -197,10 +221,9 @@ public class BiLexicon extends Lexicon {
 		if ( itemIndex < 0 )
 			return false;
 		
-		// iterate through every bit after the second one at the specified location and replace it with the bits
-		// from newItem
-		for ( int i = 2 ;  i < numElements ; ++i )
-			lexicon.get( itemIndex )[i] = newItem[i];
+		// replace the item at the specified location with one that has the bits after the second from newItem
+		// see the inflectedCopy method in the Lexicon class for details
+		setItem( itemIndex, inflectedCopy( lexicon.get( itemIndex ), newItem ) );
 
 		// resorts the list using the comparator described below
 		Collections.sort( lexicon, 
@@ -220,10 +243,9 @@ public class BiLexicon extends Lexicon {
 	@Override
 	public void replaceInflection( int existingItemIndex, int[] newItem ) {
 		
-		// iterate through every bit in the specified item after the second and replaces it with
-		// those in newItem
-		for ( int j = 2 ; j < numElements ; ++j )
-			lexicon.get( existingItemIndex )[j] = newItem[j];
+		// replace the specified item with one that has the bits after the second from newItem
+		// see the inflectedCopy method in the Lexicon class for details
+		setItem( existingItemIndex, inflectedCopy( lexicon.get( existingItemIndex ), newItem ) );
 		
 		// resorts the list using the comparator described below
 		Collections.sort( lexicon, 
@@ -232,12 +254,22 @@ public class BiLexicon extends Lexicon {
 		return;
 	}
 	
+	/**
+	 * isBilingual
+	 * 
+	 * a BiLexicon always holds the items of two languages
+	 */
+	@Override
+	public boolean isBilingual() {
+		return true;
+	}
+	
 	@Override
 	public void print() {
 		// iterate through every item
 		for ( int i = 0 ; i < lexicon.size() ; ++i ) {
 			// for every bit
-			for ( int j = 0 ; j < numElements ; ++j ) {
+			for ( int j = 0 ; j < context.numElements ; ++j ) {
 				// print the digit and then a space
 				System.out.printf( "%d ",lexicon.get(i)[j] );
 			}
@@ -261,8 +293,8 @@ public class BiLexicon extends Lexicon {
 			// the integer we are comparing take into account the language first, and then the index number,
 			// thus, we assign a higher priority to the second bit in the item (the language) 
 			// and a lower priority to the first (the index)
-			int num1 = ( ( maxItems + 1 ) * item1[1] ) + item1[0];
-			int num2 = ( ( maxItems + 1 ) * item2[1] ) + item2[0];
+			int num1 = ( ( context.maxItems + 1 ) * item1[1] ) + item1[0];
+			int num2 = ( ( context.maxItems + 1 ) * item2[1] ) + item2[0];
 			
 			// num2 smaller, so should be before d1 (ascending order)
 			if ( num1 > num2 )
@@ -0,0 +1,101 @@
+package spanglish;
+
+/**
+ * District.java
+ *
+ * One tile of the DistrictLayout, a rectangle of the grid with its own home, school and work Regions laid
+ * out in horizontal bands the same way the original single layout was: home across the top, school below it,
+ * overlapping home by a few rows, and work from there to the bottom of the tile. Every Person belongs to a
+ * District and only ever stands in that District's Regions, so the people a Person meets stay local no matter
+ * how big the grid is. The District also keeps a Region over the whole tile, so the grid counts the people
+ * standing anywhere in it
+ */
+
+public class District {
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the place of the District in the layout's array of Districts
+	public int					index;
+
+	// the cells of the tile
+	public int					xMin, xMax, yMin, yMax;
+
+	// the three Regions the people of the District use, see the Person class for who is in which
+	public Region				home, school, work;
+	// the whole tile, only used to count the people in it
+	public Region				area;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * creates the Regions of a District of the input run covering the cells x1..x2, y1..y2. the rows of the
+	 * bands are given out of every hundred rows of the tile, see the DistrictLayout class
+	 */
+	public District( SimulationContext context, int i, int x1, int x2, int y1, int y2 ) {
+
+		index = i;
+		xMin = x1;
+		xMax = x2;
+		yMin = y1;
+		yMax = y2;
+
+		// on a tile of a hundred rows, home is rows 0 to 15, school 11 to 30 and work 31 to the end
+		int numRows = y2 - y1 + 1;
+		int homeEnd = y1 + numRows * DistrictLayout.homeEndRow / 100;
+		int schoolStart = y1 + numRows * DistrictLayout.schoolStartRow / 100;
+		int schoolEnd = y1 + numRows * DistrictLayout.schoolEndRow / 100;
+
+		home = new Region( context, x1, x2, y1, homeEnd );
+		school = new Region( context, x1, x2, schoolStart, schoolEnd );
+		work = new Region( context, x1, x2, schoolEnd + 1, y2 );
+		area = new Region( context, x1, x2, y1, y2 );
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * isOverPopulated
+	 *
+	 * returns true if either the school or the work Region of the District is full. the home Region
+	 * never fills up because births check it first
+	 */
+	public boolean isOverPopulated() {
+		return school.isFull() || work.isFull();
+	}
+
+	/**
+	 * contains
+	 *
+	 * returns true if the cell ( x, y ) is in the tile of the District
+	 */
+	public boolean contains( int x, int y ) {
+		return x >= xMin && x <= xMax && y >= yMin && y <= yMax;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public int getIndex() {
+		return index;
+	}
+	public Region getHome() {
+		return home;
+	}
+	public Region getSchool() {
+		return school;
+	}
+	public Region getWork() {
+		return work;
+	}
+	public int getNumOccupants() {
+		return area.getNumOccupants();
+	}
+}
@@ -0,0 +1,123 @@
+package spanglish;
+
+/**
+ * DistrictLayout.java
+ *
+ * Tiles the grid with districtsX x districtsY Districts, each with its own home, school and work Regions, see
+ * the District class. With one District the layout is the original one, three bands across the whole grid.
+ * A bigger grid gets more Districts instead of wider bands, so the density and the contacts of the people stay
+ * the same as the population grows. People are given the District nearest to where they come from: a baby, a
+ * new Teacher or a new BabySitter the one of the person they come from, and a newcomer the one of a random cell
+ */
+
+import java.util.Random;
+
+public class DistrictLayout {
+
+	//////////////////////// CLASS VARIABLES
+
+	// the last row of home, the first and last rows of school, out of every hundred rows of a District.
+	// work takes the rows after school
+	public static int			homeEndRow = 15;
+	public static int			schoolStartRow = 11;
+	public static int			schoolEndRow = 30;
+	// the fewest rows and columns of a District. the Regions of smaller ones would be too small to ever hold
+	// anyone, see the isFull method of the Region class, so the number of Districts is lowered until they fit
+	public static int			minDistrictSize = 20;
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// every District, row by row from the top left
+	public District[]			districts;
+	// the number of Districts across and down the grid
+	public int					districtsX, districtsY;
+	// the number of columns and rows of every District, the last ones also take the cells that are left over
+	public int					districtWidth, districtHeight;
+	// the size of the grid
+	public int					xSize, ySize;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * tiles the world of the input run with numX x numY Districts. the world must be made first
+	 */
+	public DistrictLayout( SimulationContext context, int numX, int numY ) {
+
+		xSize = context.world.getSizeX();
+		ySize = context.world.getSizeY();
+
+		// there is at least one District, and no more than fit at their smallest size
+		districtsX = Math.max( 1, Math.min( numX, xSize / minDistrictSize ) );
+		districtsY = Math.max( 1, Math.min( numY, ySize / minDistrictSize ) );
+		districtWidth = xSize / districtsX;
+		districtHeight = ySize / districtsY;
+
+		// make the Districts row by row
+		districts = new District[districtsX * districtsY];
+		for ( int j = 0 ; j < districtsY ; ++j ) {
+			for ( int i = 0 ; i < districtsX ; ++i ) {
+				int x1 = i * districtWidth;
+				int y1 = j * districtHeight;
+				int x2 = ( i == districtsX - 1 ) ? xSize - 1 : x1 + districtWidth - 1;
+				int y2 = ( j == districtsY - 1 ) ? ySize - 1 : y1 + districtHeight - 1;
+				int index = j * districtsX + i;
+				districts[index] = new District( context, index, x1, x2, y1, y2 );
+			}
+		}
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * districtAt
+	 *
+	 * returns the District whose tile holds the cell ( x, y ), which is the District nearest to it
+	 */
+	public District districtAt( int x, int y ) {
+		int i = Math.min( x / districtWidth, districtsX - 1 );
+		int j = Math.min( y / districtHeight, districtsY - 1 );
+		return districts[j * districtsX + i];
+	}
+
+	/**
+	 * randomDistrict
+	 *
+	 * returns the District of a random cell, so bigger Districts are picked more often. used for people that
+	 * come from outside the model. does not use the random number generator if there is only one District
+	 */
+	public District randomDistrict( Random rng ) {
+		if ( districts.length == 1 )
+			return districts[0];
+		return districtAt( rng.nextInt( xSize ), rng.nextInt( ySize ) );
+	}
+
+	/**
+	 * isOverPopulated
+	 *
+	 * returns true if any District is over populated, see the District class
+	 */
+	public boolean isOverPopulated() {
+		for ( District d : districts ) {
+			if ( d.isOverPopulated() )
+				return true;
+		}
+		return false;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public District getDistrict( int index ) {
+		return districts[index];
+	}
+	public int getNumDistricts() {
+		return districts.length;
+	}
+}
@@ -8,27 +8,22 @@ public class GeneticAlg {
 	
 	//////////////////////////////////// CLASS VARIABLES
 	
-	// get the maximum number of items and elements, initialized in the create people function in the Model class
-	public static int			maxItems;
-	public static int			numElements;
-	
-	//initialize Random class
-	public static Random		rng				= new Random();
-	
-	// the model instance
-	public static Model			model;
-	
 	// sets the mutation rate to a class variable, currently constant but can become variable
 	public static double		mutationRate = .004;
 	
-	// sets the threshold past which the number of times an item is heard does not affect the outcome of the GA, it is
-	// described more in depth in the clacMicroFitnessFunction
-	public static int			threshold;
 	//////////////////////////////////// INSTANCE VARIABLES
 	
 	// the person whose lexicon is being changed
 	public Person		person;
 	
+	// the run of the person, with the model, the maximum number of items and elements, and the threshold past
+	// which the number of times an item is heard does not affect the outcome of the GA, it is described more in
+	// depth in the clacMicroFitnessFunction
+	public SimulationContext context;
+	
+	// the random numbers of the person, so a person that is heard on another thread draws from their own
+	public Random		rng;
+	
 	// the lexicon of the person in which the changes are taking place
 	public Lexicon		lexicon;
 	
@@ -60,8 +55,10 @@ public class GeneticAlg {
 	 * just takes in the listener. the speaker and item, or possibly just the item can be set later
 	 */
 	public GeneticAlg( Person p ) {
-		// sets the input person as the listener
+		// sets the input person as the listener, and uses their random numbers
 		person = p;
+		context = p.getContext();
+		rng = p.getRng();
 		
 		// adds the first language to the ArrayList of lexicons
 		lexicons.add( p.getFirstLang() );
@@ -81,8 +78,10 @@ public class GeneticAlg {
 	 * takes in the listener, the speaker and the item under consideration. this is currently ben
 	 */
 	public GeneticAlg( Person p, int[] heardItem ) {
-		// sets the input person as the listener
+		// sets the input person as the listener, and uses their random numbers
 		person = p;
+		context = p.getContext();
+		rng = p.getRng();
 		
 		// if the person has a second language, then it gets added to the ArrayList of lexicons
 		lexicons.add( p.getFirstLang() );
@@ -189,7 +188,7 @@ public class GeneticAlg {
 		}
 		
 		// initialize the newItem
-		newItem = new int[numElements];
+		newItem = new int[context.numElements];
 		
 		// the first bit in newItem has to have the same index as the heard item
 		newItem[0] = itemIndex;
@@ -198,7 +197,7 @@ public class GeneticAlg {
 		newItem[1] = changedItem[1];
 		
 		// iterating through every bit in newItem
-		for ( int i = 2 ; i < numElements ; ++i ) {
+		for ( int i = 2 ; i < context.numElements ; ++i ) {
 			
 			// the bit comes from the pre-exisiting item with a 50% probability
 			if ( rng.nextDouble() < .5 )
@@ -221,13 +220,13 @@ public class GeneticAlg {
 		int timesHeard;
 		
 		// if the item has been heard before, that is, it is in the temporary memory buffer
-		if ( tempLexicon != null && tempLexicon.heardItem( item ) >= 0 ) {
+		if ( tempLexicon != null && tempLexicon.numTimesHeard( item ) > 0 ) {
 			
 			// note that the item has been heard again in the tempLexicon
 			person.addToTempMemBuffer( item );
 			
 			// get the number of times that the specific item has been heard up to this point
-			timesHeard = tempLexicon.getBit( tempLexicon.heardItem( item ), 0 );
+			timesHeard = tempLexicon.numTimesHeard( item );
 		}
 		else {
 			// otherwise just add it to temporary memory buffer
@@ -237,31 +236,23 @@ public class GeneticAlg {
 		}
 		
 		// if the item has been heard more times than threshold, then it does not hinder the microFitness
-		if ( timesHeard >= threshold )
+		if ( timesHeard >= context.threshold )
 			microFitness = 1;
 		
 		// otherwise, the microFitness is initialized to the ratio of the number of times the item was heard to
 		// the threshold, all put to some power. The higher the power, the more i
 		else {
-			microFitness = Math.pow( timesHeard / (double)threshold, 3.0);
+			microFitness = Math.pow( timesHeard / (double)context.threshold, 3.0);
 		}
 		
 		
 		// the lower the item number, the better chance it will get accepted
-		microFitness *= Math.pow( ( maxItems - (double)item[0] ) / maxItems, 1.0 );
+		microFitness *= Math.pow( ( context.maxItems - (double)item[0] ) / context.maxItems, 1.0 );
 		
 		// see the calcOpenness function for details
 		microFitness *= calcOpenness();
 	}
 	
-	public static int getThreshold() {
-		return threshold;
-	}
-
-	public static void setThreshold(int threshold) {
-		GeneticAlg.threshold = threshold;
-	}
-
 	/**
 	 * calcMacroFitness
 	 * 
@@ -272,14 +263,14 @@ public class GeneticAlg {
 		// calls the calcFreqOfItem method in the Model class which calculates the percentage of the entire
 		// population, excluding Teachers and BabySitters, that has that item in their first language and sets
 		// that as the macroFitness
-		macroFitness = model.calcFreqOfItem( item );
+		macroFitness = context.model.calcFreqOfItem( item );
 		
 		
 		if ( person.getRace() != Model.LATINO ) {
-			macroFitness = model.calcFreqOfItemInRace( item, person.getRace() );
+			macroFitness = context.model.calcFreqOfItemInRace( item, person.getRace() );
 		}
 		else {
-			macroFitness = ( model.calcFreqOfItemInRace( item, Model.LATINO ) + model.calcFreqOfItemInRace(item, Model.BLACK ) ) / 2;
+			macroFitness = ( context.model.calcFreqOfItemInRace( item, Model.LATINO ) + context.model.calcFreqOfItemInRace(item, Model.BLACK ) ) / 2;
 		}
 	}
 	
@@ -291,7 +282,7 @@ public class GeneticAlg {
 	 */
 	public void mutate() {
 		// iterating through every bit of the newItem after the second
-		for ( int i = 2 ; i < numElements ; ++i ) {
+		for ( int i = 2 ; i < context.numElements ; ++i ) {
 			// with probability mutationRate
 			if ( rng.nextDouble() < mutationRate ) {
 				// if the bit is one, then it switches to zero
@@ -373,34 +364,16 @@ public class GeneticAlg {
 	// GETTERS AND SETTERS
 	////////////////////////////////////////////////////////////////////////////////////////
 
-	public static int getNumElements() {
-		return numElements;
-	}
-	public static void setNumElements(int numElements) {
-		GeneticAlg.numElements = numElements;
-	}
 	public Person getPerson() {
 		return person;
 	}
 	public void setPerson(Person p) {
 		this.person = p;
 	}
-	public static Model getModel() {
-		return model;
-	}
-	public static void setModel(Model model) {
-		GeneticAlg.model = model;
-	}
 	public int[] getItem() {
 		return item;
 	}
 	public void setItem(int[] item) {
 		this.item = item;
 	}
-	public static int getMaxItems() {
-		return maxItems;
-	}
-	public static void setMaxItems(int maxItems) {
-		GeneticAlg.maxItems = maxItems;
-	}
 }
\ No newline at end of file
@@ -10,8 +10,17 @@ import uchicago.src.sim.space.Object2DGrid;
 	
 	/////////////////// Class Variables
 	
-	// initialize the Random class
-	public static Random rng = new Random();
+	// the x and y steps of the nine moves to a cell of the Moore neighborhood, including staying put. move d
+	// is bit d of a direction mask, see the getDirectionMask method of the Region class
+	public static final int[] directionX = { -1, 0, 1, -1, 0, 1, -1, 0, 1 };
+	public static final int[] directionY = { -1, -1, -1, 0, 0, 0, 1, 1, 1 };
+	
+	// the width and height of the blocks of cells that the Regions are sorted into, see regionBlocks
+	public static int regionBlockSize = 16;
+	// returned by regionsNear for the blocks without any Region
+	public static final ArrayList<Region> noRegions = new ArrayList<Region>();
+	// the number of locks the words of the occupancy bitset share, a power of two, see the cellLock method
+	public static final int numCellLocks = 64;
 	
 	
 	/////////////////// Instance Variables
@@ -19,6 +28,31 @@ import uchicago.src.sim.space.Object2DGrid;
 	// the GridWorld must be connected to a Model instance
 	public Model theModel;
 	
+	// every Region laid over the grid, they are told whenever a Person enters or leaves one of their cells
+	public ArrayList<Region> regions = new ArrayList<Region>();
+	// the Regions that overlap every block of regionBlockSize x regionBlockSize cells, row by row, so only
+	// the few Regions around a cell have to be looked at when its Person changes. null for blocks without any
+	public ArrayList<ArrayList<Region>> regionBlocks;
+	public int numBlocksX, numBlocksY;
+	
+	// the people in every bucket of cells, also told whenever a Person enters or leaves a cell
+	// see the SpatialIndex class for details
+	public SpatialIndex spatialIndex;
+	
+	// one bit for every cell, set if the cell holds something. cell ( x, y ) is bit y * sizeX + x
+	// null in worlds that keep the cells themselves, see the SparseTorusWorld class
+	public long[] occupied;
+	// true for the worlds that keep the cells themselves, which are meant to be mostly empty
+	public boolean sparse = false;
+	// true while several threads step people at the same time, see the TiledStepper class
+	public boolean concurrentStep = false;
+	// the list every thread keeps its changes to the Regions in while it steps a tile, instead of making them,
+	// so they can be made afterwards in the same order no matter how the threads ran. null for a thread that
+	// makes them right away. see the bufferRegionChanges method
+	public ThreadLocal<ArrayList<RegionChange>> regionChanges = new ThreadLocal<ArrayList<RegionChange>>();
+	// the locks of the cells, see the cellLock method
+	protected Object[] cellLocks;
+	
 
 	/**
 	 * 
@@ -30,8 +64,245 @@ import uchicago.src.sim.space.Object2DGrid;
 		
 		// GridWorld must take in the Model instance that the world is connected to
 		theModel = aModel;
+		
+		// start with every cell empty
+		occupied = new long[( sizeX * sizeY + 63 ) / 64];
+		
+		// see method below for details
+		initIndexes();
 	}
 	
+	/**
+	 * constructor for the worlds that keep the cells themselves instead of in the Object2DGrid, which then
+	 * only gets a single cell. they must override getObjectAt, setCell and isOccupied
+	 */
+	protected GridWorld( int sizeX, int sizeY, Model aModel, boolean keepsCells ) {
+		// the Object2DGrid would make a slot for every cell, so it is made as small as possible
+		super( 1, 1 );
+		
+		// the size is still the size of the whole world
+		xSize = sizeX;
+		ySize = sizeY;
+		sparse = keepsCells;
+		
+		// GridWorld must take in the Model instance that the world is connected to
+		theModel = aModel;
+		
+		// see method below for details
+		initIndexes();
+	}
+	
+	/**
+	 * initIndexes
+	 * 
+	 * starts with an empty spatial index and no Regions in any block
+	 */
+	protected void initIndexes() {
+		
+		cellLocks = new Object[numCellLocks];
+		for ( int i = 0 ; i < numCellLocks ; ++i )
+			cellLocks[i] = new Object();
+		
+		spatialIndex = new SpatialIndex( xSize, ySize, SpatialIndex.defaultBucketSize );
+		
+		numBlocksX = ( xSize + regionBlockSize - 1 ) / regionBlockSize;
+		numBlocksY = ( ySize + regionBlockSize - 1 ) / regionBlockSize;
+		regionBlocks = new ArrayList<ArrayList<Region>>( numBlocksX * numBlocksY );
+		for ( int b = 0 ; b < numBlocksX * numBlocksY ; ++b )
+			regionBlocks.add( null );
+	}
+	
+	
+	
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Occupancy Methods
+	////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * putObjectAt
+	 * 
+	 * same as the putObjectAt method in Object2DGrid, but first tells every Region that contains ( x, y )
+	 * that the Person who was there has left, and afterwards that the new Person has entered. every move,
+	 * placement and removal in the grid goes through here, so the Regions always know how many people they hold
+	 * and the spatial index always knows where everyone is. people in different tiles can move at the same
+	 * time, see the TiledStepper class, so the cell is changed while holding its lock, see the cellLock
+	 * method, and the spatial index has locks of its own. the Regions of a thread that keeps its changes to
+	 * them are told later, see the bufferRegionChanges method
+	 */
+	@Override
+	public void putObjectAt( int x, int y, Object object ) {
+		
+		// the Regions near the cell, see regionBlocks
+		ArrayList<Region> nearRegions = regionsNear( x, y );
+		// and where to keep the changes to them, if this thread keeps them
+		ArrayList<RegionChange> changes = concurrentStep ? regionChanges.get() : null;
+		
+		// if a Person is leaving the cell, tell the regions around it and the spatial index
+		Object old = getObjectAt( x, y );
+		if ( old instanceof Person ) {
+			for ( int i = 0 ; i < nearRegions.size() ; ++i ) {
+				if ( !nearRegions.get( i ).inRegion( x, y ) )
+					continue;
+				if ( changes != null )
+					changes.add( new RegionChange( nearRegions.get( i ), (Person)old, x, y, false ) );
+				else
+					nearRegions.get( i ).personLeft( (Person)old, x, y );
+			}
+			if ( spatialIndex != null )
+				spatialIndex.personLeft( (Person)old, x, y );
+		}
+		
+		// actually change the cell, and its bit
+		synchronized ( cellLock( x, y ) ) {
+			setCell( x, y, object );
+			if ( occupied != null ) {
+				int cell = y * xSize + x;
+				if ( object != null )
+					occupied[cell >> 6] |= 1L << cell;
+				else
+					occupied[cell >> 6] &= ~( 1L << cell );
+			}
+		}
+		
+		// if a Person is entering the cell, tell the regions around it and the spatial index
+		if ( object instanceof Person ) {
+			for ( int i = 0 ; i < nearRegions.size() ; ++i ) {
+				if ( !nearRegions.get( i ).inRegion( x, y ) )
+					continue;
+				if ( changes != null )
+					changes.add( new RegionChange( nearRegions.get( i ), (Person)object, x, y, true ) );
+				else
+					nearRegions.get( i ).personEntered( (Person)object, x, y );
+			}
+			if ( spatialIndex != null )
+				spatialIndex.personEntered( (Person)object, x, y );
+		}
+	}
+	
+	/**
+	 * bufferRegionChanges
+	 * 
+	 * from now on, while concurrentStep is true, the changes this thread makes to the Regions are added to
+	 * the input list instead of made. a Region keeps its free cells in an order that depends on the order of
+	 * the changes, see the takeCell method of the Region class, so the changes of threads that run at the same
+	 * time are made afterwards in a fixed order, see applyRegionChanges. null makes them right away again
+	 */
+	public void bufferRegionChanges( ArrayList<RegionChange> changes ) {
+		if ( changes == null )
+			regionChanges.remove();
+		else
+			regionChanges.set( changes );
+	}
+	
+	/**
+	 * applyRegionChanges
+	 * 
+	 * tells the Regions about every change in the input list, in order, and empties it
+	 */
+	public void applyRegionChanges( ArrayList<RegionChange> changes ) {
+		for ( int i = 0 ; i < changes.size() ; ++i ) {
+			RegionChange c = changes.get( i );
+			if ( c.entered )
+				c.region.personEntered( c.person, c.x, c.y );
+			else
+				c.region.personLeft( c.person, c.x, c.y );
+		}
+		changes.clear();
+	}
+	
+	/**
+	 * releaseEmptyCells
+	 * 
+	 * lets go of whatever the world keeps for the cells where nobody is standing, does nothing in worlds that
+	 * keep every cell. see the SparseTorusWorld class
+	 */
+	public void releaseEmptyCells() {
+	}
+	
+	/**
+	 * cellLock
+	 * 
+	 * returns the lock that is held while the cell ( x, y ) is changed. cells in different tiles can share a
+	 * word of the occupancy bitset, so all the cells of a word share a lock
+	 */
+	protected Object cellLock( int x, int y ) {
+		return cellLocks[( ( y * xSize + x ) >> 6 ) & ( numCellLocks - 1 )];
+	}
+	
+	/**
+	 * setCell
+	 * 
+	 * puts the object in the cell ( x, y ) without telling anybody, only called by putObjectAt
+	 */
+	protected void setCell( int x, int y, Object object ) {
+		super.putObjectAt( x, y, object );
+	}
+	
+	/**
+	 * isOccupied
+	 * 
+	 * returns true if the cell ( x, y ) holds something, same as getObjectAt( x, y ) != null but only reads
+	 * one bit of the occupancy bitset
+	 */
+	public boolean isOccupied( int x, int y ) {
+		int cell = y * xSize + x;
+		return ( occupied[cell >> 6] & ( 1L << cell ) ) != 0;
+	}
+	
+	/**
+	 * statusChanged
+	 * 
+	 * called by a Person whenever their status changes, so the spatial index can keep its highest statuses
+	 * up to date. does nothing if the Person is not standing in the grid. only the person themselves is
+	 * looked at, and the spatial index has locks of its own, so people on several threads can call it at once
+	 */
+	public void statusChanged( Person p ) {
+		if ( spatialIndex != null && getObjectAt( p.getX(), p.getY() ) == p )
+			spatialIndex.statusChanged( p.getX(), p.getY() );
+	}
+	
+	/**
+	 * addRegion
+	 * 
+	 * starts keeping Region r up to date with the people in its cells. called by the Region constructor.
+	 * anybody already standing in the Region is counted once here
+	 */
+	public void addRegion( Region r ) {
+		
+		// count everyone that is already in the region
+		for ( int i = r.getxMin() ; i <= r.getxMax() ; ++i ) {
+			for ( int j = r.getyMin() ; j <= r.getyMax() ; ++j ) {
+				if ( getPersonAt( i, j ) != null )
+					r.personEntered( getPersonAt( i, j ), i, j );
+			}
+		}
+		
+		regions.add( r );
+		
+		// and put it in every block it overlaps
+		int lastRow = Math.min( r.getyMax(), ySize - 1 );
+		for ( int bj = r.getyMin() / regionBlockSize ; bj <= lastRow / regionBlockSize ; ++bj ) {
+			for ( int bi = r.getxMin() / regionBlockSize ; bi <= r.getxMax() / regionBlockSize ; ++bi ) {
+				int b = bj * numBlocksX + bi;
+				if ( regionBlocks.get( b ) == null )
+					regionBlocks.set( b, new ArrayList<Region>() );
+				regionBlocks.get( b ).add( r );
+			}
+		}
+	}
+	
+	/**
+	 * regionsNear
+	 * 
+	 * returns the Regions that overlap the block of cells that holds ( x, y ), in the order they were added.
+	 * every Region that contains ( x, y ) is among them. returns every Region if the blocks are not made yet
+	 */
+	public ArrayList<Region> regionsNear( int x, int y ) {
+		if ( regionBlocks == null )
+			return regions;
+		ArrayList<Region> near = regionBlocks.get( ( y / regionBlockSize ) * numBlocksX + x / regionBlockSize );
+		return ( near == null ) ? noRegions : near;
+	}
 	
 	
 	////////////////////////////////////////////////////////////////////////////////////////
@@ -94,8 +365,8 @@ import uchicago.src.sim.space.Object2DGrid;
 	/**
 	 * moveObjectInRegion
 	 * 
-	 * moves the inputed person one grid cell in a random direction, as long as the new
-	 * grid cell is in one of its regions
+	 * moves the inputed person one grid cell in a random direction, as long as the new grid cell is in one of
+	 * its regions and in the grid. every such move is equally likely. returns false if the person could not move
 	 */
 	public boolean moveObjectInRegion( Person person ) {
 		
@@ -103,36 +374,23 @@ import uchicago.src.sim.space.Object2DGrid;
 		int currentX = person.getX();
 		int currentY = person.getY();
 		
-		// get an ArrayList of Points that contain open neighbors
-		ArrayList<Point> openNgh = getOpenNeighborLocations( currentX, currentY );
-		
 		// return false if their are no open neighbor locations
-		if ( openNgh == null || openNgh.size() == 0 )
+		if ( !hasOpenNeighbor( currentX, currentY ) )
 			return false;
 		
-
-		// otherwise, get a random neighbor point
-		int dx = rng.nextInt(3) - 1;
-		int dy = rng.nextInt(3) - 1;
-		
-		// if the new chosen point is not in the Person's region, then randomly try another point
-		while( !person.inRegion( currentX + dx, currentY + dy ) ) {
-			dx = rng.nextInt(3) - 1;
-			dy = rng.nextInt(3) - 1;
-		}
-		
-		// once a neighbor point in the proper region is found, set the new coordinates
-		int newX = currentX + dx;
-		int newY = currentY + dy;
-		
-
-		// return false if the new chosen point is not in the grid
-		if ( newX < 0 || newY < 0 || newX >= xSize || newY >= ySize ) {
+		// get the moves that stay in the person's regions and in the grid, and return false if there are none,
+		// which can only happen if the person is far from all of them
+		int mask = person.getDirectionMask( currentX, currentY ) & inGridMask( currentX, currentY );
+		if ( mask == 0 )
 			return false;
-		}
+		
+		// pick one of those moves with the person's own random numbers, and set the new coordinates
+		int d = randomDirection( mask, person.getRng() );
+		int newX = currentX + directionX[d];
+		int newY = currentY + directionY[d];
 
 		// return false if the new chosen point is already occupied by a person
-		if ( getPersonAt(newX, newY) != null ) {
+		if ( isOccupied( newX, newY ) ) {
 			return false;
 		}
 
@@ -148,6 +406,54 @@ import uchicago.src.sim.space.Object2DGrid;
 		return true;
 	}
 	
+	/**
+	 * inGridMask
+	 * 
+	 * returns the moves from the cell ( x, y ) that stay in the grid, as a mask with bit d set if move d does
+	 */
+	public int inGridMask( int x, int y ) {
+		int mask = 0;
+		for ( int d = 0 ; d < 9 ; ++d ) {
+			int tx = x + directionX[d];
+			int ty = y + directionY[d];
+			if ( tx >= 0 && ty >= 0 && tx < xSize && ty < ySize )
+				mask |= 1 << d;
+		}
+		return mask;
+	}
+	
+	/**
+	 * randomDirection
+	 * 
+	 * returns one of the set bits of a direction mask, each with the same probability. draws from the input
+	 * random numbers, those of the Person that moves
+	 */
+	public int randomDirection( int mask, Random random ) {
+		
+		// skip a random number of the set bits
+		int skip = random.nextInt( Integer.bitCount( mask ) );
+		for ( ; skip > 0 ; --skip )
+			mask &= mask - 1;
+		
+		return Integer.numberOfTrailingZeros( mask );
+	}
+	
+	/**
+	 * hasOpenNeighbor
+	 * 
+	 * returns true if any cell of the grid in the Moore neighborhood around x,y is open, including x,y itself.
+	 * same as getOpenNeighborLocations( x, y ).size() > 0, but reads the occupancy bits instead of making Points
+	 */
+	public boolean hasOpenNeighbor( int x, int y ) {
+		for ( int d = 0 ; d < 9 ; ++d ) {
+			int tx = x + directionX[d];
+			int ty = y + directionY[d];
+			if ( tx >= 0 && ty >= 0 && tx < xSize && ty < ySize && !isOccupied( tx, ty ) )
+				return true;
+		}
+		return false;
+	}
+	
 	/**
 	 * moveObjectToRegion
 	 * 
@@ -159,17 +465,14 @@ import uchicago.src.sim.space.Object2DGrid;
 		if ( r.isFull() )
 			return;
 		
-		// otherwise, get a random point in the region and record the coordinates
-		Point p = r.getRandomPoint();
-		int x = (int)p.getX();
-		int y = (int)p.getY();
+		// otherwise, pick a random free cell in the region with the person's own random numbers, see the
+		// Region class for details. terminate the method if there is none, which the isFull threshold should prevent
+		int cell = r.randomFreeCell( person.getRng() );
+		if ( cell < 0 )
+			return;
 		
-		// while the move was not successful, pick a new point in the Region and try to move there
-		while ( !movePersonTo( person, x, y ) ) {
-			p = r.getRandomPoint();
-			x = (int)p.getX();
-			y = (int)p.getY();
-		}
+		// and move there, which always works since nobody is in the cell
+		movePersonTo( person, cell % xSize, cell / xSize );
 	}
 	
 	/**
@@ -179,14 +482,6 @@ import uchicago.src.sim.space.Object2DGrid;
 	 */
 	public void movePersonToRegion( Person person ) {
 		
-		// get a random point in one of the Person's regions and record the x and y coordinates
-		// see the Person class for more details on the method
-		Point p = person.getRandomRegionPoint();
-		
-		// record the x and y coordinates of the point as integers
-		int x = (int)p.getX();
-		int y = (int)p.getY();
-		
 		// initialize a boolean variable to check if all of the regions are full
 		boolean isFull = true;
 		
@@ -202,12 +497,34 @@ import uchicago.src.sim.space.Object2DGrid;
 		if ( isFull )
 			return;
 		
-		// while the random region point is occupied, pick a new point and try to move them there
-		while ( !movePersonTo( person, x, y ) ) {
-			p = person.getRandomRegionPoint();
-			x = (int)p.getX();
-			y = (int)p.getY();
+		// pick the region to place them in. getRandomRegionPoint picks one of the regions it looks at and then
+		// any point in it, until the point is free, so a region is picked as often as the share of its cells
+		// that are free. see the getRandomRegionPoint method in the Person class for the regions it looks at
+		ArrayList<Region> regions = person.getRegions();
+		int numCandidates = ( regions.size() == 1 ) ? 1 : regions.size() - 1;
+		double totalShare = 0;
+		for ( int i = 0 ; i < numCandidates ; ++i )
+			totalShare += regions.get( i ).getFreeShare();
+		
+		// terminate the method if none of those regions has a free cell
+		if ( totalShare <= 0 )
+			return;
+		
+		double pick = person.getRng().nextDouble() * totalShare;
+		Region r = null;
+		for ( int i = 0 ; i < numCandidates ; ++i ) {
+			// skip the regions without a free cell, so rounding can never land on one
+			if ( regions.get( i ).getNumFree() == 0 )
+				continue;
+			r = regions.get( i );
+			pick -= r.getFreeShare();
+			if ( pick < 0 )
+				break;
 		}
+		
+		// then a random free cell in it, and move there
+		int cell = r.randomFreeCell( person.getRng() );
+		movePersonTo( person, cell % xSize, cell / xSize );
 	}
 	
 	////////////////////////////////////////////////////////////////////////////////////////
@@ -304,5 +621,31 @@ import uchicago.src.sim.space.Object2DGrid;
 		System.out.printf("\n");
 
 	}
-
+	
+	
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Region Changes
+	////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * a Person entering or leaving a cell of a Region, kept until the Region is told about it, see the
+	 * bufferRegionChanges method
+	 */
+	public static class RegionChange {
+		
+		// the Region, the Person and their cell
+		public Region region;
+		public Person person;
+		public int x, y;
+		// true if the Person entered the cell, false if they left it
+		public boolean entered;
+		
+		public RegionChange( Region r, Person p, int cx, int cy, boolean e ) {
+			region = r;
+			person = p;
+			x = cx;
+			y = cy;
+			entered = e;
+		}
+	}
 }
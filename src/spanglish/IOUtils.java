@@ -0,0 +1,101 @@
+package spanglish;
+
+/**
+ * IOUtils.java
+ *
+ * Opening, reading and closing files, and turning tokens into numbers, for the ModelParameters class and the
+ * runners that write their own files
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+public class IOUtils {
+
+	public static String readBRLine ( BufferedReader file ) {
+		String s;
+		try {
+			s = file.readLine();
+		} catch  ( IOException e ) {
+			//System.out.println( "closeBRFile error!" );
+			s = null;
+		}
+		return s;
+	}
+
+	public  static BufferedReader openFileToRead ( String filename ) {
+		BufferedReader in;
+		try {
+			in = new BufferedReader( new FileReader(filename));
+		} catch ( IOException e ) {
+			// no file, etc
+			// System.out.println( "openFileToRead error on filename="+filename );
+			in = null;
+		}
+		//System.err.printf("openFileToRead: '%s'\n", filename );
+		return in;
+	}
+
+	// how is "a" to add to the end of the file instead of starting it over
+	public static PrintWriter openFileToWrite ( String dir, String filename, String how ) {
+		PrintWriter out;
+		try {
+			File f = new File( dir, filename );
+			out = new PrintWriter( new FileWriter( f, how.equals( "a" ) ) );
+		} catch ( IOException e ) {
+			// no file, etc
+			//System.out.println( "openFileToWrite error on dir/filename="
+			//					+ dir + "/" + filename );
+			out = null;
+		}
+		//System.err.printf("openFileToWrite: '%s'\n", filename );
+		return out;
+	}
+
+	public  static int closeBRFile (  BufferedReader file ) {
+		int r = 0;
+		try {
+			file.close();
+		} catch  ( IOException e ) {
+			//System.out.println( "closeBRFile error!" );
+			r = -1;
+		}
+		return r;
+	}
+
+	public static int closePWFile ( PrintWriter file ) {
+		int r = 0;
+   		file.close();
+		return r;
+	}
+
+	//////////////////////////////////////////////////////////////
+
+
+	public static int tokenToInt( String token ) {
+		int i;
+		token = token.trim();
+		try {
+			i = Integer.parseInt( token );
+		} catch (NumberFormatException ex) {
+			throw new IllegalArgumentException(" tokenToInt error, token="+token ); 
+		}
+		return i;
+	}
+
+	public static double tokenToDouble( String token ) {
+		double d;
+		token = token.trim();
+		try {
+			d = Double.parseDouble( token );
+		} catch (NumberFormatException ex) {
+			throw new IllegalArgumentException(" tokenToDouble error, token="+token ); 
+		}
+		return d;
+	}
+
+}
@@ -0,0 +1,278 @@
+package spanglish;
+
+/**
+ * ItemFrequencyIndex.java
+ *
+ * Keeps a running count of how many people in the Model's personList have each possible item in their
+ * first lexicon, broken down by race. Every item is reduced to a single integer code (see SimulationContext.itemCode)
+ * so the counts live in a small table that is indexed by race and code. The first lexicon of every indexed
+ * person reports each item that is added to or removed from it, so the frequency of an item is available
+ * at any time without scanning the population. This is what the GeneticAlg uses for its macro fitness
+ */
+
+public class ItemFrequencyIndex {
+
+	//////////////////////// CLASS VARIABLES
+
+	// the number of races that are tracked, races are numbered from Model.WHITE to Model.LATINO
+	public static final int		numRaces = Model.LATINO + 1;
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the run whose people are counted, which knows the size of items
+	public SimulationContext	context;
+	// the number of people of each race whose first lexicon has an item with a given code
+	// e.x: counts[Model.BLACK][code] is the number of black people with that item in their first lexicon
+	public int[][]				counts;
+	// the number of indexed people of each race
+	public int[]				raceTotals;
+	// the number of indexed people overall
+	public int					numPeople;
+	// while frozen, the changes to counts are kept here instead, so the frequencies stay what they were when
+	// the index was frozen, see the freeze method
+	public int[][]				pendingCounts;
+	public boolean				frozen = false;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * creates an empty index that is big enough to hold every possible item code of the input run. its
+	 * maxItems and numElements must be set before the index is constructed
+	 */
+	public ItemFrequencyIndex( SimulationContext aContext ) {
+
+		// one count for every race and item code
+		context = aContext;
+		counts = new int[numRaces][context.numItemCodes()];
+		raceTotals = new int[numRaces];
+		numPeople = 0;
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Snapshot Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * freeze
+	 *
+	 * keeps the frequencies as they are now until the thaw method is called, while the lexicons go on
+	 * reporting their changes. used by the TwoPhaseListener, so everyone hears against the same frequencies
+	 * no matter in which order the threads get to them. people must not be added or removed while frozen
+	 */
+	public void freeze() {
+
+		// the changes are counted from zero
+		if ( pendingCounts == null )
+			pendingCounts = new int[numRaces][counts[0].length];
+		frozen = true;
+	}
+
+	/**
+	 * thaw
+	 *
+	 * adds every change reported since the freeze method was called to the counts
+	 */
+	public void thaw() {
+
+		frozen = false;
+		if ( pendingCounts == null )
+			return;
+
+		// move the changes over and start again from zero
+		for ( int r = 0 ; r < numRaces ; ++r ) {
+			for ( int c = 0 ; c < counts[r].length ; ++c ) {
+				counts[r][c] += pendingCounts[r][c];
+				pendingCounts[r][c] = 0;
+			}
+		}
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Population Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * addPerson
+	 *
+	 * adds a person to the index by counting every item in their first lexicon. the first lexicon is then
+	 * attached to the index so any later changes to it are reported back here. called whenever someone
+	 * is added to personList
+	 */
+	public void addPerson( Person p ) {
+
+		// increment the number of people in total and of the person's race
+		++numPeople;
+		++raceTotals[p.getRace()];
+
+		// return if the person does not have a first language yet
+		if ( p.getFirstLang() == null )
+			return;
+
+		// count every item that is already in their first lexicon
+		for ( int i = 0 ; i < p.getFirstLang().getNumItems() ; ++i )
+			itemAdded( p.getRace(), p.getFirstLang().getItem( i ) );
+
+		// from now on, the first lexicon reports its changes to this index
+		p.getFirstLang().attachFrequencyIndex( this, p.getRace() );
+	}
+
+	/**
+	 * removePerson
+	 *
+	 * removes a person from the index by un-counting every item in their first lexicon, and detaches their
+	 * first lexicon from the index. called whenever someone is removed from personList
+	 */
+	public void removePerson( Person p ) {
+
+		// decrement the number of people in total and of the person's race
+		--numPeople;
+		--raceTotals[p.getRace()];
+
+		// return if the person does not have a first language
+		if ( p.getFirstLang() == null )
+			return;
+
+		// un-count every item in their first lexicon
+		for ( int i = 0 ; i < p.getFirstLang().getNumItems() ; ++i )
+			itemRemoved( p.getRace(), p.getFirstLang().getItem( i ) );
+
+		// the lexicon may live on in a Teacher or BabySitter, but it no longer counts towards the index
+		p.getFirstLang().detachFrequencyIndex();
+	}
+
+	/**
+	 * clear
+	 *
+	 * resets every count to zero
+	 */
+	public void clear() {
+
+		// zero out the count of every item for every race
+		for ( int r = 0 ; r < numRaces ; ++r ) {
+			for ( int c = 0 ; c < counts[r].length ; ++c )
+				counts[r][c] = 0;
+			raceTotals[r] = 0;
+		}
+		numPeople = 0;
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Lexicon Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * itemAdded
+	 *
+	 * called by an attached lexicon when an item enters it
+	 */
+	public void itemAdded( int race, int[] item ) {
+
+		// count the code of the item, see SimulationContext.itemCode for details
+		codeAdded( race, context.itemCode( item ) );
+	}
+
+	/**
+	 * itemRemoved
+	 *
+	 * called by an attached lexicon when an item leaves it
+	 */
+	public void itemRemoved( int race, int[] item ) {
+
+		// un-count the code of the item, see SimulationContext.itemCode for details
+		codeRemoved( race, context.itemCode( item ) );
+	}
+
+	/**
+	 * codeAdded
+	 *
+	 * called by an attached lexicon when an item enters it, for lexicons that already hold their items as codes
+	 */
+	public synchronized void codeAdded( int race, int code ) {
+
+		// ignore malformed items, they can never be found by inLexicon anyways
+		if ( code < 0 )
+			return;
+
+		if ( frozen )
+			++pendingCounts[race][code];
+		else
+			++counts[race][code];
+	}
+
+	/**
+	 * codeRemoved
+	 *
+	 * called by an attached lexicon when an item leaves it, for lexicons that already hold their items as codes
+	 */
+	public synchronized void codeRemoved( int race, int code ) {
+
+		// ignore malformed items, they were never counted
+		if ( code < 0 )
+			return;
+
+		if ( frozen )
+			--pendingCounts[race][code];
+		else
+			--counts[race][code];
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Frequency Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * getCount
+	 *
+	 * returns the number of people of the given race with the item in their first lexicon
+	 */
+	public int getCount( int[] item, int race ) {
+
+		// get the code of the item, see SimulationContext.itemCode for details
+		int code = context.itemCode( item );
+
+		// nobody has a malformed item
+		if ( code < 0 )
+			return 0;
+
+		return counts[race][code];
+	}
+
+	/**
+	 * freqOfItem
+	 *
+	 * returns the percentage of indexed people that have the input item in their first language
+	 */
+	public double freqOfItem( int[] item ) {
+
+		// add up the counts over every race
+		int itemCount = 0;
+		for ( int r = 0 ; r < numRaces ; ++r )
+			itemCount += getCount( item, r );
+
+		return ( (double)itemCount ) / numPeople;
+	}
+
+	/**
+	 * freqOfItemInRace
+	 *
+	 * returns the percentage of indexed people of the given race that have the input item in their first language
+	 */
+	public double freqOfItemInRace( int[] item, int race ) {
+		return ( (double)getCount( item, race ) ) / raceTotals[race];
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public int getNumPeople() {
+		return numPeople;
+	}
+	public int getRaceTotal( int race ) {
+		return raceTotals[race];
+	}
+}
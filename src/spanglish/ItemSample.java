@@ -0,0 +1,48 @@
+package spanglish;
+
+/**
+ * ItemSample.java
+ *
+ * A reusable buffer that Lexicon.sampleItems draws random items into. Every Person owns one for the items
+ * they hear in a conversation, so listening does not create a new ArrayList every time and the lexicon of the
+ * speaker is only read from, never shuffled. The items in the buffer are the items of the speaker's lexicon
+ * themselves, which are never written to once they are in a lexicon, so they can be heard as they are
+ */
+
+public class ItemSample {
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the sampled items, only the first numItems are in use
+	public int[][]				items;
+	// the number of items in the sample
+	public int					numItems;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * creates an empty buffer that is big enough to hold every item of a bilingual lexicon of the input run.
+	 * its maxItems must be set before the buffer is constructed
+	 */
+	public ItemSample( SimulationContext context ) {
+
+		// a bilingual lexicon is the largest there is, see the BiLexicon class for details
+		items = new int[context.maxItems * 2][];
+		numItems = 0;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public int[] getItem( int i ) {
+		return items[i];
+	}
+	public int getNumItems() {
+		return numItems;
+	}
+}
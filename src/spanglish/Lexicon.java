@@ -12,19 +12,47 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Collections;
 import java.util.Random;
-import uchicago.src.sim.util.SimUtilities;
 
 public class Lexicon {
 	
 	//////////////////////// CLASS VARIABLES
-	public static int			maxItems;		// sets maximum size of lexicon
-	public static int			numElements;	// num of allocated bits in each item
-	public static Random		rng;
+	
+	// items are integer arrays in an ArrayList, the Lexicon and BiLexicon classes
+	public static final int		listLexicon = 0;
+	// items are packed into integer codes in a primitive array, the PackedLexicon class
+	public static final int		packedLexicon = 1;
+	// items sit in fixed slots picked by their index and language and are never sorted, the SlotLexicon class
+	public static final int		slotLexicon = 2;
+	// packed codes like the PackedLexicon, but every lexicon with the same items shares one array, the SharedLexicon class
+	public static final int		sharedLexicon = 3;
+	// newLexicon creates the class chosen by the lexiconType of the SimulationContext, set from the Model class/Repast panel
+	
+	// the language and the two inflection bits of each type of item, read as a three digit binary number
+	// see the categoryOf method for details
+	public static final int		USAS_BITS = 5;					// _ 1 0 1
+	public static final int		STANDARD_ENGLISH_BITS = 2;		// _ 0 1 0
+	public static final int		AAE_BITS = 1;					// _ 0 0 1
+	public static final int		WHITE_SPANISH_BITS = 6;			// _ 1 1 0
+	public static final int		numCategories = 8;
 
 	//////////////////////// INSTANCE VARIABLES
 	
+	// the run the lexicon belongs to, which knows the size of items and has the shared copy of every item
+	public SimulationContext		context;
 	public ArrayList<int[]>			lexicon;		// actual lexicon
 	
+	// if this is the first lexicon of someone in personList, the index that counts its items and the race
+	// of the owner. null otherwise, see the ItemFrequencyIndex class for details
+	protected ItemFrequencyIndex	frequencyIndex;
+	protected int					frequencyRace;
+	
+	// if this is the first lexicon of someone in the Model's PopulationStore, that person, whose slot gets the
+	// new counts of each type of item whenever they change. null otherwise, see the PopulationStore class
+	protected Person				owner;
+	
+	// the number of items of each type in the lexicon, kept up to date by itemAdded and itemRemoved
+	// e.x: categoryCounts[USAS_BITS] is the number of USAS items
+	protected int[]					categoryCounts = new int[numCategories];
 	
 	
 	//////////////////////////////////////////////////////////////////////////////////////
@@ -32,9 +60,11 @@ public class Lexicon {
 	//////////////////////////////////////////////////////////////////////////////////////
 	
 	/**
-	 * Creates an empty ArrayList for a lexicon
+	 * Creates an empty ArrayList for a lexicon of the input run
 	 */
-	public Lexicon() {
+	public Lexicon( SimulationContext aContext ) {
+		
+		context = aContext;
 		
 		// initialize the lexicon ArrayList
 		lexicon = new ArrayList<int[]>();
@@ -44,24 +74,114 @@ public class Lexicon {
 	 * Creates a lexicon with a single item. Used when a child is accumulating their first language or
 	 * someone is building their second language
 	 */
-	public Lexicon( int[] newItem ) {
+	public Lexicon( SimulationContext aContext, int[] newItem ) {
 		
 		// initialize the lexicon ArrayList
-		lexicon = new ArrayList<int[]>();
+		this( aContext );
 		
-		// add the input item
+		// add the shared copy of the input item, see the intern method of the SimulationContext class for details
+		newItem = context.intern( newItem );
 		lexicon.add( newItem );
+		itemAdded( newItem );
 	}
 	
 	/**
 	 * Creates a lexicon with an ArrayList of items. Used when initializing a first language
 	 */
-	public Lexicon( ArrayList<int[]> newLang ) {
+	public Lexicon( SimulationContext aContext, ArrayList<int[]> newLang ) {
 		
-		// sets entire lexicon given an ArrayList of integer arrays
+		// sets entire lexicon given an ArrayList of integer arrays, swapping every item for its shared copy
+		context = aContext;
 		lexicon = newLang;
+		context.internAll( lexicon );
+		
+		// count the items of each type, see the countCategories method for details
+		countCategories();
+	}
+	
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Factory Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * newLexicon
+	 * 
+	 * creates an empty lexicon of the input run, of the class chosen by its lexiconType
+	 */
+	public static Lexicon newLexicon( SimulationContext context ) {
+		if ( context.lexiconType == packedLexicon )
+			return new PackedLexicon( context );
+		else if ( context.lexiconType == slotLexicon )
+			return new SlotLexicon( context );
+		else if ( context.lexiconType == sharedLexicon )
+			return new SharedLexicon( context );
+		else
+			return new Lexicon( context );
+	}
+	
+	/**
+	 * newLexicon
+	 * 
+	 * creates a lexicon of the input run with a single item, of the class chosen by its lexiconType
+	 */
+	public static Lexicon newLexicon( SimulationContext context, int[] newItem ) {
+		if ( context.lexiconType == packedLexicon )
+			return new PackedLexicon( context, newItem );
+		else if ( context.lexiconType == slotLexicon )
+			return new SlotLexicon( context, newItem );
+		else if ( context.lexiconType == sharedLexicon )
+			return new SharedLexicon( context, newItem );
+		else
+			return new Lexicon( context, newItem );
+	}
+	
+	/**
+	 * newLexicon
+	 * 
+	 * creates a lexicon of the input run with an ArrayList of items, of the class chosen by its lexiconType
+	 */
+	public static Lexicon newLexicon( SimulationContext context, ArrayList<int[]> newLang ) {
+		if ( context.lexiconType == packedLexicon )
+			return new PackedLexicon( context, newLang );
+		else if ( context.lexiconType == slotLexicon )
+			return new SlotLexicon( context, newLang );
+		else if ( context.lexiconType == sharedLexicon )
+			return new SharedLexicon( context, newLang );
+		else
+			return new Lexicon( context, newLang );
+	}
+	
+	/**
+	 * toBiLexicon
+	 * 
+	 * returns a bilingual lexicon that takes the place of this one, see the BiLexicon class for details
+	 * is overrided by the PackedLexicon, SlotLexicon and SharedLexicon classes
+	 */
+	public Lexicon toBiLexicon() {
+		return new BiLexicon( this );
+	}
+	
+	/**
+	 * isBilingual
+	 * 
+	 * returns true if the lexicon holds the items of two languages, is overrided by the BiLexicon,
+	 * PackedLexicon and SlotLexicon classes
+	 */
+	public boolean isBilingual() {
+		return false;
 	}
 	
+	/**
+	 * copy
+	 * 
+	 * returns a new lexicon of the same class with the same items. changing one of them does not change the other,
+	 * and the copy is not attached to a frequency index. is overrided by every subclass
+	 */
+	public Lexicon copy() {
+		return new Lexicon( context, new ArrayList<int[]>( lexicon ) );
+	}
+	
+	
 	//////////////////////////////////////////////////////////////////////////////////////
 	// Methods
 	//////////////////////////////////////////////////////////////////////////////////////
@@ -77,11 +197,11 @@ public class Lexicon {
 	public boolean addItem( int[] item ) {
 		
 		// return false if the item is the wrong size
-		if ( item.length != numElements )
+		if ( item.length != context.numElements )
 			return false;
 		
 		// return false if there is no space
-		if ( lexicon.size() >= maxItems )	{
+		if ( lexicon.size() >= context.maxItems )	{
 			return false;
 		}
 		
@@ -90,8 +210,11 @@ public class Lexicon {
 			if ( lexicon.get( i )[0] == item[0] )
 				return false;
 		
-		// if everything checks out, add the item, re-sort the lexicon and update the size
+		// if everything checks out, add the shared copy of the item, re-sort the lexicon and update the size
+		// see the intern method of the SimulationContext class for details
+		item = context.intern( item );
 		lexicon.add( item );
+		itemAdded( item );
 		
 		Collections.sort( lexicon, 
 		  (java.util.Comparator<? super int[]>) new LexiconComparator() );
@@ -127,7 +250,7 @@ public class Lexicon {
 	public int getBit( int item, int element) {
 		
 		// return null if the index is out of bounds
-		if ( item >= lexicon.size() || element >= numElements )
+		if ( item >= lexicon.size() || element >= context.numElements )
 			return -1;
 		
 		return lexicon.get( item )[element];
@@ -141,9 +264,9 @@ public class Lexicon {
 	 * given a positive integer numItems, returns numItems items chosen randomly from the lexicon by
 	 * shuffling, picking the first numItems, and re-sorting
 	 * if numItems is larger than the size of the lexicon, then returns the entire lexicon
-	 * returns null if the input it non-positive 
+	 * returns null if the input it non-positive. draws from the input random numbers, those of whoever asks
 	 */
-	public ArrayList<int[]> getRandomItemsFromLexicon( int numItems ) {
+	public ArrayList<int[]> getRandomItemsFromLexicon( int numItems, Random random ) {
 		
 		// return null if the number of items to be chosen is less than one
 		if ( numItems < 1 )
@@ -157,7 +280,7 @@ public class Lexicon {
 		ArrayList<int[]> tempArray = new ArrayList<int[]>();
 		
 		// shuffle the list of items
-		SimUtilities.shuffle( lexicon, uchicago.src.sim.util.Random.uniform );
+		Collections.shuffle( lexicon, random );
 		
 		// add the first numItems items to the tempArray
 		for ( int i = 0 ; i < numItems ; ++i )
@@ -170,6 +293,73 @@ public class Lexicon {
 		return tempArray;
 	}
 	
+	/**
+	 * sampleItems
+	 * 
+	 * given a positive integer numItems, puts numItems distinct items chosen randomly from the lexicon into the
+	 * sample and returns how many there are. every item is first copied into the sample, then only the first
+	 * numItems places are shuffled (a partial Fisher-Yates shuffle), so unlike getRandomItemsFromLexicon the
+	 * lexicon itself is never shuffled or re-sorted and nothing new is created
+	 * if numItems is larger than or equal to the size of the lexicon, then the sample is the entire lexicon in order
+	 * the sample is empty if the input is non-positive. draws from the input random numbers, those of the Person
+	 * that hears the items, so it can be called on several threads at once. see the RandomStream class
+	 */
+	public int sampleItems( int numItems, ItemSample sample, Random random ) {
+		
+		// copy every item into the sample, see the startSample method below
+		int size = startSample( numItems, sample );
+		if ( numItems < 1 || numItems >= size )
+			return sample.numItems;
+		
+		// swap a random item from the rest of the sample into each of the first numItems places
+		for ( int i = 0 ; i < numItems ; ++i ) {
+			int j = i + random.nextInt( size - i );
+			int[] temp = sample.items[i];
+			sample.items[i] = sample.items[j];
+			sample.items[j] = temp;
+		}
+		
+		sample.numItems = numItems;
+		return numItems;
+	}
+	
+	/**
+	 * startSample
+	 * 
+	 * copies every item into the sample and returns how many there are. if there are no more than numItems
+	 * of them the sample is already done and holds the entire lexicon, or nothing if numItems is non-positive
+	 */
+	protected int startSample( int numItems, ItemSample sample ) {
+		
+		// the sample is empty if the number of items to be chosen is less than one
+		sample.numItems = 0;
+		if ( numItems < 1 )
+			return 0;
+		
+		// copy every item into the sample, see the copyItemsTo method for details
+		int size = copyItemsTo( sample.items );
+		
+		// the sample is the whole lexicon if there are not enough items to choose from
+		if ( numItems >= size )
+			sample.numItems = size;
+		
+		return size;
+	}
+	
+	/**
+	 * copyItemsTo
+	 * 
+	 * puts every item of the lexicon in order into the buffer, which must have room for them, and returns how
+	 * many there are. is overrided by the PackedLexicon and SlotLexicon classes
+	 */
+	protected int copyItemsTo( int[][] buffer ) {
+		
+		for ( int i = 0 ; i < lexicon.size() ; ++i )
+			buffer[i] = lexicon.get( i );
+		
+		return lexicon.size();
+	}
+	
 	/**
 	 * getItemsFromLexiconWithIndex
 	 * 
@@ -179,7 +369,7 @@ public class Lexicon {
 	public ArrayList<int[]> getItemsFromLexiconWithIndex( int index ) {
 		
 		// returns null if the input is invalid
-		if ( index < 0 || index >= maxItems )
+		if ( index < 0 || index >= context.maxItems )
 			return null;
 		
 		// initialize an ArrayList of items
@@ -204,16 +394,17 @@ public class Lexicon {
 	 * 
 	 * replaces the item at index existingItemIndex with newItem, then sorts
 	 * returns if the newItem is invalid or existingItemIndex is too large
+	 * Note: items are shared between lexicons when they are heard, so the old item is never written to.
+	 * a copy of newItem takes its place instead
 	 */
 	public void replaceItem( int existingItemIndex, int[] newItem ) {
 		
 		// returns if the inputs are invalid
-		if ( newItem == null || newItem.length != numElements || existingItemIndex > lexicon.size() )
+		if ( newItem == null || newItem.length != context.numElements || existingItemIndex > lexicon.size() )
 			return;
 		
-		// iterates through every bit of the item at the specified index and replaces it with newItem
-		for ( int j = 0 ; j < numElements ; ++j )
-			lexicon.get( existingItemIndex )[j] = newItem[j];
+		// puts the shared copy of newItem at the specified index, see the intern method of the SimulationContext class for details
+		setItem( existingItemIndex, context.intern( newItem ) );
 		
 		// re-sorts the lexicon
 		Collections.sort( lexicon, 
@@ -229,12 +420,11 @@ public class Lexicon {
 	public void replaceInflection( int existingItemIndex, int[] newItem ) {
 		
 		// returns if the inputs are invalid
-		if ( newItem == null || newItem.length != numElements || existingItemIndex > lexicon.size() )
+		if ( newItem == null || newItem.length != context.numElements || existingItemIndex > lexicon.size() )
 			return;
 		
-		// iterates through every bit after the second at the specified index and replaces it with those of newItem
-		for ( int j = 2 ; j < numElements ; ++j )
-			lexicon.get( existingItemIndex )[j] = newItem[j];
+		// see the inflectedCopy method for details
+		setItem( existingItemIndex, inflectedCopy( lexicon.get( existingItemIndex ), newItem ) );
 		
 		// re-sorts the lexicon
 		Collections.sort( lexicon, 
@@ -254,7 +444,7 @@ public class Lexicon {
 		int itemIndex = inLexicon( existingItem );
 		
 		// return false if the item is not in the lexicon or if the other two inputs are invalid
-		if ( itemIndex < 0 || existingItem.length != numElements || newItem.length != numElements )
+		if ( itemIndex < 0 || existingItem.length != context.numElements || newItem.length != context.numElements )
 			return false;
 		
 		// replace the item
@@ -277,7 +467,7 @@ public class Lexicon {
 		int itemIndex = inLexicon( existingItem );
 		
 		// return false if the item is not in the lexicon or if the other two inputs are invalid
-		if ( itemIndex < 0 || existingItem.length != numElements || newItem.length != numElements )
+		if ( itemIndex < 0 || existingItem.length != context.numElements || newItem.length != context.numElements )
 			return false;
 		
 		// replace the inflection
@@ -296,11 +486,56 @@ public class Lexicon {
 	public void swapBit ( int itemIndex, int elementNum, int newElement) {
 		
 		// return if the inputs are invalid
-		if ( itemIndex >= lexicon.size() || elementNum >= numElements )
+		if ( itemIndex >= lexicon.size() || elementNum >= context.numElements )
 			return;
 		
-		// replaces the bit with newElement
-		lexicon.get( itemIndex )[elementNum] = newElement;
+		// copies the item, replaces the bit of the copy with newElement and puts the shared copy of the result
+		// in place of the item
+		int[] replacement = lexicon.get( itemIndex ).clone();
+		replacement[elementNum] = newElement;
+		setItem( itemIndex, context.intern( replacement ) );
+	}
+	
+	/**
+	 * setItem
+	 * 
+	 * puts newItem at position i of the lexicon in place of the item that was there, and lets the
+	 * frequency index know about the change. does not re-sort
+	 */
+	protected void setItem( int i, int[] newItem ) {
+		
+		// the old item leaves the lexicon and the new one enters it
+		itemRemoved( lexicon.get( i ) );
+		lexicon.set( i, newItem );
+		itemAdded( newItem );
+	}
+	
+	/**
+	 * inflectedCopy
+	 * 
+	 * returns the shared item with the index and language of existingItem and every bit after the second
+	 * from newItem, or a new item if there is no shared one
+	 */
+	protected int[] inflectedCopy( int[] existingItem, int[] newItem ) {
+		
+		// if both items have codes, the code of the result is made up of the two codes
+		int existingCode = context.itemCode( existingItem );
+		int newCode = context.itemCode( newItem );
+		if ( existingCode >= 0 && newCode >= 0 )
+			return context.itemOfCode( ( existingCode & ~context.inflectionMask() ) | ( newCode & context.inflectionMask() ) );
+		
+		// otherwise initialize a new item
+		int[] replacement = new int[context.numElements];
+		
+		// the first two bits come from the existing item, the rest come from newItem
+		for ( int j = 0 ; j < context.numElements ; ++j ) {
+			if ( j < 2 )
+				replacement[j] = existingItem[j];
+			else
+				replacement[j] = newItem[j];
+		}
+		
+		return replacement;
 	}
 	
 	
@@ -316,6 +551,10 @@ public class Lexicon {
 	 */
 	public boolean itemsEqual( int[] item1, int[] item2 ) {
 		
+		// shared items are only equal to themselves, see the intern method of the SimulationContext class for details
+		if ( item1 == item2 && item1 != null )
+			return true;
+		
 		// return false if either items are null or if their lengths aren't equal
 		if ( item1 == null || item2 == null || item1.length != item2.length )
 			return false;
@@ -339,9 +578,20 @@ public class Lexicon {
 	public int inLexicon( int[] item ) {
 		
 		// return -1 if the inputs are invalid
-		if ( item == null || item.length != numElements )
+		if ( item == null || item.length != context.numElements )
 			return -1;
 		
+		// every item in a lexicon is a shared item if it has a code, so it is enough to look for the shared
+		// copy of the input. see the intern method of the SimulationContext class for details
+		int code = context.itemCode( item );
+		if ( code >= 0 ) {
+			int[] sharedItem = context.itemOfCode( code );
+			for ( int i = 0 ;  i < lexicon.size() ; ++i )
+				if ( lexicon.get( i ) == sharedItem )
+					return i;
+			return -1;
+		}
+		
 		// for every item in the lexicon
 		for ( int i = 0 ;  i < lexicon.size() ; ++i ) {
 			// if the item at the index is equal to the input, then return the index
@@ -361,7 +611,7 @@ public class Lexicon {
 	public boolean isFull() {
 		
 		// return false if the number of items in the lexicon is less than maxItems
-		if( lexicon.size() < maxItems)
+		if( lexicon.size() < context.maxItems)
 			return false;
 		// return true otherwise
 		else
@@ -406,83 +656,39 @@ public class Lexicon {
 	/**
 	 * freqOfUSAS
 	 * 
-	 * iterates through the whole lexicon and returns the number of items that are USAS
+	 * returns the number of items that are USAS, which is kept count of as items enter and leave the lexicon
 	 */
 	public int freqOfUSAS() {
-		
-		// initialize the count
-		int count = 0;
-		
-		// iterating through every item in the lexicon
-		for ( int i = 0 ; i < lexicon.size(); ++i ) {
-			// increment the count if the item at index i is USAS
-			if ( isUSAS( lexicon.get( i ) ) )
-				++count;
-		}
-		
-		return count;
+		return categoryCounts[USAS_BITS];
 	}
 	
 	
 	/**
 	 * freqOfStandardEnglish
 	 * 
-	 * iterates through the whole lexicon and returns the number of items that are standard English
+	 * returns the number of items that are standard English, which is kept count of as items enter and leave the lexicon
 	 */
 	public int freqOfStandardEnglish() {
-		
-		// initialize the count
-		int count = 0;
-		
-		// iterating through every item in the lexicon
-		for ( int i = 0 ; i < lexicon.size() ; ++i ) {
-			// increment the count if the item at index i is Standard English
-			if ( isStandardEnglish( lexicon.get( i ) ) )
-				++count;
-		}
-		
-		return count;
+		return categoryCounts[STANDARD_ENGLISH_BITS];
 	}
 	
 	
 	/**
 	 * freqOfAAE
 	 * 
-	 * iterates through the whole lexicon and returns the number of items that are African-American English
+	 * returns the number of items that are African-American English, which is kept count of as items enter and leave the lexicon
 	 */
 	public int freqOfAAE() {
-		
-		// initialize the count
-		int count = 0;
-		
-		// iterating through every item in the lexicon
-		for ( int i = 0 ; i < lexicon.size() ; ++i ) {
-			// increment the count if the item at index i is AAE
-			if ( isAAE( lexicon.get( i ) ) )
-				++count;
-		}
-		
-		return count;
+		return categoryCounts[AAE_BITS];
 	}
 	
 	/**
 	 * freqOfWhiteSpanish
 	 * 
-	 * iterates through the whole lexicon and returns the number of items that are Puerto-Rican
+	 * returns the number of items that are Puerto-Rican, which is kept count of as items enter and leave the lexicon
 	 */
 	public int freqOfWhiteSpanish() {
-		
-		// initialize the count
-		int count = 0;
-		
-		// iterating through every item in the lexicon
-		for ( int i = 0 ; i < lexicon.size() ; ++i ) {
-			// increment the count if the item at index i is Puerto-Rican
-			if ( isWhiteSpanish( lexicon.get( i ) ) )
-				++count;
-		}
-		
-		return count;
+		return categoryCounts[WHITE_SPANISH_BITS];
 	}
 	
 	
@@ -622,7 +828,7 @@ public class Lexicon {
 	public int getNumOfBitInColumn( int element, int bit ) {
 		
 		// return -1 if the element input is invalid
-		if( element >= numElements )
+		if( element >= context.numElements )
 			return -1;
 		
 		// initialize the count
@@ -640,6 +846,191 @@ public class Lexicon {
 	
 	
 	
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Frequency Index Methods
+	////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * attachFrequencyIndex
+	 * 
+	 * from now on, every item that enters or leaves the lexicon is reported to index under the given race.
+	 * the items already in the lexicon must have been counted by the caller
+	 */
+	public void attachFrequencyIndex( ItemFrequencyIndex index, int race ) {
+		frequencyIndex = index;
+		frequencyRace = race;
+	}
+	
+	/**
+	 * detachFrequencyIndex
+	 * 
+	 * stops reporting changes to the frequency index
+	 */
+	public void detachFrequencyIndex() {
+		frequencyIndex = null;
+	}
+	
+	/**
+	 * attachOwner
+	 * 
+	 * from now on, the counts of each type of item are copied into the slot of the person in the Model's
+	 * PopulationStore whenever they change. see the PopulationStore class for details
+	 */
+	public void attachOwner( Person p ) {
+		owner = p;
+		context.model.population.counted( p, this );
+	}
+	
+	/**
+	 * detachOwner
+	 * 
+	 * stops copying the counts into the slot of the owner
+	 */
+	public void detachOwner() {
+		owner = null;
+	}
+	
+	/**
+	 * takeOver
+	 * 
+	 * used by the constructors of lexicons that take the place of the input lexicon, the new lexicon takes over
+	 * the frequency index and the owner of the input, if it has them
+	 */
+	protected void takeOver( Lexicon lex ) {
+		if ( lex.frequencyIndex != null ) {
+			attachFrequencyIndex( lex.frequencyIndex, lex.frequencyRace );
+			lex.detachFrequencyIndex();
+		}
+		if ( lex.owner != null ) {
+			attachOwner( lex.owner );
+			lex.detachOwner();
+		}
+	}
+	
+	/**
+	 * itemAdded
+	 * 
+	 * counts the type of an item that entered the lexicon and tells the frequency index, if there is one
+	 */
+	protected void itemAdded( int[] item ) {
+		countCategory( categoryOf( item ), 1 );
+		if ( frequencyIndex != null )
+			frequencyIndex.itemAdded( frequencyRace, item );
+	}
+	
+	/**
+	 * itemRemoved
+	 * 
+	 * un-counts the type of an item that left the lexicon and tells the frequency index, if there is one
+	 */
+	protected void itemRemoved( int[] item ) {
+		countCategory( categoryOf( item ), -1 );
+		if ( frequencyIndex != null )
+			frequencyIndex.itemRemoved( frequencyRace, item );
+	}
+	
+	/**
+	 * codeAdded
+	 * 
+	 * same as itemAdded for an item that is already packed into a code
+	 */
+	protected void codeAdded( int code ) {
+		countCategory( context.categoryOfCode( code ), 1 );
+		if ( frequencyIndex != null )
+			frequencyIndex.codeAdded( frequencyRace, code );
+	}
+	
+	/**
+	 * codeRemoved
+	 * 
+	 * same as itemRemoved for an item that is already packed into a code
+	 */
+	protected void codeRemoved( int code ) {
+		countCategory( context.categoryOfCode( code ), -1 );
+		if ( frequencyIndex != null )
+			frequencyIndex.codeRemoved( frequencyRace, code );
+	}
+	
+	
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Category Count Methods
+	////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * categoryOf
+	 * 
+	 * returns the language and the two inflection bits of an item as a three digit binary number, which is what
+	 * decides if the item is USAS, standard English, AAE or Puerto-Rican. e.x: (2 1 0 1) is 5, or USAS_BITS
+	 * returns -1 if the item is too short or any of those bits are not a zero or a one
+	 */
+	public static int categoryOf( int[] item ) {
+		
+		// return -1 if the item is too short
+		if ( item == null || item.length < 4 )
+			return -1;
+		
+		// shift in the second to fourth bits
+		int category = 0;
+		for ( int j = 1 ; j < 4 ; ++j ) {
+			// return -1 if the bit is not a zero or a one
+			if ( item[j] != 0 && item[j] != 1 )
+				return -1;
+			category = ( category << 1 ) | item[j];
+		}
+		
+		return category;
+	}
+	
+	/**
+	 * countCategory
+	 * 
+	 * adds change to the count of the category, ignores invalid categories
+	 */
+	protected void countCategory( int category, int change ) {
+		if ( category >= 0 ) {
+			categoryCounts[category] += change;
+			// the slot of the owner keeps the same counts
+			if ( owner != null )
+				context.model.population.counted( owner, this );
+		}
+	}
+	
+	/**
+	 * countCategories
+	 * 
+	 * counts the types of every item from scratch, used by constructors that are handed a whole ArrayList
+	 */
+	protected void countCategories() {
+		
+		// zero out every count
+		for ( int c = 0 ; c < numCategories ; ++c )
+			categoryCounts[c] = 0;
+		
+		// count every item
+		for ( int i = 0 ; i < lexicon.size() ; ++i )
+			countCategory( categoryOf( lexicon.get( i ) ), 1 );
+	}
+	
+	/**
+	 * copyCountsFrom
+	 * 
+	 * sets the count of every category to that of the input lexicon, used when copying a lexicon
+	 */
+	protected void copyCountsFrom( Lexicon lex ) {
+		for ( int c = 0 ; c < numCategories ; ++c )
+			categoryCounts[c] = lex.categoryCounts[c];
+	}
+	
+	/**
+	 * getCategoryCount
+	 * 
+	 * returns the number of items in the category, see the categoryOf method for details
+	 */
+	public int getCategoryCount( int category ) {
+		return categoryCounts[category];
+	}
+	
+	
 	/**
 	 * print
 	 * 
@@ -648,7 +1039,7 @@ public class Lexicon {
 	
 	public void print() {
 		for ( int i = 0 ; i < lexicon.size() ; ++i ) {
-			for ( int j = 0 ; j < numElements ; ++j ) {
+			for ( int j = 0 ; j < context.numElements ; ++j ) {
 				System.out.printf( "%d ",lexicon.get(i)[j] );
 			}
 			System.out.print("\n");
@@ -680,23 +1071,20 @@ public class Lexicon {
 	// GETTERS AND SETTERS
 	////////////////////////////////////////////////////////////////////////////////////////
 
-	public static int getMaxItems() {
-		return maxItems;
-	}
-	public static void setMaxItems(int maxItems) {
-		Lexicon.maxItems = maxItems;
-	}
-	public static int getNumElements() {
-		return numElements;
-	}
-	public static void setNumElements(int numElements) {
-		Lexicon.numElements = numElements;
+	public SimulationContext getContext() {
+		return context;
 	}
 	public ArrayList<int[]> getLexicon() {
 		return lexicon;
 	}
 	public void setLexicon( ArrayList<int[]> lexicon ) {
+		// un-count the old items and count the new ones if the lexicon is indexed
+		for ( int i = 0 ; i < this.lexicon.size() ; ++i )
+			itemRemoved( this.lexicon.get( i ) );
+		context.internAll( lexicon );
 		this.lexicon = lexicon;
+		for ( int i = 0 ; i < this.lexicon.size() ; ++i )
+			itemAdded( this.lexicon.get( i ) );
 	}
 	public int getNumItems() {
 		return lexicon.size();
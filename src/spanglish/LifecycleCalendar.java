@@ -0,0 +1,121 @@
+package spanglish;
+
+/**
+ * LifecycleCalendar.java
+ *
+ * A calendar queue of the birthdays of the people of the Model. A person has a birthday every stepsPerYear
+ * ticks after the tick they were born in, their birthTick, and that is the only time anything about their
+ * age changes: they get a year older, may move up an age class, become bilingual, die or retire. The
+ * calendar has one day for every tick of a year, and every person is on the day of their next birthday, so
+ * a tick only looks at the people whose birthday it is instead of at everyone, see the ageAndReproduce
+ * method of the Model class.
+ *
+ * Every day is a list of people in the order they were put on it. A person who is taken out of the calendar
+ * is left on their day and skipped when the day comes, see the nextBirthday variable of the Person class
+ */
+
+import java.util.ArrayList;
+
+public class LifecycleCalendar {
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the number of ticks in a year, which is the number of days
+	public int								numDays;
+	// the people whose next birthday is on every day
+	public ArrayList<ArrayList<Person>>		days;
+	// the people whose birthday it is, handed out by the due method, and the list the day that is due is
+	// swapped for
+	public ArrayList<Person>				due = new ArrayList<Person>();
+	public ArrayList<Person>				spare = new ArrayList<Person>();
+	// the number of people in the calendar
+	public int								size = 0;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * makes an empty calendar for years of the input number of ticks
+	 */
+	public LifecycleCalendar( int ticksPerYear ) {
+		numDays = ticksPerYear;
+		days = new ArrayList<ArrayList<Person>>( numDays );
+		for ( int d = 0 ; d < numDays ; ++d )
+			days.add( new ArrayList<Person>() );
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * add
+	 *
+	 * puts the person on the day of their first birthday after the input tick. called whenever someone is
+	 * added to visibleList, and for everyone who lived through their birthday
+	 */
+	public void add( Person p, int tick ) {
+
+		// the next tick a whole number of years after they were born
+		int years = ( tick - p.birthTick ) / numDays + 1;
+		p.nextBirthday = p.birthTick + years * numDays;
+
+		days.get( p.nextBirthday % numDays ).add( p );
+		++size;
+	}
+
+	/**
+	 * remove
+	 *
+	 * takes the person out of the calendar, they stay on their day but are skipped when it comes. called
+	 * whenever someone is removed from visibleList
+	 */
+	public void remove( Person p ) {
+		if ( p.nextBirthday < 0 )
+			return;
+		p.nextBirthday = -1;
+		--size;
+	}
+
+	/**
+	 * due
+	 *
+	 * returns the people whose birthday is the input tick, in the order they were put in the calendar, and
+	 * takes them out of it. the list is reused the next time, and the people who live through their
+	 * birthday must be added again
+	 */
+	public ArrayList<Person> due( int tick ) {
+
+		// swap the day for an empty one, so the people added again go on a new list
+		int d = tick % numDays;
+		ArrayList<Person> day = days.get( d );
+		days.set( d, spare );
+		spare = day;
+
+		due.clear();
+		for ( Person p : day ) {
+			if ( p.nextBirthday == tick ) {
+				p.nextBirthday = -1;
+				--size;
+				due.add( p );
+			}
+		}
+		day.clear();
+
+		return due;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public int getSize() {
+		return size;
+	}
+	public int getNumDays() {
+		return numDays;
+	}
+}
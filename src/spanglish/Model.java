@@ -3,20 +3,18 @@ package spanglish;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Random;
 
 import uchicago.src.sim.engine.Schedule;
-import uchicago.src.sim.util.SimUtilities;
 
 
 public class Model extends ModelParameters{
 	
 	////////////////////////////////// Class Variables
 	
-	// initialize Random class
-	public static Random		rng = new Random();
+	// the random numbers of the Model itself, those of its run, see the RandomStream class for details
+	public Random				rng = context.modelRng;
 	
 	// initialize the 2D Grid
 	public TorusWorld			world;
@@ -32,6 +30,23 @@ public class Model extends ModelParameters{
 	public static final int 	rworActivationOrder = 2;
 	// in order of status
 	public static final int		statusActivationOrder = 3;
+	// in order of status within tiles of the world that are stepped on several threads at once
+	// see the TiledStepper class for details
+	public static final int		tiledActivationOrder = 4;
+	
+	// 1 to let everyone listen at the same time in two phases before anyone moves, in any activation order
+	// see the TwoPhaseListener class for details
+	public int					twoPhaseListen = 0;
+	
+	// the number of threads that step the tiles with tiledActivationOrder, or that run the two phases of
+	// twoPhaseListen, 0 for one per processor
+	public int					numThreads = 0;
+	// the threads, started the first time they are needed for a world
+	public WorkerPool			workers;
+	// steps the tiles with tiledActivationOrder, made the first time it is needed for a world
+	public TiledStepper			stepper;
+	// runs the two phases of twoPhaseListen, made the first time it is needed for a world
+	public TwoPhaseListener		listener;
 	
 	// final variables for demographic classification
 	public static final int		WHITE = 0;
@@ -98,6 +113,13 @@ public class Model extends ModelParameters{
 	// then zero if you do
 	public int					showEnglishFreqGraph = 0;
 	
+	// how lexicons store their items
+	// 0: ArrayLists of integer arrays, 1: integer codes packed into primitive arrays,
+	// 2: fixed slots for every index and language that are never sorted,
+	// 3: packed codes in arrays that are shared by every lexicon with the same items
+	// see the Lexicon, PackedLexicon, SlotLexicon and SharedLexicon classes for details
+	public int					lexiconType = Lexicon.listLexicon;
+	
     // the probability that a word heard by an adult will be added to their first lexicon
 	public double				adultProbGA = .15;
     // the probability that a word heard by an adult will be added to their second lexicon
@@ -130,9 +152,27 @@ public class Model extends ModelParameters{
 	// define size of world
 	public int 					sizeX = 100;
 	public int					sizeY = 100;
-	
-	public ArrayList<Double>	testMeans = new ArrayList<Double>();
-	public int					runNumber = 0;
+	// the number of Districts across and down the world, each with its own home, school and work
+	// see the DistrictLayout class for details
+	public int					districtsX = 1;
+	public int					districtsY = 1;
+	// 1 to keep the cells of the world in chunks that are only made where somebody is standing, for very
+	// large worlds. see the SparseTorusWorld class for details
+	public int					sparseWorld = 0;
+	
+	// the number of replicates the ReplicateRunner runs at once, the ticks each one runs, how often the
+	// mean USAS of the Latinos is sampled, and the number of replicates run at the same time, 0 for one per
+	// processor. see the ReplicateRunner class for details
+	public int					numReplicates = 10;
+	public int					replicateLength = 4000;
+	public int					sampleInterval = 10;
+	public int					replicateThreads = 0;
+	// the tick of a replicate run by the ReplicateRunner, which has no schedule to count the ticks, -1 otherwise
+	public int					runnerTick = -1;
+	// 1 to compare every slot of the population store with its person at the end of every step, and stop the
+	// run if one of them is out of date. a debug check only, it goes over everyone every step
+	// see the findStaleSlot method of the PopulationStore class
+	public int					checkPopulation = 0;
 	
 	
 	/*
@@ -145,9 +185,21 @@ public class Model extends ModelParameters{
 	public ArrayList<Person> 			personList = new ArrayList<Person>();
 	// holds all of the live Latinos, excluding BabySitters/Teachers
 	public ArrayList<Person>			latinoList = new ArrayList<Person>();
-	
-	// the name of the three Regions in the model
-	public Region 				home, school, work;
+	// counts the items in the first lexicon of everyone in personList, by race
+	// see the ItemFrequencyIndex class for details
+	public ItemFrequencyIndex			itemIndex;
+	// the traits of everyone in personList in parallel arrays, in the same order as personList
+	// see the PopulationStore class for details
+	public PopulationStore				population;
+	
+	// the people of visibleList by status, which gives the order of statusActivationOrder without sorting
+	// see the StatusQueue class for details
+	public StatusQueue					statusQueue;
+	// the birthdays of everyone in visibleList, see the LifecycleCalendar class for details
+	public LifecycleCalendar			lifecycle;
+	
+	// the Districts of the model, each with the three Regions home, school and work
+	public DistrictLayout		layout;
 	
 	/*
 	 * Statistics
@@ -198,6 +250,18 @@ public class Model extends ModelParameters{
 		parametersMap.put("adultProbL1", "adultProbL1");
 		parametersMap.put("adultProbL2", "adultProbL2");
 		parametersMap.put("adultProbGA", "adultProbGA");
+		parametersMap.put("lexType", "lexiconType");
+		parametersMap.put("distX", "districtsX");
+		parametersMap.put("distY", "districtsY");
+		parametersMap.put("sparse", "sparseWorld");
+		parametersMap.put("actOrder", "activationOrder");
+		parametersMap.put("threads", "numThreads");
+		parametersMap.put("twoPhase", "twoPhaseListen");
+		parametersMap.put("reps", "numReplicates");
+		parametersMap.put("repLength", "replicateLength");
+		parametersMap.put("sampleEvery", "sampleInterval");
+		parametersMap.put("repThreads", "replicateThreads");
+		parametersMap.put("checkPop", "checkPopulation");
 	}
 
 	/**
@@ -208,7 +272,7 @@ public class Model extends ModelParameters{
 	public String[] getInitParam () {
 		String[] params = { "blackBirthRate", "latinoBirthRate", "whiteBirthRate","showEnglishFreqGraph" ,
 				"immigrationPerYear", "whiteFlightPerYear","wordFlow", "wordThreshold","randomWordFlow",
-				"adultProbL1", "adultProbL2", "adultProbGA"
+				"adultProbL1", "adultProbL2", "adultProbGA", "lexiconType"
 				 };
 		return params;
 	}
@@ -240,73 +304,85 @@ public class Model extends ModelParameters{
 	*/
 	public void userBuildModel () {
 		
+		// stop the threads that stepped the old world, if any
+		if ( workers != null ) {
+			workers.shutdown();
+			workers = null;
+		}
+		stepper = null;
+		listener = null;
+		
 		// initialize a new TorusWorld of (sizeX, sizeY), that is connected to this Model instance
-		world = new TorusWorld( sizeX, sizeY , this );
+		if ( sparseWorld == 1 )
+			world = new SparseTorusWorld( sizeX, sizeY, this );
+		else
+			world = new TorusWorld( sizeX, sizeY , this );
+		
+		// connect the run to the grid, so the Regions and people of the run use it
+		context.model = this;
+		context.world = world;
 		
-		// statically connect the Region and Person class to the grid
-		Region.setGrid( world );
-		Person.setWorld( world );
+		// tile the world with Districts. in each, home is the uppermost fifteen percent of the rows, school
+		// is from the 11th percent down to the 30th and work is the rest. with one District on a 100 x 100
+		// world that is rows 0 to 15, 11 to 30 and 31 down. Note: Home and School overlap by a few cells
+		layout = new DistrictLayout( context, districtsX, districtsY );
+		context.layout = layout;
 		
-		// Home is the uppermost fifteen cell block
-		home = new Region( 0 , sizeX - 1, 0, 15 );
-		// School is from the 11th block, down to the 30th
-		// Note: Home and School overlap by a few cells
-		school = new Region( 0 , sizeX - 1, 11, 30 );
-		// Work is from the 31st cell all the way down
-		work = new Region( 0 , sizeX - 1, 31, sizeY - 1 );
+		// the people are made in tick zero, see the RandomStream class for details
+		context.setTick( 0 );
 		
 		// see createPeople method below
 		createPeople();
 	}
 	
 	/**
-	 * setStaticParameters
+	 * setContextParameters
 	 * 
-	 * there are several class variables that need to be references by the current model instance, this method
-	 * contains all such static "setting" methods
+	 * the people, the GeneticAlg and the lexicons read the parameters of the run from the Model's
+	 * SimulationContext, this method copies them there from the Model
 	 */
-	public void setStaticParameters() {
+	public void setContextParameters() {
 		
-		// references the current model instance
-		Person.setModel( this );
 		// reset the ID numbers to start at 1
-		Person.setNextID( 1 );
-		// set the Regions that were just set up and give them to the Person class
-		Person.setHome( home );
-		Person.setSchool( school );
-		Person.setWork( work );
-		// tell the Person class of any parameters that were set in the Model class/Repast panel
-		Person.setMaxItems( maxItems );
-		Person.setNumElements( numElements );
-		Person.setNumWordsHeard( wordFlow );
-		Person.setThreshold( wordThreshold );
-		Person.setRandomWordFlow( randomWordFlow );
-		Person.setAdultProbL1( adultProbL1 );
-		Person.setAdultProbL2( adultProbL2 );
-		Person.setAdultProbGA( adultProbGA );
-		
-		// references the current model instance
-		GeneticAlg.setModel( this );
-		// tell the GeneticAlg class of any parameters that were set in the Model class/Repast panel
-		GeneticAlg.setThreshold( wordThreshold );
-		GeneticAlg.setMaxItems( maxItems );
-		GeneticAlg.setNumElements( numElements );
-		
-		// tell the Lexicon class of any parameters that were set in the Model class/Repast panel
-		Lexicon.setMaxItems( maxItems );
-		Lexicon.setNumElements( numElements );
+		context.nextID = 1;
+		// and the streams of random numbers of the people, see the RandomStream class
+		context.nextStreamID = 0;
+		// tell the run of any parameters that were set in the Model class/Repast panel
+		context.maxItems = maxItems;
+		context.numElements = numElements;
+		context.lexiconType = lexiconType;
+		context.numWordsHeard = wordFlow;
+		context.threshold = wordThreshold;
+		context.randomWordFlow = randomWordFlow;
+		context.adultProbL1 = adultProbL1;
+		context.adultProbL2 = adultProbL2;
+		context.adultProbGA = adultProbGA;
+		
+		// make the shared copy of every item, see the intern method in the SimulationContext class for details
+		context.internItems();
+		// start a new table of shared lexicons, see the SharedLexicon class for details
+		context.sharedTable.clearTable();
 	}
 	
 	/**
 	 * createPeople()
 	 * 
-	 * Initializes some static variables to various Person sub/classes, creates agents with specified attributes
+	 * Fills in the parameters of the run, creates agents with specified attributes
 	 * also creates teachers and babysitters
 	 */
 	public void createPeople() {
 		
 		// see method above for details
-		setStaticParameters();
+		setContextParameters();
+		
+		// start a new frequency index, it must be built after the run knows the size of items
+		itemIndex = new ItemFrequencyIndex( context );
+		// and a new population store
+		population = new PopulationStore();
+		// and a new status queue
+		statusQueue = new StatusQueue();
+		// and a new calendar of birthdays
+		lifecycle = new LifecycleCalendar( stepsPerYear );
 		
 		// initialize a person
 		Person p;
@@ -320,19 +396,19 @@ public class Model extends ModelParameters{
 			// with probability initialPercentLatino
 			if ( tempRand < initialPercentLatino) {
 				// create a new Latino person
-				p = new Person( LATINO );
+				p = new Person( context, LATINO );
 				// add them to the latinoList
 				latinoList.add( p );
 			}
 			// with probability initialPercentBlack
 			else if ( tempRand < initialPercentLatino + initialPercentBlack ) {
 				// create a new black person
-				p = new Person( BLACK );
+				p = new Person( context, BLACK );
 			}
 			// with probability ( 1 - initialPercentLatino - initialPercentBlack )
 			else {
 				// create a new white person
-				p = new Person ( WHITE );
+				p = new Person( context, WHITE );
 			}
 			
 			// move the new person to their proper region
@@ -341,27 +417,39 @@ public class Model extends ModelParameters{
 			// add the new person to their proper lists
 			personList.add( p );
 			visibleList.add( p );
+			statusQueue.add( p );
+			lifecycle.add( p, tickCount() );
+			itemIndex.addPerson( p );
+			population.add( p );
 		}
 		
 		// create numTeachers teachers and only add them to visibleList
 		for ( int i = 0 ; i < numTeachers ; ++i ) {
-			p = new Teacher();
+			p = new Teacher( context );
 			world.movePersonToRegion( p );
 			visibleList.add( p );
+			statusQueue.add( p );
+			lifecycle.add( p, tickCount() );
 		}
 		
 		// create numBabySitters BabySitters and only add them to visibleList
 		for ( int i = 0 ; i < numBabySitters ; ++i ) {
-			p = new BabySitter();
+			p = new BabySitter( context );
 			world.movePersonToRegion( p );
 			visibleList.add( p );
+			statusQueue.add( p );
+			lifecycle.add( p, tickCount() );
 		}
 		
 		for ( int i = 0 ; i < numAttractors ; ++i ) {
-			p = new Attractor( Model.BLACK );
+			p = new Attractor( context, Model.BLACK );
 			world.movePersonToRegion( p );
 			visibleList.add( p );
+			statusQueue.add( p );
+			lifecycle.add( p, tickCount() );
 			personList.add( p );
+			itemIndex.addPerson( p );
+			population.add( p );
 		}
 	}
 	
@@ -377,11 +465,8 @@ public class Model extends ModelParameters{
 	
 	public void step() {
 		
-		if ( tickCount() == 40000 && tickCount() > 5 ) {
-			for ( int i = 0 ; i < testMeans.size() ; ++i ) {
-				System.out.print( "Tick Number "+Integer.toString(i*10)+": "+testMeans.get( i ).toString() +"\n" );
-			}
-		}
+		// every stream of random numbers starts over for the tick, see the RandomStream class for details
+		context.setTick( tickCount() );
 		
 		// does the physical moving and listening of agents, depends on activationOrder
 		// see activatePeopleToTakeSteps method below for details
@@ -408,10 +493,15 @@ public class Model extends ModelParameters{
 			whiteFlight();
 		}
 		
+		// a sparse world lets go of its empty chunks once a year
+		// see the releaseEmptyCells method of the SparseTorusWorld class
+		if ( tickCount() % stepsPerYear == 0 )
+			world.releaseEmptyCells();
+		
 		/*
 		if ( tickCount() % 998 == 0 ) {
 			calcCommonLex();
-			Lexicon tempPrint = new Lexicon( commonLex );
+			Lexicon tempPrint = new Lexicon( context, commonLex );
 			tempPrint.print();
 			for ( int i = 0 ; i < maxItems ; ++i ) {
 				System.out.print( Double.toString( indexFreqOfUSAS[i]) + "\n" );
@@ -438,6 +528,11 @@ public class Model extends ModelParameters{
 			System.out.printf( "Tick %d\n\n", tickCount() );
 		}
 		
+		// when debugging, makes sure the population store has every change made this step, before the
+		// statistics are calculated from it. see the checkPopulationStore method below for details
+		if ( checkPopulation == 1 )
+			checkPopulationStore();
+		
 		// calculates all of the statistics at the end of each model step
 		// see calcStats method below for details
 		calcStats();
@@ -447,36 +542,30 @@ public class Model extends ModelParameters{
 //		}
 		
 		
-		if ( tickCount() % 10 == 0 ) {
-			int countUSAS = 0;
-			for ( Person p : latinoList ) {
-				if ( p.getFirstLang() != null ) {
-					countUSAS += p.getFirstLang().freqOfUSAS();
-				}
-			}
-			double aveUSAS = countUSAS / (double)latinoList.size();
-			if ( runNumber == 0 ) {
-				testMeans.add( aveUSAS );
-			}
-			else {
-				double newMean = ( aveUSAS + testMeans.get( ( tickCount() % 4000 ) / 10 ) ) / 2;
-				testMeans.set(( tickCount() % 4000 ) / 10 , newMean );
-			}
-		}
-		
 		if ( tickCount() % 500 == 0 ) {
 			System.out.print("\n\nTick Count:"+Integer.toString(tickCount())+"\n\n");
 		}
-		
-		if ( tickCount() > 5 && tickCount() % 4000 == 0 ) {
-			userSetup();
-			userBuildModel();
-			runNumber += 1;
-		}
+
 
 	}
 	
 	
+	/**
+	 * checkPopulationStore
+	 * 
+	 * throws an exception if a slot of the population store does not have the current traits of its person,
+	 * which means some change to that person was not written through to the store
+	 */
+	public void checkPopulationStore() {
+		int s = population.findStaleSlot();
+		if ( s >= 0 ) {
+			Person p = population.personAt( s );
+			throw new IllegalStateException( "population store slot " + s + " of person " + p.getId()
+					+ " is out of date at tick " + tickCount() );
+		}
+	}
+	
+	
 	/**
 	 * activatePeopleToTakeSteps
 	 * 
@@ -485,6 +574,12 @@ public class Model extends ModelParameters{
 	 */
 	public void activatePeopleToTakeSteps() {
 		
+		// everyone listens at once and then moves, see activatePeopleInTwoPhases below for details
+		if ( twoPhaseListen == 1 ) {
+			activatePeopleInTwoPhases();
+			return;
+		}
+		
 		// people are moved in order they appear in visibleList, quasi-random
 		if ( activationOrder == fixedActivationOrder ) {
 			
@@ -505,7 +600,7 @@ public class Model extends ModelParameters{
 			// for as many times are there are people in visibleList
 			for ( int i = 0; i < visibleList.size(); i++ ) {
 				// choose a random integer between zero and visibleList.size()
-				int r = getUniformIntFromTo( 0, visibleList.size()-1 );
+				int r = rng.nextInt( visibleList.size() );
 				// choose and move the chosen person
 				Person p = visibleList.get( r );
 				p.move();
@@ -516,8 +611,9 @@ public class Model extends ModelParameters{
 		// Note: every person moves exactly once
 		else if (  activationOrder == rworActivationOrder ) {
 			
-			// shuffle visibleList
-			SimUtilities.shuffle( visibleList, uchicago.src.sim.util.Random.uniform );
+			// shuffle visibleList, and start the status queue over from it
+			Collections.shuffle( visibleList, rng );
+			statusQueue.rebuild( visibleList );
 			// initialize an iterator to avoid concurrentModification exception
 			Iterator<Person> visibleIter = visibleList.iterator();
 			// for every person in visibleList
@@ -532,9 +628,8 @@ public class Model extends ModelParameters{
 		// the ratio of their status to the maximum status. they will also move in order of status
 		else if ( activationOrder == statusActivationOrder ) {
 			
-			// sort visibleList in terms of status
-			Collections.sort( visibleList, 
-					  (java.util.Comparator<? super Person>) new PersonStatusComparator() );
+			// put visibleList in order of status, see the StatusQueue class for details
+			statusQueue.order( visibleList );
 			// initialize an iterator to avoid concurrentModification exception
 			Iterator<Person> visibleIter = visibleList.iterator();
 			// for every person in the list
@@ -542,8 +637,8 @@ public class Model extends ModelParameters{
 				// call the person's step function
 				Person p = visibleIter.next();
 				p.step();
-				// initialize a uniform random double
-				double r = rng.nextDouble();
+				// initialize a uniform random double from the person's random numbers
+				double r = p.getRng().nextDouble();
 				// with probability of the ratio of the person's status with the maximum status
 				if ( r < ( p.getStatus() / maxStatus ) ) {
 					// the person physically moves
@@ -551,6 +646,72 @@ public class Model extends ModelParameters{
 				}
 			}
 		}
+		// the same as statusActivationOrder, but the world is split into tiles that are stepped on several
+		// threads at once. see the TiledStepper class for details
+		else if ( activationOrder == tiledActivationOrder ) {
+			
+			// put visibleList in order of status, see the StatusQueue class for details
+			statusQueue.order( visibleList );
+			// start the threads the first time
+			if ( stepper == null )
+				stepper = new TiledStepper( this, getWorkers() );
+			stepper.step( visibleList );
+		}
+	}
+	
+	/**
+	 * activatePeopleInTwoPhases
+	 * 
+	 * used instead of the above when twoPhaseListen is 1. first everyone in visibleList listens once, on
+	 * several threads at once and against the lexicons as they were at the start of the tick, see the
+	 * TwoPhaseListener class for details. then people move one by one the way the activation order has them
+	 * move. Note: everyone listens exactly once, also with rwrActivationOrder, where only the moves are
+	 * chosen at random with replacement
+	 */
+	public void activatePeopleInTwoPhases() {
+		
+		// everyone listens, starting the threads the first time
+		if ( listener == null )
+			listener = new TwoPhaseListener( this, getWorkers() );
+		listener.listen( visibleList );
+		
+		// everyone moves in the order they appear in visibleList
+		if ( activationOrder == fixedActivationOrder ) {
+			for ( Person p : visibleList )
+				p.move();
+		}
+		// a random person moves, as many times as there are people
+		else if ( activationOrder == rwrActivationOrder ) {
+			for ( int i = 0 ; i < visibleList.size() ; ++i )
+				visibleList.get( rng.nextInt( visibleList.size() ) ).move();
+		}
+		// everyone moves in random order
+		else if ( activationOrder == rworActivationOrder ) {
+			Collections.shuffle( visibleList, rng );
+			statusQueue.rebuild( visibleList );
+			for ( Person p : visibleList )
+				p.move();
+		}
+		// in order of status, everyone moves with probability of the ratio of their status with the
+		// maximum status
+		else if ( activationOrder == statusActivationOrder || activationOrder == tiledActivationOrder ) {
+			statusQueue.order( visibleList );
+			for ( Person p : visibleList ) {
+				if ( p.getRng().nextDouble() < ( p.getStatus() / maxStatus ) )
+					p.move();
+			}
+		}
+	}
+	
+	/**
+	 * getWorkers
+	 * 
+	 * returns the threads people are stepped on, starting numThreads of them the first time
+	 */
+	public WorkerPool getWorkers() {
+		if ( workers == null )
+			workers = new WorkerPool( numThreads );
+		return workers;
 	}
 	
 	
@@ -563,11 +724,15 @@ public class Model extends ModelParameters{
 	public void immigrate() {
 		
 		// create a new Latino person, add them to all three lists and move them to their proper region
-		Person p = new Person( LATINO );
+		Person p = new Person( context, LATINO );
 		latinoList.add( p );
 		personList.add( p );
 		visibleList.add( p );
+		statusQueue.add( p );
+		lifecycle.add( p, tickCount() );
+		itemIndex.addPerson( p );
 		world.movePersonToRegion( p );
+		population.add( p );
 	}
 	
 	
@@ -582,11 +747,11 @@ public class Model extends ModelParameters{
 		// initialize and ArrayList of people
 		ArrayList<Person> whitePeople = new ArrayList<Person>();
 		
-		// for every people in personList
-		for ( Person p : personList ) {
+		// for every slot in the population store, which is every person in personList
+		for ( int i = 0 ; i < population.size ; ++i ) {
 			// add them to the new ArrayList if they are white and under 25
-			if ( p.getRace() == WHITE && p.getAge() < 25 )
-				whitePeople.add( p );
+			if ( population.race[i] == WHITE && population.age[i] < 25 )
+				whitePeople.add( population.personAt( i ) );
 		}
 		
 		// return if there are no white people currently in the model
@@ -596,7 +761,11 @@ public class Model extends ModelParameters{
 		// otherwise, pick a random white person and remove them from all relevant lists
 		Person whitePerson = getRandomPersonFromArray( whitePeople );
 		visibleList.remove( whitePerson );
+		statusQueue.remove( whitePerson );
+		lifecycle.remove( whitePerson );
 		personList.remove( whitePerson );
+		itemIndex.removePerson( whitePerson );
+		population.remove( whitePerson );
 	}
 	
 	
@@ -608,9 +777,9 @@ public class Model extends ModelParameters{
 	/**
 	 * ageAndReproduce
 	 * 
-	 * updates the number of steps each agent has been alive for and increments the age when
-	 * necessary. also creates children with the birth rates specified in the field. adds
-	 * all new people to personList
+	 * updates everyone whose birthday it is, who is a year older now and may die or retire. only the people
+	 * whose birthday it is are looked at, see the LifecycleCalendar class for details. also creates
+	 * children with the birth rates specified in the field. adds all new people to personList
 	 */
 	public void ageAndReproduce() {
 		
@@ -618,15 +787,9 @@ public class Model extends ModelParameters{
 		int countNewTeachers = 0;
 		int countNewBabySitters = 0;
 		
-		// initialize a new ArrayList of new babies
-		ArrayList<Person> babies = new ArrayList<Person>();
-		// initialize an iterator to avoid concurrentModification exception
-		Iterator<Person> visibleIter = visibleList.iterator();
-		
-		// for every person in visibleList
-		while ( visibleIter.hasNext() ) {
-			Person p = visibleIter.next();
-			// update the number of ticks they've been alive, and subsequently their age
+		// for every person whose birthday it is
+		for ( Person p : lifecycle.due( tickCount() ) ) {
+			// they are a year older, see the updateAge method of the Person class
 			p.updateAge();
 			
 			// if the person is scheduled to die or retire at this step
@@ -637,9 +800,14 @@ public class Model extends ModelParameters{
 					p.getSpouse().setSpouse( null );
 				}
 				
-				// remove them from the visibleIter/visibleList, and the other two lists if relevant
-				visibleIter.remove();
-				personList.remove( p );
+				// remove them from visibleList, and the other two lists if relevant
+				// Teachers and BabySitters were never in personList, so they were never in the frequency index
+				visibleList.remove( p );
+				statusQueue.remove( p );
+				if ( personList.remove( p ) ) {
+					itemIndex.removePerson( p );
+					population.remove( p );
+				}
 				latinoList.remove( p );
 				
 				// must create a new Teacher if they are a retired Teacher
@@ -649,6 +817,16 @@ public class Model extends ModelParameters{
 				else if ( p instanceof BabySitter )
 					++countNewBabySitters;
 			}
+			// otherwise their next birthday is a year from now
+			else
+				lifecycle.add( p, tickCount() );
+		}
+		
+		// initialize a new ArrayList of new babies
+		ArrayList<Person> babies = new ArrayList<Person>();
+		
+		// for every person in visibleList
+		for ( Person p : visibleList ) {
 			
 			// initialize a potential mate
 			Person mate;
@@ -661,8 +839,8 @@ public class Model extends ModelParameters{
 				// find a mate
 				// see findMate function below for details
 				mate = findMate( p );
-				// make a baby is the home space isn't full and a suitable mate was found
-				if ( mate != null && !home.isFull() ) {
+				// make a baby is the home space of their District isn't full and a suitable mate was found
+				if ( mate != null && !p.getDistrict().home.isFull() ) {
 					// see createPerson method below for details
 					babies.add( createPerson( p, mate ) );
 				}
@@ -672,8 +850,8 @@ public class Model extends ModelParameters{
 				// find a mate
 				// see findMate function below for details
 				mate = findMate( p );
-				// make a baby is the home space isn't full and a suitable mate was found
-				if ( mate != null && !home.isFull() ) {
+				// make a baby is the home space of their District isn't full and a suitable mate was found
+				if ( mate != null && !p.getDistrict().home.isFull() ) {
 					// see createPerson method below for details
 					babies.add( createPerson( p, mate ) );
 				}
@@ -683,8 +861,8 @@ public class Model extends ModelParameters{
 				// find a mate
 				// see findMate function below for details
 				mate = findMate( p );
-				// make a baby is the home space isn't full and a suitable mate was found
-				if ( mate != null && !home.isFull() ) {
+				// make a baby is the home space of their District isn't full and a suitable mate was found
+				if ( mate != null && !p.getDistrict().home.isFull() ) {
 					// see createPerson method below for details
 					Person babyLatino = createPerson( p, mate );
 					babies.add( babyLatino );
@@ -697,6 +875,12 @@ public class Model extends ModelParameters{
 		// add all of the new babies to both visibleList and personList
 		visibleList.addAll( babies );
 		personList.addAll( babies );
+		for ( Person baby : babies ) {
+			statusQueue.add( baby );
+			lifecycle.add( baby, tickCount() );
+			itemIndex.addPerson( baby );
+			population.add( baby );
+		}
 		
 		// create as many Teachers as retired this past time step
 		// see createTeacher method below for details
@@ -725,24 +909,24 @@ public class Model extends ModelParameters{
 		if ( p.getSpouse() != null )
 			return p.getSpouse();
 		
-		// for every person in personList
+		// for every slot in the population store, which is every person in personList
 		// Note: Teachers and BabySitters are not included
-		for ( Person oneOfMates : personList ) {
+		for ( int i = 0 ; i < population.size ; ++i ) {
 			
 			// if the person is fertile and of the opposite sex
-			if ( oneOfMates.isFertile() && p.getGender() != oneOfMates.getGender() )
+			if ( population.fertile[i] && p.getGender() != population.gender[i] )
 				// if the person is not themselves
-				if ( p != oneOfMates ) {
+				if ( p != population.personAt( i ) ) {
 					// get the ratio of the difference between the two people's matingID over the maximum matingID
 					// Note: Generation matters most, then race and then social class
-					double testStat = ( 999 - Math.abs( p.getMatingID() - oneOfMates.getMatingID() ) ) / 999.0;
+					double testStat = ( 999 - Math.abs( p.getMatingID() - population.matingID[i] ) ) / 999.0;
 					// set the probability to testStat to the 20th power
 					double mateProb = Math.pow(testStat, 20.0 );
 				
 					// with mateProb probability and if the other person is single
-					if ( rng.nextDouble() < mateProb && oneOfMates.getSpouse() == null ) {
+					if ( rng.nextDouble() < mateProb && !population.married[i] ) {
 						// add this person to the list of potential mates
-						mateArray.add( oneOfMates );
+						mateArray.add( population.personAt( i ) );
 					}
 			 	}
 		}
@@ -771,12 +955,12 @@ public class Model extends ModelParameters{
 	 * createPerson
 	 * 
 	 * Takes two people, makes a baby and adds it to the world. returns the baby
-	 * no birth takes place if the home space is full
+	 * no birth takes place if the home space of the first parent's District is full
 	 */
 	public Person createPerson( Person p1, Person p2 ) {
 		
-		// make sure the home space isn't full before creating a person
-		if ( home.isFull() )
+		// make sure the home space the baby is born into isn't full before creating a person
+		if ( p1.getDistrict().home.isFull() )
 			return null;
 		
 		// creates a person and moves them to the proper region
@@ -824,6 +1008,8 @@ public class Model extends ModelParameters{
 		// clone a teacher from the chosen person and add them to visibleList
 		Teacher teacher = new Teacher( p );
 		visibleList.add( teacher );
+		statusQueue.add( teacher );
+		lifecycle.add( teacher, tickCount() );
 	}
 	
 	/**
@@ -841,6 +1027,8 @@ public class Model extends ModelParameters{
 		// clone a BabySitter from the chosen person and add them to visibleList
 		BabySitter sitter = new BabySitter( p );
 		visibleList.add( sitter );
+		statusQueue.add( sitter );
+		lifecycle.add( sitter, tickCount() );
 	}
 	
 	////////////////////////////////////////////////////////////////////////////////////////
@@ -852,24 +1040,10 @@ public class Model extends ModelParameters{
 	 * calcFreqOfItem
 	 * 
 	 * returns the percentage of people that have the input item in their first language
+	 * looked up in itemIndex instead of scanning personList, see the ItemFrequencyIndex class for details
 	 */
 	public double calcFreqOfItem( int[] item ) {
-		
-		// initialize the total number of people and items found to zero
-		int personCount = 0;
-		int itemCount = 0;
-		
-		// for every person in personList
-		for ( Person p : personList ) {
-			// increment the total number of people
-			++personCount;
-			// increment the number of item instances found it is in their first language
-			if( p.inFirstLang( item ) )
-				++itemCount;
-		}
-		
-		// return the percentage of people with item in their first language
-		return ( (double)itemCount ) / personCount;
+		return itemIndex.freqOfItem( item );
 	}
 	
 	/**
@@ -899,29 +1073,13 @@ public class Model extends ModelParameters{
 	}
 	
 	/**
-	 * calcFreqOfItem
+	 * calcFreqOfItemInRace
 	 * 
-	 * returns the percentage of people in a given age group with a given item in their first language
+	 * returns the percentage of people of a given race with a given item in their first language
+	 * looked up in itemIndex instead of scanning personList, see the ItemFrequencyIndex class for details
 	 */
 	public double calcFreqOfItemInRace( int[] item, int race ) {
-		
-		// initialize the total number of people in the input age and items found to zero
-		int itemCount = 0;
-		int personCount = 0;
-		
-		// for every person in personList
-		for ( Person p : personList ) {
-			// increment the number of people if they are of the proper age group
-			if( p.getRace() == race ) {
-				++personCount;
-				// increment the number of item instances found if it is in their first language
-				if ( p.inFirstLang( item ))
-					++itemCount;
-			}
-		}
-		
-		// return the percentage of people in the specified age group with item in their first language
-		return ( (double)itemCount ) / personCount;
+		return itemIndex.freqOfItemInRace( item, race );
 	}
 	
 	/**
@@ -938,22 +1096,24 @@ public class Model extends ModelParameters{
 		int countTotal, countChildren, countStudents, countAdults;
 		countTotal = countChildren = countStudents = countAdults = 0;
 		
-		// for every person in personList
-		for ( Person p : personList ) {
+		// for every slot in the population store, which is every person in personList
+		for ( int i = 0 ; i < population.size ; ++i ) {
 			// if they are Latino
-			if ( p.getRace() == LATINO ) {
-				// increment the total number of USAS instances by the number of USAS items in their first language
+			if ( population.race[i] == LATINO ) {
+				// the number of USAS items in their first language
 				// see the freqOfUSAS method in Lexicon class for details
-				countTotal += p.getFirstLang().freqOfUSAS();
+				int numUSAS = population.numUSAS[i];
+				// increment the total number of USAS instances
+				countTotal += numUSAS;
 				// increment the child count if the person is a child
-				if ( p.getAgeClass() == CHILD )
-					countChildren += p.getFirstLang().freqOfUSAS();
+				if ( population.ageClass[i] == CHILD )
+					countChildren += numUSAS;
 				// increment the student count if the person is a student
-				else if ( p.getAgeClass() == STUDENT )
-					countStudents += p.getFirstLang().freqOfUSAS();
+				else if ( population.ageClass[i] == STUDENT )
+					countStudents += numUSAS;
 				// increment the adult count if the person is adult
-				else if ( p.getAgeClass() == ADULT )
-					countAdults += p.getFirstLang().freqOfUSAS();
+				else if ( population.ageClass[i] == ADULT )
+					countAdults += numUSAS;
 			}
 		}
 		
@@ -964,6 +1124,23 @@ public class Model extends ModelParameters{
 		adultUSASFreq = (double)countAdults / numLatinoAdults;
 	}
 	
+	/**
+	 * meanUSASOfLatinos
+	 * 
+	 * returns the average number of USAS items in the first lexicons of everyone in latinoList
+	 * this is the series the ReplicateRunner samples, see that class for details
+	 */
+	public double meanUSASOfLatinos() {
+		
+		int countUSAS = 0;
+		for ( Person p : latinoList ) {
+			if ( p.getFirstLang() != null ) {
+				countUSAS += p.getFirstLang().freqOfUSAS();
+			}
+		}
+		return countUSAS / (double)latinoList.size();
+	}
+	
 	
 	/**
 	 * calcFreqOfEnglish
@@ -979,14 +1156,14 @@ public class Model extends ModelParameters{
 		int standardTotal = 0;
 		int AAETotal = 0;
 		
-		// for every person in personList
-		for ( Person p : personList ) {
+		// for every slot in the population store, which is every person in personList
+		for ( int i = 0 ; i < population.size ; ++i ) {
 			// if the person is not Latino
-			if ( p.getRace() != LATINO ) {
+			if ( population.race[i] != LATINO ) {
 				// increment the variables by the number of English stype instances in their first language
 				// see freqOfStandardEnglish and freqOfAAE methods in Lexicon class for details
-				standardTotal += p.getFirstLang().freqOfStandardEnglish();
-				AAETotal += p.getFirstLang().freqOfAAE();
+				standardTotal += population.numStandardEnglish[i];
+				AAETotal += population.numAAE[i];
 			}
 		}
 		
@@ -1045,10 +1222,10 @@ public class Model extends ModelParameters{
 		
 		// initialize two TempLexicons that we will use to calculate the most common occurences
 		// of each word type
-		TempLexicon tempCommonLex = new TempLexicon();
-		TempLexicon tempCommonLexTotal = new TempLexicon();
-		TempLexicon tempCommonSecondLex = new TempLexicon();
-		TempLexicon tempCommonSecondLexTotal = new TempLexicon();
+		TempLexicon tempCommonLex = new TempLexicon( context );
+		TempLexicon tempCommonLexTotal = new TempLexicon( context );
+		TempLexicon tempCommonSecondLex = new TempLexicon( context );
+		TempLexicon tempCommonSecondLexTotal = new TempLexicon( context );
 		
 		// re-initialize both ArrayLists
 		commonLex = new ArrayList<int[]>();
@@ -1159,37 +1336,37 @@ public class Model extends ModelParameters{
 		numLatinoStudents = numBlackStudents = numLatinoAdults = numBlackAdults = 0;
 		numChildren = numStudents = numAdults = 0;
 		
-		// for every person in personList
-		for ( Person p : personList ) {
+		// for every slot in the population store, which is every person in personList
+		for ( int i = 0 ; i < population.size ; ++i ) {
 			
 			// add one white person if they're white
-			if ( p.getRace() == WHITE )
+			if ( population.race[i] == WHITE )
 				++numWhite;
 			// add one black person if they're black
-			else if ( p.getRace() == BLACK )
+			else if ( population.race[i] == BLACK )
 				++numBlack;
 			// add one Latino if they're Latino
-			else if ( p.getRace() == LATINO )
+			else if ( population.race[i] == LATINO )
 				++numLatino;
 			
 			// if the person is an adult, increment the proper statistics
-			if ( p.getAgeClass() == ADULT ) {
+			if ( population.ageClass[i] == ADULT ) {
 				++numAdults;
-				if ( p.getRace() == BLACK )
+				if ( population.race[i] == BLACK )
 					++numBlackAdults;
-				else if ( p.getRace() == LATINO )
+				else if ( population.race[i] == LATINO )
 					++numLatinoAdults;
 			}
 			// if the person is a student, increment the proper statistics
-			else if ( p.getAgeClass() == STUDENT ) {
+			else if ( population.ageClass[i] == STUDENT ) {
 				++numStudents;
-				if ( p.getRace() == BLACK )
+				if ( population.race[i] == BLACK )
 					++numBlackStudents;
-				else if ( p.getRace() == LATINO )
+				else if ( population.race[i] == LATINO )
 					++numLatinoStudents;
 			}
 			// if the person is a child, increment the proper statistics
-			else if ( p.getAgeClass() == CHILD ) {
+			else if ( population.ageClass[i] == CHILD ) {
 				++numChildren;
 			}
 		}
@@ -1344,9 +1521,9 @@ public class Model extends ModelParameters{
 	
 	public void haltIfOverPopulated() {
 		
-		// if both the school and work place are full, then halt the model
-		// the home space will not fill up because the birth method includes a catch
-		if ( school.isFull() || work.isFull() ) {
+		// if the school or work place of any District is full, then halt the model
+		// the home spaces will not fill up because the birth method includes a catch
+		if ( layout.isOverPopulated() ) {
 			this.stop();
 			System.out.print("\n\nOVERPOPULATED\n\n");
 		}
@@ -1404,23 +1581,10 @@ public class Model extends ModelParameters{
 	}
 	*/
 	
-	// sorts people in order of status
-	private class PersonStatusComparator implements Comparator<Person> {
-		
-		@Override
-		public int compare ( Person p1, Person p2 ) {
-			double status1 = p1.getStatus();
-			double status2 = p2.getStatus();
-			if ( status1 > status2 )    // d2 smaller, so should be before d1 (ascending order)
-				return 1;
-			else if ( status1 < status2 )
-				return -1;
-			return 0;
-		}
-	}
-	
-	// returns tick count as an integer from a double
+	// returns tick count as an integer from a double, or the tick of a replicate of the ReplicateRunner
 	public int tickCount() {
+		if ( runnerTick >= 0 )
+			return runnerTick;
 		return (int)getTickCount();
 	}
 	
@@ -1482,6 +1646,72 @@ public class Model extends ModelParameters{
 	public void setSizeY(int sizeY) {
 		this.sizeY = sizeY;
 	}
+	public int getDistrictsX() {
+		return districtsX;
+	}
+	public void setDistrictsX(int districtsX) {
+		this.districtsX = districtsX;
+	}
+	public int getDistrictsY() {
+		return districtsY;
+	}
+	public void setDistrictsY(int districtsY) {
+		this.districtsY = districtsY;
+	}
+	public int getActivationOrder() {
+		return activationOrder;
+	}
+	public void setActivationOrder(int activationOrder) {
+		this.activationOrder = activationOrder;
+	}
+	public int getNumThreads() {
+		return numThreads;
+	}
+	public void setNumThreads(int numThreads) {
+		this.numThreads = numThreads;
+	}
+	public int getNumReplicates() {
+		return numReplicates;
+	}
+	public void setNumReplicates(int numReplicates) {
+		this.numReplicates = numReplicates;
+	}
+	public int getReplicateLength() {
+		return replicateLength;
+	}
+	public void setReplicateLength(int replicateLength) {
+		this.replicateLength = replicateLength;
+	}
+	public int getSampleInterval() {
+		return sampleInterval;
+	}
+	public void setSampleInterval(int sampleInterval) {
+		this.sampleInterval = sampleInterval;
+	}
+	public int getReplicateThreads() {
+		return replicateThreads;
+	}
+	public void setReplicateThreads(int replicateThreads) {
+		this.replicateThreads = replicateThreads;
+	}
+	public int getCheckPopulation() {
+		return checkPopulation;
+	}
+	public void setCheckPopulation(int checkPopulation) {
+		this.checkPopulation = checkPopulation;
+	}
+	public int getTwoPhaseListen() {
+		return twoPhaseListen;
+	}
+	public void setTwoPhaseListen(int twoPhaseListen) {
+		this.twoPhaseListen = twoPhaseListen;
+	}
+	public int getSparseWorld() {
+		return sparseWorld;
+	}
+	public void setSparseWorld(int sparseWorld) {
+		this.sparseWorld = sparseWorld;
+	}
 	public int getNumElements() { 
 		return numElements;
 	}
@@ -1569,6 +1799,12 @@ public class Model extends ModelParameters{
 	public void setRandomWordFlow(int randomWordFlow) {
 		this.randomWordFlow = randomWordFlow;
 	}
+	public int getLexiconType() {
+		return lexiconType;
+	}
+	public void setLexiconType(int lexiconType) {
+		this.lexiconType = lexiconType;
+	}
 	public void setStudentUSASFreq(double studentUSASFreq) {
 		this.studentUSASFreq = studentUSASFreq;
 	}
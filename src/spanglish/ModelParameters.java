@@ -1,10 +1,6 @@
 package spanglish;
 
 import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.io.PrintWriter;
 import java.lang.reflect.Method;
 import java.net.UnknownHostException;
@@ -99,6 +95,8 @@ public class ModelParameters extends SimModelImpl {
 	protected int			rDebug = 0;
 	protected int			saveRunEndState = 0;
 	protected long    		seed = 1234567;
+	// everything that belongs to this run of the model, see the SimulationContext class
+	public SimulationContext	context = new SimulationContext();
 	protected PrintWriter		reportFile, plaintextReportFile;
 	protected PrintWriter		changesFile;
 
@@ -330,67 +328,8 @@ public class ModelParameters extends SimModelImpl {
 		if ( rDebug > 0 )
 			System.out.printf( "\nresetRNGenerators with %d\n", getSeed() );
 
-		// this is required because once you change the seed you invalidate
-		// any previously created distributions
-		uchicago.src.sim.util.Random.setSeed( seed );
-		uchicago.src.sim.util.Random.createUniform();
-		uchicago.src.sim.util.Random.createNormal( 0.0, 1.0 );
-	}
-
-	// NOTE: these are class methods!
-	
-	/**
-	 * @param low
-	 * @param high
-	 * @return int drawn from uniform random [low,high]
-	 */
-	static public int getUniformIntFromTo ( int low, int high ) {
-		int randNum = uchicago.src.sim.util.Random.uniform.nextIntFromTo( low, high );
-		// System.out.println( "getUniformIntFromTo:  " + randNum );
-		return randNum;
-	}
-
-	/**
-	 * @param mean
-	 * @param sd
-	 * @return double drawn from normal (mean, sd)
-	 * cf http://acs.lbl.gov/~hoschek/colt/api/cern/jet/random/Normal.html
-	 */
-	static public double getNormalDouble ( double mean, double sd ) {
-		double randNum =  uchicago.src.sim.util.Random.normal.nextDouble ( mean, sd );
-		// System.out.println( "getNormalDouble:  " + randNum );
-		return randNum;
-	}
-	/**
-	 * @param low
-	 * @param high
-	 * @return double drawn from uniform random [low,high)
-	 */
-	static public double getUniformDoubleFromTo( double low, double high ) {
-		double randNum = uchicago.src.sim.util.Random.uniform.nextDoubleFromTo( low, high );
-		// System.out.println( "getUniformDoubleFromTo:  " + randNum );
-		return randNum;
-	}
-
-	/**
-	 * @param mean
-	 * @param sd
-	 * @return double in [0,1] drawn from normal (mean, sd)
-	 * loop until a number between 0 and 1 is generated,
-	 * if mean and sd are set correctly the loop will rarely happen
-	 */
-	static public double getNormalDoubleProb ( double mean, double sd ) {
-		if ( mean < 0 || mean > 1 ) {
-			System.err.printf ( "\ngetNormalDoubleProb: Invalid value set for normal distribution mean\n\n" );
-			return -1;
-		}
-		double d = uchicago.src.sim.util.Random.normal.nextDouble ( mean, sd );
-		while ( d < 0 || d > 1 )
-			d = uchicago.src.sim.util.Random.normal.nextDouble ( mean, sd );
-
-		// System.out.println( "getNormalDoubleProb:  " + d );
-
-		return d;
+		// every stream of random numbers of the model, see the RandomStream class
+		context.setRunSeed( seed );
 	}
 
 	public void setRngSeed ( long i ) {
@@ -1326,94 +1265,3 @@ class ACChangeObj {
 	public String varname;
 	public String value;
 }
-
-////////////////////////////////////////////////////////////////////////////////////
-////////////////////////////////////////////////////////////////////////////////////
-// auxilliary class for file opening/closing
-// and string processing
-//
-
-class IOUtils {
-
-	public static String readBRLine ( BufferedReader file ) {
-		String s;
-		try {
-			s = file.readLine();
-		} catch  ( IOException e ) {
-			//System.out.println( "closeBRFile error!" );
-			s = null;
-		}
-		return s;
-	}
-
-	public  static BufferedReader openFileToRead ( String filename ) {
-		BufferedReader in;
-		try {
-			in = new BufferedReader( new FileReader(filename));
-		} catch ( IOException e ) {
-			// no file, etc
-			// System.out.println( "openFileToRead error on filename="+filename );
-			in = null;
-		}
-		//System.err.printf("openFileToRead: '%s'\n", filename );
-		return in;
-	}
-
-	public static PrintWriter openFileToWrite ( String dir, String filename, String how ) {
-		PrintWriter out;
-		try {
-			File f = new File( dir, filename );
-			out = new PrintWriter( new FileWriter(f) );
-		} catch ( IOException e ) {
-			// no file, etc
-			//System.out.println( "openFileToWrite error on dir/filename="
-			//					+ dir + "/" + filename );
-			out = null;
-		}
-		//System.err.printf("openFileToWrite: '%s'\n", filename );
-		return out;
-	}
-
-	public  static int closeBRFile (  BufferedReader file ) {
-		int r = 0;
-		try {
-			file.close();
-		} catch  ( IOException e ) {
-			//System.out.println( "closeBRFile error!" );
-			r = -1;
-		}
-		return r;
-	}
-
-	public static int closePWFile ( PrintWriter file ) {
-		int r = 0;
-   		file.close();
-		return r;
-	}
-
-	//////////////////////////////////////////////////////////////
-
-
-	public static int tokenToInt( String token ) {
-		int i;
-		token = token.trim();
-		try {
-			i = Integer.parseInt( token );
-		} catch (NumberFormatException ex) {
-			throw new IllegalArgumentException(" tokenToInt error, token="+token ); 
-		}
-		return i;
-	}
-
-	public static double tokenToDouble( String token ) {
-		double d;
-		token = token.trim();
-		try {
-			d = Double.parseDouble( token );
-		} catch (NumberFormatException ex) {
-			throw new IllegalArgumentException(" tokenToDouble error, token="+token ); 
-		}
-		return d;
-	}
-
-}
@@ -0,0 +1,601 @@
+package spanglish;
+
+/**
+ * PackedLexicon.java
+ *
+ * A subclass of Lexicon that stores every item as a single integer code (see SimulationContext.itemCode) in a primitive
+ * array instead of an ArrayList of integer arrays. A PackedLexicon can either act like a Lexicon, where there
+ * is one item per index, or like a BiLexicon, where there is one item per index and language. The codes are
+ * kept in the same order that the items of a Lexicon or BiLexicon are sorted in, so every method gives the
+ * same answers as the class it stands in for. Comparing items and checking what type of item something is
+ * are done on the codes with bit operations, and items are only turned back into integer arrays when they
+ * are handed out. Used when the lexiconType of the SimulationContext is set to packedLexicon
+ */
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class PackedLexicon extends Lexicon {
+
+	//////////////////////// CLASS VARIABLES
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the codes of the items in the lexicon, only the first numItems are in use
+	public int[]				codes;
+	// the number of items in the lexicon
+	public int					numItems;
+	// true if the lexicon holds the items of two languages like a BiLexicon, false if it is like a Lexicon
+	public boolean				bilingual;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * creates an empty lexicon of the input run with room for one language
+	 */
+	public PackedLexicon( SimulationContext aContext ) {
+
+		// the lexicon is not bilingual and has no items
+		super( aContext );
+		bilingual = false;
+		codes = new int[context.maxItems];
+		numItems = 0;
+	}
+
+	/**
+	 * creates a lexicon with a single item. Used when a child is accumulating their first language or
+	 * someone is building their second language
+	 */
+	public PackedLexicon( SimulationContext aContext, int[] newItem ) {
+
+		// start with an empty lexicon
+		this( aContext );
+
+		// add the input item
+		insertCode( context.itemCode( newItem ) );
+	}
+
+	/**
+	 * creates a lexicon with an ArrayList of items. Used when initializing a first language
+	 */
+	public PackedLexicon( SimulationContext aContext, ArrayList<int[]> newLang ) {
+
+		// start with an empty lexicon
+		this( aContext );
+
+		// add every item of the input
+		for ( int i = 0 ; i < newLang.size() ; ++i )
+			insertCode( context.itemCode( newLang.get( i ) ) );
+	}
+
+	/**
+	 * creates a bilingual lexicon from an already existing lexicon, takes the place of BiLexicon( Lexicon lex )
+	 */
+	public PackedLexicon( Lexicon lex, boolean isBilingual ) {
+
+		super( lex.context );
+
+		// make room for both languages if the new lexicon is bilingual
+		bilingual = isBilingual;
+		codes = new int[getMaxNumItems()];
+		numItems = 0;
+
+		// add every item of the input, the codes are re-sorted as they go in
+		for ( int i = 0 ; i < lex.getNumItems() ; ++i )
+			insertCode( context.itemCode( lex.getItem( i ) ) );
+
+		// the new lexicon takes the place of the input lexicon, so it also takes over its frequency index
+		// and its owner, see the ItemFrequencyIndex and PopulationStore classes for details
+		takeOver( lex );
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * addItem
+	 *
+	 * same as the addItem method of Lexicon, or of BiLexicon if the lexicon is bilingual. returns false if the
+	 * item is invalid, the lexicon is full, or there is already an item with the same index (and language if
+	 * bilingual). otherwise the code of the item is put in its sorted place
+	 */
+	@Override
+	public boolean addItem( int[] item ) {
+
+		// return false if the item is the wrong size
+		if ( item.length != context.numElements )
+			return false;
+
+		// return false if there is no space
+		if ( numItems >= getMaxNumItems() )
+			return false;
+
+		// return false if the item can not be packed, it has a bit that is not a zero or a one
+		int code = context.itemCode( item );
+		if ( code < 0 )
+			return false;
+
+		// return false if there is already an item with the same sorting key, which is the index for a
+		// one language lexicon and the index and language for a bilingual one
+		int key = sortKey( code );
+		for ( int i = 0 ; i < numItems ; ++i )
+			if ( sortKey( codes[i] ) == key )
+				return false;
+
+		// if everything checks out, add the code in its sorted place
+		insertCode( code );
+
+		return true;
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Retrieving Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * getItem()
+	 *
+	 * Given an index i, returns the shared copy of the i^th item, starting at i=0. see SimulationContext.intern for details
+	 * Returns null if index is out of bounds
+	 */
+	@Override
+	public int[] getItem( int i ) {
+
+		// return null if the index is out of bounds
+		if ( i < 0 || i >= numItems )
+			return null;
+
+		return context.itemOfCode( codes[i] );
+	}
+
+	/**
+	 * getBit
+	 *
+	 * gets the bit at the input item and element number straight from the code of the item
+	 * returns -1 if the inputs are invalid
+	 */
+	@Override
+	public int getBit( int item, int element ) {
+
+		// return -1 if the index is out of bounds
+		if ( item >= numItems || element >= context.numElements )
+			return -1;
+
+		return context.bitOfCode( codes[item], element );
+	}
+
+	/**
+	 * getRandomItemsFromLexicon
+	 *
+	 * given a positive integer numItems, returns numItems items chosen randomly from the lexicon by shuffling a copy
+	 * of the codes and picking the first numItems. the codes of the lexicon itself stay sorted
+	 * if numItems is larger than the size of the lexicon, then returns the entire lexicon
+	 * returns null if the input it non-positive. draws from the input random numbers
+	 */
+	@Override
+	public ArrayList<int[]> getRandomItemsFromLexicon( int numItems, Random random ) {
+
+		// return null if the number of items to be chosen is less than one
+		if ( numItems < 1 )
+			return null;
+
+		// return the whole lexicon if there are not enough items to choose from. like the BiLexicon, a bilingual
+		// lexicon still shuffles when numItems is equal to the number of items
+		if ( numItems > this.numItems || ( !bilingual && numItems == this.numItems ) )
+			return getLexicon();
+
+		// copy the codes and shuffle the copy
+		int[] shuffled = new int[this.numItems];
+		for ( int i = 0 ; i < this.numItems ; ++i )
+			shuffled[i] = codes[i];
+		for ( int i = this.numItems - 1 ; i > 0 ; --i ) {
+			int j = random.nextInt( i + 1 );
+			int temp = shuffled[i];
+			shuffled[i] = shuffled[j];
+			shuffled[j] = temp;
+		}
+
+		// turn the first numItems codes of the shuffled copy into items
+		ArrayList<int[]> tempArray = new ArrayList<int[]>();
+		for ( int i = 0 ; i < numItems ; ++i )
+			tempArray.add( context.itemOfCode( shuffled[i] ) );
+
+		return tempArray;
+	}
+
+	/**
+	 * copyItemsTo
+	 *
+	 * puts the shared item of every code into the buffer in order, see Lexicon.sampleItems and SimulationContext.intern
+	 * for details
+	 */
+	@Override
+	protected int copyItemsTo( int[][] buffer ) {
+
+		for ( int i = 0 ; i < numItems ; ++i )
+			buffer[i] = context.itemOfCode( codes[i] );
+
+		return numItems;
+	}
+
+	/**
+	 * getItemsFromLexiconWithIndex
+	 *
+	 * given a specific item, denoted by its first bit, finds all of the items in the lexicon
+	 * that share that same index and returns it as an ArrayList
+	 */
+	@Override
+	public ArrayList<int[]> getItemsFromLexiconWithIndex( int index ) {
+
+		// returns null if the input is invalid
+		if ( index < 0 || index >= context.maxItems )
+			return null;
+
+		// initialize an ArrayList of items
+		ArrayList<int[]> tempArray = new ArrayList<int[]>();
+
+		// add every item whose code starts with the input index
+		for ( int i = 0 ; i < numItems ; ++i )
+			if ( context.indexOfCode( codes[i] ) == index )
+				tempArray.add( context.itemOfCode( codes[i] ) );
+
+		return tempArray;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Replacing/Swapping Methods
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * replaceItem
+	 *
+	 * replaces the item at index existingItemIndex with newItem, then puts the new code in its sorted place
+	 * returns if the newItem is invalid or existingItemIndex is out of bounds
+	 */
+	@Override
+	public void replaceItem( int existingItemIndex, int[] newItem ) {
+
+		// returns if the inputs are invalid
+		if ( newItem == null || newItem.length != context.numElements || existingItemIndex < 0 || existingItemIndex >= numItems )
+			return;
+
+		// return if the new item can not be packed
+		int code = context.itemCode( newItem );
+		if ( code < 0 )
+			return;
+
+		// take out the old code and put the new one in, which keeps the codes sorted
+		removeCodeAt( existingItemIndex );
+		insertCode( code );
+	}
+
+	/**
+	 * replaceInflection
+	 *
+	 * replaces all bits of the item at existingItemIndex except the index and language. the index and language
+	 * decide the order of the codes, so nothing has to be re-sorted
+	 * returns if the newItem is invalid or existingItemIndex is out of bounds
+	 */
+	@Override
+	public void replaceInflection( int existingItemIndex, int[] newItem ) {
+
+		// returns if the inputs are invalid
+		if ( newItem == null || newItem.length != context.numElements || existingItemIndex < 0 || existingItemIndex >= numItems )
+			return;
+
+		// return if the new item can not be packed
+		int newCode = context.itemCode( newItem );
+		if ( newCode < 0 )
+			return;
+
+		// keep the index and language of the old code and take the inflection bits from the new one
+		int mask = context.inflectionMask();
+		setCode( existingItemIndex, ( codes[existingItemIndex] & ~mask ) | ( newCode & mask ) );
+	}
+
+	/**
+	 * swapBit
+	 *
+	 * takes in an item index and an element number and replaces the bit with newElement
+	 * returns if itemIndex or elementNum are out of bounds or newElement can not be packed
+	 */
+	@Override
+	public void swapBit( int itemIndex, int elementNum, int newElement ) {
+
+		// return if the inputs are invalid
+		if ( itemIndex >= numItems || elementNum >= context.numElements )
+			return;
+
+		// change the bit of a copy of the item and put the copy back in its sorted place, the index and
+		// language can change here. see the replaceItem method for details
+		int[] replacement = context.itemFromCode( codes[itemIndex] );
+		replacement[elementNum] = newElement;
+		replaceItem( itemIndex, replacement );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Checking Methods
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * inLexicon
+	 *
+	 * if the input is in the lexicon, it returns the index in which it was found. the input is packed once
+	 * and then compared to every code
+	 * returns -1 if the item is invalid or it is not in the lexicon
+	 */
+	@Override
+	public int inLexicon( int[] item ) {
+
+		// return -1 if the inputs are invalid, an item that can not be packed is never in the lexicon
+		int code = context.itemCode( item );
+		if ( code < 0 )
+			return -1;
+
+		return inLexicon( code );
+	}
+
+	/**
+	 * inLexicon
+	 *
+	 * returns the index of the input code in the lexicon, or -1 if it is not there
+	 */
+	public int inLexicon( int code ) {
+
+		// compare the code to the code of every item
+		for ( int i = 0 ; i < numItems ; ++i )
+			if ( codes[i] == code )
+				return i;
+
+		// if the code is not found, then return -1
+		return -1;
+	}
+
+	/**
+	 * isFull
+	 *
+	 * a one language lexicon is full when it has maxItems items, a bilingual one when it has twice that
+	 */
+	@Override
+	public boolean isFull() {
+		return numItems >= getMaxNumItems();
+	}
+
+	/**
+	 * isEqual
+	 *
+	 * takes in another lexicon and checks if the two have the same items in the same order
+	 */
+	@Override
+	public boolean isEqual( Lexicon l ) {
+
+		// return false if the number of items between the two lexicons are not equal
+		if ( numItems != l.getNumItems() )
+			return false;
+
+		// compare the codes of every item
+		for ( int i = 0 ; i < numItems ; ++i )
+			if ( codes[i] != context.itemCode( l.getItem( i ) ) )
+				return false;
+
+		// if nothing was different, then return true
+		return true;
+	}
+
+	/**
+	 * isBilingual
+	 *
+	 * returns true if the lexicon holds items of both languages like a BiLexicon
+	 */
+	@Override
+	public boolean isBilingual() {
+		return bilingual;
+	}
+
+	/**
+	 * toBiLexicon
+	 *
+	 * returns a bilingual packed lexicon that takes the place of this one
+	 */
+	@Override
+	public Lexicon toBiLexicon() {
+		return new PackedLexicon( this, true );
+	}
+
+	/**
+	 * copy
+	 *
+	 * returns a new packed lexicon with a copy of the codes, see the copy method of the Lexicon class
+	 */
+	@Override
+	public Lexicon copy() {
+
+		// start with an empty lexicon and give it a copy of the codes and the counts of this one
+		PackedLexicon copy = new PackedLexicon( context );
+		copy.bilingual = bilingual;
+		copy.codes = codes.clone();
+		copy.numItems = numItems;
+		copy.copyCountsFrom( this );
+
+		return copy;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Methods for Checking Item Qualities
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public boolean isUSAS( int itemIndex ) {
+		return context.categoryOfCode( codes[itemIndex] ) == USAS_BITS;
+	}
+
+	@Override
+	public boolean isStandardEnglish( int itemIndex ) {
+		return context.categoryOfCode( codes[itemIndex] ) == STANDARD_ENGLISH_BITS;
+	}
+
+	@Override
+	public boolean isAAE( int itemIndex ) {
+		return context.categoryOfCode( codes[itemIndex] ) == AAE_BITS;
+	}
+
+	@Override
+	public boolean isWhiteSpanish( int itemIndex ) {
+		return context.categoryOfCode( codes[itemIndex] ) == WHITE_SPANISH_BITS;
+	}
+
+	/**
+	 * getNumOfBitInColumn
+	 *
+	 * given a certain bit and column, calculates the number of items with that aspect
+	 * returns -1 if the element number is out of bounds
+	 */
+	@Override
+	public int getNumOfBitInColumn( int element, int bit ) {
+
+		// return -1 if the element input is invalid
+		if( element >= context.numElements )
+			return -1;
+
+		// initialize the count
+		int count = 0;
+
+		// increment the count for every code that has the input bit at the element
+		for ( int i = 0 ; i < numItems ; ++i )
+			if ( context.bitOfCode( codes[i], element ) == bit )
+				++count;
+
+		return count;
+	}
+
+	@Override
+	public void print() {
+		// iterate through every item
+		for ( int i = 0 ; i < numItems ; ++i ) {
+			// print every bit and then a space
+			for ( int j = 0 ; j < context.numElements ; ++j )
+				System.out.printf( "%d ", context.bitOfCode( codes[i], j ) );
+			// print a line break after every item
+			System.out.print("\n");
+		}
+		System.out.print("\n\n");
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Code Methods
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * sortKey
+	 *
+	 * the number the codes are sorted by. for a one language lexicon it is the index, like the LexiconComparator,
+	 * and for a bilingual lexicon it takes into account the language first and then the index, like the
+	 * BiLexiconComparator
+	 */
+	public int sortKey( int code ) {
+		if ( bilingual )
+			return ( ( context.maxItems + 1 ) * context.bitOfCode( code, 1 ) ) + context.indexOfCode( code );
+		else
+			return context.indexOfCode( code );
+	}
+
+	/**
+	 * getMaxNumItems
+	 *
+	 * returns maxItems for a one language lexicon and twice that for a bilingual one
+	 */
+	public int getMaxNumItems() {
+		if ( bilingual )
+			return context.maxItems * 2;
+		else
+			return context.maxItems;
+	}
+
+	/**
+	 * insertCode
+	 *
+	 * puts the code in the lexicon after every code with a smaller or equal sort key and lets the frequency
+	 * index know. ignores codes of invalid items and does nothing if the lexicon has no room
+	 */
+	protected void insertCode( int code ) {
+
+		// return if the code is invalid or there is no room
+		if ( code < 0 || numItems >= codes.length )
+			return;
+
+		// shift every code with a larger sort key one place up, then put the new code in the gap
+		int key = sortKey( code );
+		int i = numItems;
+		while ( i > 0 && sortKey( codes[i - 1] ) > key ) {
+			codes[i] = codes[i - 1];
+			--i;
+		}
+		codes[i] = code;
+		++numItems;
+
+		codeAdded( code );
+	}
+
+	/**
+	 * removeCodeAt
+	 *
+	 * takes out the code at position i, shifting every code after it one place down, and lets the frequency
+	 * index know
+	 */
+	protected void removeCodeAt( int i ) {
+
+		int code = codes[i];
+
+		// shift the codes after i one place down
+		for ( int j = i ; j < numItems - 1 ; ++j )
+			codes[j] = codes[j + 1];
+		--numItems;
+
+		codeRemoved( code );
+	}
+
+	/**
+	 * setCode
+	 *
+	 * puts the code at position i in place of the code that was there and lets the frequency index know.
+	 * does not re-sort
+	 */
+	protected void setCode( int i, int code ) {
+		codeRemoved( codes[i] );
+		codes[i] = code;
+		codeAdded( code );
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * returns the shared items of the lexicon as a new ArrayList, changing the list does not change the lexicon
+	 */
+	@Override
+	public ArrayList<int[]> getLexicon() {
+		ArrayList<int[]> items = new ArrayList<int[]>();
+		for ( int i = 0 ; i < numItems ; ++i )
+			items.add( context.itemOfCode( codes[i] ) );
+		return items;
+	}
+	@Override
+	public void setLexicon( ArrayList<int[]> lexicon ) {
+		// un-count the old items, then pack the new ones
+		while ( numItems > 0 )
+			removeCodeAt( numItems - 1 );
+		for ( int i = 0 ; i < lexicon.size() ; ++i )
+			insertCode( context.itemCode( lexicon.get( i ) ) );
+	}
+	@Override
+	public int getNumItems() {
+		return numItems;
+	}
+}
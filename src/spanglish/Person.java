@@ -17,53 +17,36 @@ import uchicago.src.sim.gui.SimGraphics;
 		
 		//////////////////////// CLASS VARIABLES
 		
-		//full number of language items in one's lexicon
-		public static int		maxItems;
-		//number of language bits in one language item, first bit denotes order
-		public static int		numElements;
-		// allows for unique ID number
-		public static int		nextID = 1;
-		// initialize associated model
-		public static Model		model;
 		// initialize associated GUI model
 		public static GUIModel	guiModel;
 		// we'll use this to draw a border around the bugs' cells (the f means float)
 	    public static BasicStroke      	personEdgeStroke = new BasicStroke( 1.0f );
-	    // the world that the agents are associated with
-	    public static TorusWorld		world;
-	    // the various regions in the world
-	    public static Region		home, school, work;
-	    // signifies the length of conversations. set in Model initialization
-	    public static int 		numWordsHeard;
-	    // determines whether or not the number of words exchanged is random, with numWordsHeard as the maximum
-	    public static int		randomWordFlow;
-	    // si
-	    public static int		threshold;
+	    // the longest sightRadius anyone has, see the updateStats method
+	    public static final int	maxSightRadius = 10;
 	    // utility class for drawing the agents
 	    public static SimGraphics 	sim = new SimGraphics();
 	    
 	    
-	    // the probability that a word heard by an adult will be added to their first lexicon
-	    public static double adultProbL1;
-	    // the probability that a word heard by an adult will be added to their second lexicon
-	    public static double adultProbL2;
-	    // the probability that a word heard by an adult will call the GA on their lexicons
-	    public static double adultProbGA;
-	    
-	    
 		//////////////////////// INSTANCE VARIABLES
-		Random 					rng 	= new Random();
+		// the run the Person is part of, with its model, world and Districts and the parameters of conversations,
+		// see the SimulationContext class
+		public SimulationContext	context;
+		// the Person's own random numbers, every Person has their own stream, Teachers and BabySitters too,
+		// see the RandomStream class
+		Random 					rng;
 		
 		/*
 		 * Person characteristics
 		 */
 		
-		// the age of the Person depends on the number of ticks per year and numTicksAlive
-		public int 				age; 
 		// denotes whether they are a child(0-5), student(6-17) or adult(18+)
 		public int 				ageClass;
-		// records the number of ticks the Person has been alive for aging purposes
-		public int 				numTicksAlive;
+		// the tick the Person was born in, before the model started if they came into it older than zero. their
+		// age is the number of whole years of stepsPerYear ticks since then, see getAge, and they have a
+		// birthday every stepsPerYear ticks after it
+		public int				birthTick;
+		// the tick of their next birthday in the Model's LifecycleCalendar, -1 if they are not in it
+		public int				nextBirthday = -1;
 		// 0 for female and 1 for male
 		public int 				gender;
 		// 0 for those initialized in the model, always one more than their parents'
@@ -88,13 +71,25 @@ import uchicago.src.sim.gui.SimGraphics;
 		public int				x, y;
 		// the unique ID number of each Person
 		public int				id;
+		// the slot of the Person in the Model's PopulationStore, -1 if they are not in it
+		public int				slot = -1;
+		// the status bucket of the Person in the Model's StatusQueue, -1 if they are not in it, their place in
+		// it or in its arrivals, and their rank, see the StatusQueue class
+		public int				queueBucket = -1;
+		public int				queueSlot;
+		public boolean			queueArrival;
+		public int				queueRank;
 		// the Person's first and second lexicon
 		public Lexicon			firstLang, secondLang;
 		public ArrayList<Boolean> changedList = new ArrayList<Boolean>();
 		// the Person's Temporary Memory Buffer
 		public TempLexicon		tempMemBuffer;
+		// the items the Person hears in a conversation, reused for every conversation
+		public ItemSample		heardItems;
 		// an ArrayList of the Regions the Person is allowed to occupy
 		public ArrayList<Region>regions = new ArrayList<Region>();
+		// the District whose Regions the Person occupies, see the DistrictLayout class
+		public District			district;
 		// initialize the GeneticAlg class for each person
 		public GeneticAlg		ga;
 		// the fill and border color of each person
@@ -109,10 +104,15 @@ import uchicago.src.sim.gui.SimGraphics;
 		/**
 		 * Default Constructor
 		 * 
-		 * Only used so Teachers and Babysitters can have an empty constructor
+		 * Only used so Teachers and Babysitters can have an empty constructor. makes the Person part of the
+		 * input run and starts their own stream of random numbers
 		 */
 		
-		public Person() {
+		public Person( SimulationContext aContext ) {
+			context = aContext;
+			rng = new RandomStream( context, RandomStream.personStream, ++context.nextStreamID );
+			heardItems = new ItemSample( context );
+			birthTick = (int)context.tick;
 		}
 		
 		/**
@@ -122,15 +122,18 @@ import uchicago.src.sim.gui.SimGraphics;
 		 * Age and race randomized, then proper color, placement, ID numbers and status are assigned
 		 * 
 		 */
-		public Person( int r ) {
+		public Person( SimulationContext aContext, int r ) {
+			this( aContext );
 			// Randomize age between 18 and 85 when born within the model
-			age = rng.nextInt( 57 ) + 18;
+			setAge( rng.nextInt( 57 ) + 18 );
 			// randomize gender between male(1) and female(0)
 			gender = rng.nextInt( 2 );
 			// set unique ID number
-			id = ++nextID;
+			id = ++context.nextID;
 			// set race as the input
 			race = r;
+			// they come from outside the model, so they get the District of a random cell
+			district = context.layout.randomDistrict( rng );
 			
 			// if not latino, they get an english lexicon
 			// see createEnglishLexicon method for details
@@ -162,12 +165,16 @@ import uchicago.src.sim.gui.SimGraphics;
 		 * called during the reproduction function in the model class
 		 */
 		public Person( Person p1, Person p2 ) {
+			// the baby is part of the same run as their parents
+			this( p1.context );
 			// randomize gender
 			gender = rng.nextInt( 2 );
 			// born at age zero
-			age = 0;
+			setAge( 0 );
 			// sets unique ID
-			id = ++nextID;
+			id = ++context.nextID;
+			// babies live in the District of their first parent
+			district = p1.getDistrict();
 			// sets several important statistics, see method for details
 			updateStats();
 			// border color is white if they were born within the model
@@ -210,7 +217,7 @@ import uchicago.src.sim.gui.SimGraphics;
 			spouse = null;
 			
 			// completely empty first language
-			firstLang = new Lexicon();
+			firstLang = Lexicon.newLexicon( context );
 		}
 		
 		
@@ -250,14 +257,14 @@ import uchicago.src.sim.gui.SimGraphics;
 			
 			// sets proportion of Standard English in an African American's lexicon. Ranges
 			// from 0% to 75%. higher proportion is correlated with higher age
-			double tempStat = -( .75 / 57 ) * ( age - 18 ) + 1;
+			double tempStat = -( .75 / 57 ) * ( getAge() - 18 ) + 1;
 			tempStat = 1;
 			
 			// over every item
-			for ( int i = 0 ; i < maxItems ; ++i ) {
+			for ( int i = 0 ; i < context.maxItems ; ++i ) {
 				
 				// initialize a new item
-				int[] tempItem = new int[numElements];
+				int[] tempItem = new int[context.numElements];
 				
 				// sets the first bit to i which denotes the index
 				tempItem[0] = i;
@@ -291,7 +298,7 @@ import uchicago.src.sim.gui.SimGraphics;
 			}
 			
 			// creates a Lexicon using the ArrayList of items that was just created
-			firstLang = new Lexicon( tempFirstLang );
+			firstLang = Lexicon.newLexicon( context, tempFirstLang );
 		}
 		
 		/**
@@ -306,10 +313,10 @@ import uchicago.src.sim.gui.SimGraphics;
 			ArrayList<int[]> tempFirstLang = new ArrayList<int[]>();
 			
 			// for maxItems times
-			for ( int i = 0 ; i < maxItems ; ++i ) {
+			for ( int i = 0 ; i < context.maxItems ; ++i ) {
 				
 				// initialize a new item
-				int[] tempItem = new int[numElements];
+				int[] tempItem = new int[context.numElements];
 				
 				// the first element denotes the index, or what specific word it is
 				tempItem[0] = i;
@@ -325,7 +332,7 @@ import uchicago.src.sim.gui.SimGraphics;
 			}
 			
 			// creates a Lexicon from the ArrayList we just created
-			firstLang = new Lexicon( tempFirstLang );
+			firstLang = Lexicon.newLexicon( context, tempFirstLang );
 		}
 		
 		/**
@@ -401,6 +408,9 @@ import uchicago.src.sim.gui.SimGraphics;
 		 */
 		public void calcStatus() {
 			
+			// remember the old status to know if it changed
+			int oldStatus = status;
+			
 			// can't transmit language if younger then 6, thus thier status is zero so nobody will
 			// listen to them
 			status = 0;
@@ -426,7 +436,7 @@ import uchicago.src.sim.gui.SimGraphics;
 				// add one to their status if they are female
 				status += ( 1 - gender );
 				// add three to status if latinos are the majority of the population
-				if ( model.latinoMajority )
+				if ( context.model.latinoMajority )
 					status += 3;
 				// add one extra status point for each new generation
 				status += ( 2 * generation );
@@ -434,6 +444,38 @@ import uchicago.src.sim.gui.SimGraphics;
 			
 			// add two to status if upper class, and one to status if middle class
 			status += socialClass;
+			
+			// let the world know if the status changed, see the statusChanged method below
+			if ( status != oldStatus )
+				statusChanged();
+		}
+		
+		/**
+		 * statusChanged
+		 * 
+		 * tells the world that the status of the person changed, so the highest status summaries of its
+		 * spatial index stay up to date. see the SpatialIndex class for details. and the Model, so the order
+		 * people step in stays up to date, see the StatusQueue class, and the slot of the person in the
+		 * Model's PopulationStore
+		 */
+		public void statusChanged() {
+			if ( slot >= 0 )
+				context.model.population.statusChanged( this );
+			if ( context.world != null )
+				context.world.statusChanged( this );
+			if ( context.model != null && context.model.statusQueue != null )
+				context.model.statusQueue.statusChanged( this );
+		}
+		
+		/**
+		 * storeTraits
+		 * 
+		 * copies the traits of the person into their slot of the Model's PopulationStore, if they have one.
+		 * called by the setters of the traits the store keeps, see the PopulationStore class for details
+		 */
+		public void storeTraits() {
+			if ( slot >= 0 )
+				context.model.population.update( this );
 		}
 		
 		////////////////////////////////////////////////////////////////////////////////////////
@@ -449,7 +491,7 @@ import uchicago.src.sim.gui.SimGraphics;
 		public void move() {
 			
 			// moves person in a random direction within their region/s, called in Model.activatePeopleToTakeSteps()
-			world.moveObjectInRegion( this );
+			context.world.moveObjectInRegion( this );
 		}
 		
 		
@@ -468,15 +510,16 @@ import uchicago.src.sim.gui.SimGraphics;
 			if ( ageClass == Model.CHILD && rng.nextDouble() < .5 )
 				listenToParents();
 			
-			// if the person has at least one neighbor
-			if ( world.getNeighbors( this, sightRadius ).size() > 0 && ageClass != Model.CHILD ) {
+			// if the person is not a child, find the neighbor with the highest status
+			// see the getHighestStatusNeighbor method in the TorusWorld class for details
+			if ( ageClass != Model.CHILD ) {
 				
-				Person p = Collections.max( world.getNeighbors( this, sightRadius ), new PersonStatusComparator() );
+				Person p = context.world.getHighestStatusNeighbor( this, sightRadius );
 				
-				// if the chosen neighbor has a status greater than or equal to this person, and the chosen
-				// neighbor is not a child, then listen to them
+				// if the person has at least one neighbor, the chosen neighbor has a status greater than or
+				// equal to this person, and the chosen neighbor is not a child, then listen to them
 				// see listen function below
-				if ( p.getStatus() >= status && p.ageClass > Model.CHILD ) {
+				if ( p != null && p.getStatus() >= status && p.ageClass > Model.CHILD ) {
 					listen( p );
 				}
 			}
@@ -503,19 +546,21 @@ import uchicago.src.sim.gui.SimGraphics;
 				return;
 			
 			// if there is no random word flow
-			if ( randomWordFlow == 0 ) {
+			if ( context.randomWordFlow == 0 ) {
 			// the child then hears numWordsHeard random items from the chosen parent's first lexicon
-			// see hearItems method for details
-			hearItems( parent.getFirstLang().getRandomItemsFromLexicon( numWordsHeard ) );
+			// see the sampleItems method in the Lexicon class and the hearItems method for details
+			parent.getFirstLang().sampleItems( context.numWordsHeard, heardItems, rng );
+			hearItems( heardItems );
 			}
 			
 			// if there is random word flow
 			else {
 				// then choose a random integer between one and numWordsHeard
-				int numWords = rng.nextInt( numWordsHeard ) + 1;
+				int numWords = rng.nextInt( context.numWordsHeard ) + 1;
 				// the child then hears numWords random items from the chosen parent's first lexicon
-				// see hearItems method for details
-				hearItems( parent.getFirstLang().getRandomItemsFromLexicon( numWords ) );
+				// see the sampleItems method in the Lexicon class and the hearItems method for details
+				parent.getFirstLang().sampleItems( numWords, heardItems, rng );
+				hearItems( heardItems );
 			}
 		}
 		
@@ -532,65 +577,127 @@ import uchicago.src.sim.gui.SimGraphics;
 			if ( p.getFirstLang().getNumItems() < 1 )
 				return;
 			
-			// if the person being listened to is a BabySitter
-			if ( p instanceof BabySitter ) {
-				
-				// Latinos cannot have non-Latino Babysitters
-				if ( race == Model.LATINO && p.getRace() != Model.LATINO )
-					return;
-				
-				// non-whites cannot have a white BabySitter
-				if ( p.getRace() == Model.WHITE && race != Model.WHITE )
-					return;
-			}
+			// return if the person cannot listen to a BabySitter of their race, see canListenTo below
+			if ( !canListenTo( p ) )
+				return;
 			
 			// if there is no random word flow
-			if ( randomWordFlow == 0 ) {
+			if ( context.randomWordFlow == 0 ) {
 			// the person hears numWordsHeard random items from the speaker's first lexicon
-			// see hearItems method for details
-			hearItems( p.getFirstLang().getRandomItemsFromLexicon( numWordsHeard ) );
+			// see the sampleItems method in the Lexicon class and the hearItems method for details
+			p.getFirstLang().sampleItems( context.numWordsHeard, heardItems, rng );
+			hearItems( heardItems );
 			}
 			
 			// if there is random word flow
 			else {
 				// then choose a random integer between one and numWordsHeard
-				int numWords = rng.nextInt( numWordsHeard ) + 1;
+				int numWords = rng.nextInt( context.numWordsHeard ) + 1;
 				// the person hears numWords random items from the speaker's first lexicon
-				// see hearItems method for details
-				hearItems( p.getFirstLang().getRandomItemsFromLexicon( numWords ) );
+				// see the sampleItems method in the Lexicon class and the hearItems method for details
+				p.getFirstLang().sampleItems( numWords, heardItems, rng );
+				hearItems( heardItems );
 			}
 		}
 		
+		/**
+		 * canListenTo
+		 * 
+		 * returns false if the input person is a BabySitter this person cannot listen to: Latinos cannot have
+		 * non-Latino BabySitters, and non-whites cannot have a white BabySitter
+		 */
+		public boolean canListenTo( Person p ) {
+			
+			// anybody that is not a BabySitter can be listened to
+			if ( !( p instanceof BabySitter ) )
+				return true;
+			
+			// Latinos cannot have non-Latino Babysitters
+			if ( race == Model.LATINO && p.getRace() != Model.LATINO )
+				return false;
+			
+			// non-whites cannot have a white BabySitter
+			if ( p.getRace() == Model.WHITE && race != Model.WHITE )
+				return false;
+			
+			return true;
+		}
+		
+		/**
+		 * chooseItems
+		 * 
+		 * the first half of the step method, used by the TwoPhaseListener. picks who the person listens to
+		 * and samples the items they hear into heardItems the same way the step method does, but only reads the
+		 * other people, their lexicons and their status. nothing is heard until hearChosenItems is called
+		 */
+		public void chooseItems() {
+			
+			// nothing is heard unless somebody is listened to
+			heardItems.numItems = 0;
+			
+			// a child listens to one of their parents with a 50% probability
+			if ( ageClass == Model.CHILD ) {
+				if ( rng.nextDouble() < .5 ) {
+					Person parent = getRandomPersonFromArray( parents );
+					if ( parent != null )
+						sampleItemsOf( parent );
+				}
+				return;
+			}
+			
+			// anybody else listens to the neighbor with the highest status, see the step method
+			Person p = context.world.getHighestStatusNeighbor( this, sightRadius );
+			if ( p != null && p.getStatus() >= status && p.ageClass > Model.CHILD && canListenTo( p ) )
+				sampleItemsOf( p );
+		}
+		
+		/**
+		 * sampleItemsOf
+		 * 
+		 * samples the items this person hears from the first lexicon of the speaker into heardItems, using the
+		 * person's own random numbers. see the listen method
+		 */
+		public void sampleItemsOf( Person speaker ) {
+			
+			// nothing is heard from a speaker with no first language
+			if ( speaker.getFirstLang().getNumItems() < 1 )
+				return;
+			
+			// numWordsHeard items, or a random number of them up to numWordsHeard if there is random word flow
+			int numWords = ( context.randomWordFlow == 0 ) ? context.numWordsHeard : rng.nextInt( context.numWordsHeard ) + 1;
+			speaker.getFirstLang().sampleItems( numWords, heardItems, rng );
+		}
+		
+		/**
+		 * hearChosenItems
+		 * 
+		 * the second half of the step method, used by the TwoPhaseListener. hears the items chosen by the
+		 * chooseItems method, if any
+		 */
+		public void hearChosenItems() {
+			hearItems( heardItems );
+		}
+		
 		/**
 		 * updateAge
 		 * 
-		 * every step of the model, the person increments the number of time steps that they've been alive for. every year's
-		 * worth of steps, their age is incremented by one and the updateStats function is called to make sure they
-		 * are in the proper region. if the person is an American born latino who just turned six, then
-		 * they have a chance of developing a BiLexicon
+		 * called on every birthday of the person, every stepsPerYear ticks after the tick they were born in, see
+		 * the LifecycleCalendar class. their age has just gone up by one, see getAge, so the updateStats function
+		 * is called to make sure they are in the proper region. if the person is an American born latino who just
+		 * turned six, then they have a chance of developing a BiLexicon
 		 */
 		public void updateAge() {
 			
-			// every step, increment the number of ticks the person has been alive
-			++numTicksAlive;
+			// update certain statistics that are based on age
+			// see updateStats method below for details
+			updateStats();
 			
-			// once the person has been alive for a multiple of stepsPerYear ticks
-			if ( numTicksAlive % model.getStepsPerYear() == 0 ) {
+			// if the person is a Latino student that was born within the model
+			if ( ageClass == Model.STUDENT && generation > 0 && race == Model.LATINO ) {
 				
-				// increment their age
-				++age;
-				
-				// update certain statistics that are based on age
-				// see updateStats method below for details
-				updateStats();
-				
-				// if the person is a Latino student that was born within the model
-				if ( ageClass == Model.STUDENT && generation > 0 && race == Model.LATINO ) {
-					
-					// then they have the potential to become bilingual
-					// see chanceToBiLexicon method for details
-					changeToBiLexicon();
-				}
+				// then they have the potential to become bilingual
+				// see chanceToBiLexicon method for details
+				changeToBiLexicon();
 			}
 		}
 		
@@ -604,14 +711,15 @@ import uchicago.src.sim.gui.SimGraphics;
 		public void updateStats() {
 			
 			// Children are five and younger
-			if ( age < 6 )
+			if ( getAge() < 6 )
 				ageClass = Model.CHILD;
 			// Students are ages six to seventeen
-			else if ( age < 18 )
+			else if ( getAge() < 18 )
 				ageClass = Model.STUDENT;
 			// Adults are eighteen and older
 			else
 				ageClass = Model.ADULT;
+			storeTraits();
 			
 			// recalculate status after changing their age class
 			calcStatus();
@@ -620,29 +728,29 @@ import uchicago.src.sim.gui.SimGraphics;
 			if ( ageClass == Model.CHILD ) {
 				// then they occupy only the home Region
 				regions.clear();
-				regions.add( home );
+				regions.add( district.home );
 			}
 			// if the person is a student
 			else if ( ageClass == Model.STUDENT ) {
 				// then they occupy only the school Region
 				regions.clear();
-				regions.add( school );
+				regions.add( district.school );
 			}
 			// if the person is an adult
 			else if ( ageClass == Model.ADULT ) {
 				// then they occupy only the work Region
 				regions.clear();
-				regions.add( work );
+				regions.add( district.work );
 			}
 			
 			// People can see longer as they age, but when they reach a certain age they shorten their radius
-			if ( age < 10 ) {
+			if ( getAge() < 10 ) {
 				sightRadius = 3;
 			}
-			else if ( age < 18 ) {
+			else if ( getAge() < 18 ) {
 				sightRadius = 6;
 			}
-			else if ( age < 50 ) {
+			else if ( getAge() < 50 ) {
 				sightRadius = 10;
 			}
 			else {
@@ -652,7 +760,7 @@ import uchicago.src.sim.gui.SimGraphics;
 			// if the person is in the incorrect Region, then move to the correct one
 			// see inRegion method for details
 			if ( !inRegion() )
-				world.movePersonToRegion( this );
+				context.world.movePersonToRegion( this );
 		}
 		
 		
@@ -680,6 +788,25 @@ import uchicago.src.sim.gui.SimGraphics;
 			calcStatus();
 		}
 		
+		/**
+		 * hearItems
+		 * 
+		 * same as the method above for items that were sampled into an ItemSample
+		 */
+		public void hearItems( ItemSample sample ) {
+			
+			// return if no items were chosen
+			if ( sample == null || sample.getNumItems() == 0 )
+				return;
+			
+			// for every item in the sample
+			for ( int i = 0 ; i < sample.getNumItems() ; ++i ) {
+				// hear the item, see method below for details
+				hearItem( sample.getItem( i ) );
+			}
+			calcStatus();
+		}
+		
 		/**
 		 * hearItem
 		 * 
@@ -731,8 +858,8 @@ import uchicago.src.sim.gui.SimGraphics;
 				// the second language. these statistics allow for prob(L1) to decrease, and prob(L2) and prob(TMB) to
 				// increase to the proper proportions linearly as an adult would have, while maintaining the prob(GA) constant
 				// at 50% percent
-				double L1Prob = (.5 / .85) * ( -(.65 / 12) * age + .8 + (.65 / 2) );
-				double L2Prob = (.5 / .85) * ( (1 / 60) * age - .1 );
+				double L1Prob = (.5 / .85) * ( -(.65 / 12) * getAge() + .8 + (.65 / 2) );
+				double L2Prob = (.5 / .85) * ( (1 / 60) * getAge() - .1 );
 				
 				// with a 50% probability
 				if ( tempRand < .5 ) {
@@ -749,7 +876,7 @@ import uchicago.src.sim.gui.SimGraphics;
 					addToFirstLexicon( item );
 				}
 				// with L2Prob probability (ranging from 0% to ~12%) and if they are not bilingual
-				else if ( tempRand < .5 + L1Prob + L2Prob && !( firstLang instanceof BiLexicon ) ) {
+				else if ( tempRand < .5 + L1Prob + L2Prob && !firstLang.isBilingual() ) {
 					// the item is sent to their second language
 					// see addToSecondLexicon method below for details
 					addToSecondLexicon( item );
@@ -764,7 +891,7 @@ import uchicago.src.sim.gui.SimGraphics;
 			// if the person is an adult
 			else if ( ageClass == Model.ADULT ){
 				// with adultProbGA probability
-				if ( tempRand < adultProbGA ) {
+				if ( tempRand < context.adultProbGA ) {
 					// construct an instance of GeneticAlg
 					ga = new GeneticAlg( this, item );
 					// and calculate whether it will be inserted into once of their lexicons
@@ -772,13 +899,13 @@ import uchicago.src.sim.gui.SimGraphics;
 					ga.calcInsertion();
 				}
 				// with adultProbL1 probability
-				else if ( tempRand < adultProbGA + adultProbL1 ) {
+				else if ( tempRand < context.adultProbGA + context.adultProbL1 ) {
 					// the item is sent to their first lexicon
 					// see addToFirstLexicon method below for details
 					addToFirstLexicon( item );
 				}
 				// with adultProbL2 probability and if the person is not bilingual
-				else if ( tempRand < adultProbGA + adultProbL1 + adultProbL2 && !( firstLang instanceof BiLexicon ) ) {
+				else if ( tempRand < context.adultProbGA + context.adultProbL1 + context.adultProbL2 && !firstLang.isBilingual() ) {
 					// the item is sent to their second language
 					// see addToSecondLexicon method below for details
 					addToSecondLexicon( item );
@@ -839,13 +966,13 @@ import uchicago.src.sim.gui.SimGraphics;
 		public boolean addToFirstLexicon( int[] newItem ) {
 			
 			// return false if the input is invalid
-			if ( newItem == null || newItem.length != numElements )
+			if ( newItem == null || newItem.length != context.numElements )
 				return false;
 			
 			// if the person has no first language yet
 			if ( firstLang == null ) {
 				// then construct a first language with that item
-				firstLang = new Lexicon( newItem );
+				setFirstLang( Lexicon.newLexicon( context, newItem ) );
 				return true;
 			}
 			
@@ -865,7 +992,7 @@ import uchicago.src.sim.gui.SimGraphics;
 		public boolean addToSecondLexicon( int[] newItem ) {
 			
 			// return false if the input is invalid or the item is already in the person's first language
-			if ( newItem == null || newItem.length != numElements || firstLang.inLexicon( newItem ) != -1 )
+			if ( newItem == null || newItem.length != context.numElements || firstLang.inLexicon( newItem ) != -1 )
 				return false;
 			
 			// return false if the person has an ermpty Temporary Memory Buffer
@@ -874,14 +1001,14 @@ import uchicago.src.sim.gui.SimGraphics;
 			
 			// set the probability of accepting the word, which is the ratio of the number of times the item
 			// has been heard with threshold, which is set in the GUI and is ten by default
-			double tempProb = Math.pow( tempMemBuffer.numTimesHeard( newItem ) / (double)threshold, 1.0);
+			double tempProb = Math.pow( tempMemBuffer.numTimesHeard( newItem ) / (double)context.threshold, 1.0);
 
 			// with probability tempProb
 			if ( rng.nextDouble() < tempProb ) {
 				// if the person has no second language
 				if ( secondLang == null ) {
 					// construct a second language with the heard word
-					secondLang = new Lexicon( newItem );
+					secondLang = Lexicon.newLexicon( context, newItem );
 					return true;
 				}
 				
@@ -903,13 +1030,13 @@ import uchicago.src.sim.gui.SimGraphics;
 		public boolean addToTempMemBuffer( int[] newItem ) {
 			
 			// return false if the input is invalid
-			if ( newItem == null || newItem.length != numElements )
+			if ( newItem == null || newItem.length != context.numElements )
 				return false;
 			
 			// if the person does not have a Temporary Memory Buffer
 			if ( tempMemBuffer == null ) {
 				// construct one with the heard word
-				tempMemBuffer = new TempLexicon( newItem );
+				tempMemBuffer = new TempLexicon( context, newItem );
 				return true;
 			}
 			
@@ -973,7 +1100,7 @@ import uchicago.src.sim.gui.SimGraphics;
 		 */
 		public boolean isFertile() {
 			// a person is fertile if they are between the ages of 18 and 59
-			if ( age > 17 && age < 60 )
+			if ( getAge() > 17 && getAge() < 60 )
 				return true;
 			// otherwise, they are not fertile
 			else
@@ -993,11 +1120,11 @@ import uchicago.src.sim.gui.SimGraphics;
 		public boolean die() {
 			
 			// people cannot die if they are younger than 50
-			if ( age < 50 )
+			if ( getAge() < 50 )
 				return false;
 			
 			// to keep population under control, and person only has a chance of dying on their birthday
-			if ( numTicksAlive % model.getStepsPerYear() != 0 )
+			if ( getNumTicksAlive() % context.model.getStepsPerYear() != 0 )
 				return false;
 			
 			// initialize the deathSensativity statistic. the higher this number is, the older the person will be
@@ -1031,7 +1158,7 @@ import uchicago.src.sim.gui.SimGraphics;
 			// by convention, death prob will increase from 0% when the person is 50, to 100% when the person is 85
 			// the higher deathSensitivity is, the more convex the curve is, so the probability is low until the person is older
 			// lower statistics yield concave curves, and deaths are concentrated closer to fifty
-			double deathProb = Math.pow(( 1 / 35.0 ) * ( age - 50 ), deathSensitivity );
+			double deathProb = Math.pow(( 1 / 35.0 ) * ( getAge() - 50 ), deathSensitivity );
 			
 			// the person dies with probability deathProb
 			if ( rng.nextDouble() < deathProb )
@@ -1128,8 +1255,8 @@ import uchicago.src.sim.gui.SimGraphics;
 			
 			// if the Latino student has at least one English word in their first lexicon before they turn nine, then
 			// they become bilinugal and obtain a BiLexicon. details in the BiLexicon class description
-			if ( firstLang.getNumOfBitInColumn( 1 , 0 ) > 0 && age < 9 )
-				firstLang = new BiLexicon( firstLang );
+			if ( firstLang.getNumOfBitInColumn( 1 , 0 ) > 0 && getAge() < 9 )
+				firstLang = firstLang.toBiLexicon();
 			// if not, then return
 			else
 				return;
@@ -1189,6 +1316,28 @@ import uchicago.src.sim.gui.SimGraphics;
 		}
 		
 		
+		/**
+		 * getDirectionMask
+		 * 
+		 * returns the moves from the cell ( x, y ) that end up in any of the person's regions, as a mask with
+		 * bit d set if move d does. see the getDirectionMask method of the Region class for details
+		 */
+		
+		public int getDirectionMask( int x, int y ) {
+			
+			// no move is legal if the person has no regions for some reason
+			if ( regions == null )
+				return 0;
+			
+			// combine the moves of every region in their ArrayList
+			int mask = 0;
+			for ( int i = 0 ; i < regions.size() ; ++i )
+				mask |= regions.get( i ).getDirectionMask( x, y );
+			
+			return mask;
+		}
+		
+		
 		/**
 		 * getRandomRegionPoint()
 		 * 
@@ -1203,7 +1352,7 @@ import uchicago.src.sim.gui.SimGraphics;
 			
 			// if the person only has one region, then get a random point from that one
 			if ( regions.size() == 1 )
-				return regions.get( 0 ).getRandomPoint();
+				return regions.get( 0 ).getRandomPoint( rng );
 			
 			// if they have more than one, get the number of regions they have
 			int numOfRegions = regions.size();
@@ -1212,7 +1361,7 @@ import uchicago.src.sim.gui.SimGraphics;
 			Region oneOfRegions = regions.get( rng.nextInt( numOfRegions - 1 ) );
 			
 			// and return a random point from it
-			return oneOfRegions.getRandomPoint();
+			return oneOfRegions.getRandomPoint( rng );
 		}
 		
 		////////////////////////////////////////////////////////////////////////////////////////
@@ -1248,7 +1397,7 @@ import uchicago.src.sim.gui.SimGraphics;
 		 */
 		public void print() {
 			System.out.printf("\nID: %d, Race: %d, Age: %d, Class: %d, Gender: %d, Generation: %d, Status: %d\n\n",
-					id, race, age, socialClass, gender, generation, status );
+					id, race, getAge(), socialClass, gender, generation, status );
 		}
 		
 		////////////////////////////////////////////////////////////////////////////////////////
@@ -1292,41 +1441,25 @@ import uchicago.src.sim.gui.SimGraphics;
 		public void setBorderColor( Color c ) {
 			borderColor = c;
 		}
-		public static int getMaxItems() {
-			return maxItems;
-		}
-		public static void setMaxItems(int maxItems) {
-			Person.maxItems = maxItems;
-		}
-		public static int getNumElements() {
-			return numElements;
-		}
-		public static void setNumElements(int numElements) {
-			Person.numElements = numElements;
+		public SimulationContext getContext() {
+			return context;
 		}
 		public int getNumTicksAlive() {
-			return numTicksAlive;
+			return (int)context.tick - birthTick;
 		}
 		public void setNumTicksAlive(int numTicksAlive) {
-			this.numTicksAlive = numTicksAlive;
-		}
-		public static int getNextID() {
-			return nextID;
+			this.birthTick = (int)context.tick - numTicksAlive;
+			storeTraits();
 		}
-		public static void setNextID(int nextID) {
-			Person.nextID = nextID;
+		public int getBirthTick() {
+			return birthTick;
 		}
 		public Person getSpouse() {
 			return spouse;
 		}
 		public void setSpouse(Person spouse) {
 			this.spouse = spouse;
-		}
-		public static Model getModel() {
-			return model;
-		}
-		public static void setModel(Model model) {
-			Person.model = model;
+			storeTraits();
 		}
 		public static GUIModel getGUIModel() {
 			return guiModel;
@@ -1342,57 +1475,16 @@ import uchicago.src.sim.gui.SimGraphics;
 		}
 		public void setAgeClass(int ageClass) {
 			this.ageClass = ageClass;
+			storeTraits();
 		}
 		public static void setPersonEdgeStroke(BasicStroke personEdgeStroke) {
 			Person.personEdgeStroke = personEdgeStroke;
 		}
-		public static GridWorld getWorld() {
-			return world;
-		}
-		public static void setWorld(TorusWorld world) {
-			Person.world = world;
-		}
-		public static Region getHome() {
-			return home;
-		}
-		public static void setHome(Region home) {
-			Person.home = home;
-		}
-		public static Region getSchool() {
-			return school;
-		}
-		public static void setSchool(Region school) {
-			Person.school = school;
+		public District getDistrict() {
+			return district;
 		}
-		public static Region getWork() {
-			return work;
-		}
-		public static void setWork(Region work) {
-			Person.work = work;
-		}
-		public static int getThreshold() {
-			return threshold;
-		}
-		public static void setThreshold(int threshold) {
-			Person.threshold = threshold;
-		}
-		public static double getAdultProbL1() {
-			return adultProbL1;
-		}
-		public static void setAdultProbL1(double adultProbL1) {
-			Person.adultProbL1 = adultProbL1;
-		}
-		public static double getAdultProbL2() {
-			return adultProbL2;
-		}
-		public static void setAdultProbL2(double adultProbL2) {
-			Person.adultProbL2 = adultProbL2;
-		}
-		public static double getAdultProbGA() {
-			return adultProbGA;
-		}
-		public static void setAdultProbGA(double adultProbGA) {
-			Person.adultProbGA = adultProbGA;
+		public void setDistrict(District district) {
+			this.district = district;
 		}
 		public static GUIModel getGuiModel() {
 			return guiModel;
@@ -1400,29 +1492,28 @@ import uchicago.src.sim.gui.SimGraphics;
 		public static void setGuiModel(GUIModel guiModel) {
 			Person.guiModel = guiModel;
 		}
-		public static int getRandomWordFlow() {
-			return randomWordFlow;
-		}
-		public static void setRandomWordFlow(int randomWordFlow) {
-			Person.randomWordFlow = randomWordFlow;
-		}
 		public int getGeneration() {
 			return generation;
 		}
 		public void setGeneration(int generation) {
 			this.generation = generation;
+			storeTraits();
 		}
 		public int getSocialClass() {
 			return socialClass;
 		}
 		public void setSocialClass(int socialClass) {
 			this.socialClass = socialClass;
+			storeTraits();
 		}
 		public int getStatus() {
 			return status;
 		}
 		public void setStatus(int status) {
+			int oldStatus = this.status;
 			this.status = status;
+			if ( status != oldStatus )
+				statusChanged();
 		}
 		public GeneticAlg getGa() {
 			return ga;
@@ -1442,11 +1533,13 @@ import uchicago.src.sim.gui.SimGraphics;
 		public void setRng(Random rng) {
 			this.rng = rng;
 		}
+		// the age comes from the tick they were born in, setting it moves that tick
 		public int getAge() {
-			return age;
+			return ( (int)context.tick - birthTick ) / context.model.getStepsPerYear();
 		}
 		public void setAge(int age) {
-			this.age = age;
+			this.birthTick = (int)context.tick - age * context.model.getStepsPerYear();
+			storeTraits();
 		}
 		public ArrayList<Person> getParents() {
 			return parents;
@@ -1459,18 +1552,23 @@ import uchicago.src.sim.gui.SimGraphics;
 		}
 		public void setGender(int gender) {
 			this.gender = gender;
+			storeTraits();
 		}
 		public int getX() {
 			return x;
 		}
 		public void setX(int x) {
 			this.x = x;
+			if ( slot >= 0 )
+				context.model.population.moved( this );
 		}
 		public int getY() {
 			return y;
 		}
 		public void setY(int y) {
 			this.y = y;
+			if ( slot >= 0 )
+				context.model.population.moved( this );
 		}
 		public int getId() {
 			return id;
@@ -1482,7 +1580,10 @@ import uchicago.src.sim.gui.SimGraphics;
 			return firstLang;
 		}
 		public void setFirstLang(Lexicon firstLang) {
+			Lexicon oldLang = this.firstLang;
 			this.firstLang = firstLang;
+			if ( slot >= 0 )
+				context.model.population.firstLangChanged( this, oldLang );
 		}
 		public Lexicon getSecondLang() {
 			return secondLang;
@@ -1513,6 +1614,7 @@ import uchicago.src.sim.gui.SimGraphics;
 		}	
 		public void setRace( int race ) {
 			this.race = race;
+			storeTraits();
 		}	
 		public int getRace() {
 			return race;
@@ -1522,12 +1624,7 @@ import uchicago.src.sim.gui.SimGraphics;
 		}
 		public void setMatingID(int matingID) {
 			this.matingID = matingID;
-		}
-		public static int getNumWordsHeard() {
-			return numWordsHeard;
-		}
-		public static void setNumWordsHeard(int numWordsHeard) {
-			Person.numWordsHeard = numWordsHeard;
+			storeTraits();
 		}
 	}
 	
\ No newline at end of file
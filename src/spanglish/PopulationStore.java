@@ -0,0 +1,347 @@
+package spanglish;
+
+/**
+ * PopulationStore.java
+ *
+ * Keeps the handful of integers that the Model's statistics and reproduction loops read from every person in
+ * parallel primitive arrays, one array per trait, indexed by the slot of the person. The slots are in the same
+ * order as the Model's personList, so going over the slots is going over personList without touching the
+ * Person objects themselves. A person in the store writes every change to one of these traits through to their
+ * slot as it happens: the status, place and counts of each type of item, which change in the hot loops, each
+ * have their own method (see statusChanged, moved and counted), and the setters of the other traits copy them
+ * all, see the update method. The age only changes on a birthday, when the updateStats method of the Person
+ * class copies it. The findStaleSlot method compares every slot with its person, it is only a debug check.
+ * The Person in any slot can still be looked up with the personAt method
+ */
+
+public class PopulationStore {
+
+	//////////////////////// CLASS VARIABLES
+
+	// the number of slots a new store starts with, it doubles whenever it fills up
+	public static final int		initialCapacity = 256;
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the person in every slot, only the first size slots are in use
+	public Person[]				people;
+	// the number of people in the store
+	public int					size;
+
+	// the traits of the person in every slot, see the Person class for details
+	public int[]				age;
+	public int[]				ageClass;
+	public int[]				race;
+	public int[]				gender;
+	public int[]				socialClass;
+	public int[]				status;
+	public int[]				generation;
+	public int[]				matingID;
+	public int[]				x, y;
+	// true if the person in the slot can reproduce, see the isFertile method of the Person class
+	public boolean[]			fertile;
+	// true if the person in the slot has a spouse
+	public boolean[]			married;
+
+	// the number of items of each type in the first lexicon of the person in every slot,
+	// see the categoryCounts of the Lexicon class for details
+	public int[]				numUSAS;
+	public int[]				numStandardEnglish;
+	public int[]				numAAE;
+	public int[]				numWhiteSpanish;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * creates an empty store
+	 */
+	public PopulationStore() {
+		allocate( initialCapacity );
+		size = 0;
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Population Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * add
+	 *
+	 * puts the person in the slot after the last one and copies their traits into it. called whenever
+	 * someone is added to personList
+	 */
+	public void add( Person p ) {
+
+		// make room if every slot is in use
+		if ( size == people.length )
+			grow();
+
+		// the person takes the first free slot
+		people[size] = p;
+		p.slot = size;
+		++size;
+
+		update( p );
+
+		// their first lexicon copies its counts into the slot from now on
+		if ( p.getFirstLang() != null )
+			p.getFirstLang().attachOwner( p );
+	}
+
+	/**
+	 * remove
+	 *
+	 * takes the person out of their slot and moves every later slot one down, so the slots stay in the same
+	 * order as personList. called whenever someone is removed from personList
+	 * returns false if the person was not in the store
+	 */
+	public boolean remove( Person p ) {
+
+		// return false if the person is not in the store
+		int s = p.slot;
+		if ( s < 0 || s >= size || people[s] != p )
+			return false;
+
+		// shift every later slot one down
+		int numMoved = size - s - 1;
+		System.arraycopy( people, s + 1, people, s, numMoved );
+		System.arraycopy( age, s + 1, age, s, numMoved );
+		System.arraycopy( ageClass, s + 1, ageClass, s, numMoved );
+		System.arraycopy( race, s + 1, race, s, numMoved );
+		System.arraycopy( gender, s + 1, gender, s, numMoved );
+		System.arraycopy( socialClass, s + 1, socialClass, s, numMoved );
+		System.arraycopy( status, s + 1, status, s, numMoved );
+		System.arraycopy( generation, s + 1, generation, s, numMoved );
+		System.arraycopy( matingID, s + 1, matingID, s, numMoved );
+		System.arraycopy( x, s + 1, x, s, numMoved );
+		System.arraycopy( y, s + 1, y, s, numMoved );
+		System.arraycopy( fertile, s + 1, fertile, s, numMoved );
+		System.arraycopy( married, s + 1, married, s, numMoved );
+		System.arraycopy( numUSAS, s + 1, numUSAS, s, numMoved );
+		System.arraycopy( numStandardEnglish, s + 1, numStandardEnglish, s, numMoved );
+		System.arraycopy( numAAE, s + 1, numAAE, s, numMoved );
+		System.arraycopy( numWhiteSpanish, s + 1, numWhiteSpanish, s, numMoved );
+		--size;
+		people[size] = null;
+
+		// the people that were moved down get their new slots
+		for ( int i = s ; i < size ; ++i )
+			people[i].slot = i;
+		p.slot = -1;
+
+		// the lexicon may live on in a Teacher or BabySitter, but it no longer has a slot
+		if ( p.getFirstLang() != null )
+			p.getFirstLang().detachOwner();
+
+		return true;
+	}
+
+	/**
+	 * update
+	 *
+	 * copies the current traits of the person into their slot. called by the setters of the Person class, does
+	 * nothing if the person is not in the store, which is the case for Teachers and BabySitters
+	 */
+	public void update( Person p ) {
+
+		// return if the person is not in the store
+		int s = p.slot;
+		if ( s < 0 || s >= size || people[s] != p )
+			return;
+
+		age[s] = p.getAge();
+		ageClass[s] = p.getAgeClass();
+		race[s] = p.getRace();
+		gender[s] = p.getGender();
+		socialClass[s] = p.getSocialClass();
+		status[s] = p.getStatus();
+		generation[s] = p.getGeneration();
+		matingID[s] = p.getMatingID();
+		x[s] = p.getX();
+		y[s] = p.getY();
+		fertile[s] = p.isFertile();
+		married[s] = p.hasSpouse();
+
+		counted( p, p.getFirstLang() );
+	}
+
+	/**
+	 * statusChanged
+	 *
+	 * copies the status of the person into their slot, called by the statusChanged method of the Person class
+	 */
+	public void statusChanged( Person p ) {
+		status[p.slot] = p.getStatus();
+	}
+
+	/**
+	 * moved
+	 *
+	 * copies the place of the person into their slot, called by the setX and setY methods of the Person class
+	 */
+	public void moved( Person p ) {
+		x[p.slot] = p.getX();
+		y[p.slot] = p.getY();
+	}
+
+	/**
+	 * counted
+	 *
+	 * copies the counts of each type of item in the input lexicon, the first lexicon of the person, into their
+	 * slot. called by the first lexicon whenever its counts change, see the owner of the Lexicon class
+	 */
+	public void counted( Person p, Lexicon lex ) {
+		int s = p.slot;
+
+		// a person without a first language has no items of any type
+		if ( lex == null ) {
+			numUSAS[s] = numStandardEnglish[s] = numAAE[s] = numWhiteSpanish[s] = 0;
+		}
+		else {
+			numUSAS[s] = lex.freqOfUSAS();
+			numStandardEnglish[s] = lex.freqOfStandardEnglish();
+			numAAE[s] = lex.freqOfAAE();
+			numWhiteSpanish[s] = lex.freqOfWhiteSpanish();
+		}
+	}
+
+	/**
+	 * firstLangChanged
+	 *
+	 * called when the person is given a new first lexicon, which copies its counts into their slot from now on
+	 */
+	public void firstLangChanged( Person p, Lexicon oldLang ) {
+		if ( oldLang != null )
+			oldLang.detachOwner();
+		if ( p.getFirstLang() != null )
+			p.getFirstLang().attachOwner( p );
+		else
+			counted( p, null );
+	}
+
+	/**
+	 * findStaleSlot
+	 *
+	 * returns the first slot whose traits are not the current ones of its person, or -1 if every slot is up to
+	 * date. every change is written through to the slot, so this is only a debug check, see the checkPopulation
+	 * parameter of the Model class
+	 */
+	public int findStaleSlot() {
+		for ( int s = 0 ; s < size ; ++s ) {
+			Person p = people[s];
+			if ( p.slot != s || age[s] != p.getAge() || ageClass[s] != p.getAgeClass() || race[s] != p.getRace()
+					|| gender[s] != p.getGender() || socialClass[s] != p.getSocialClass()
+					|| status[s] != p.getStatus() || generation[s] != p.getGeneration()
+					|| matingID[s] != p.getMatingID() || x[s] != p.getX() || y[s] != p.getY()
+					|| fertile[s] != p.isFertile() || married[s] != p.hasSpouse() )
+				return s;
+
+			// a person without a first language has no items of any type
+			Lexicon lex = p.getFirstLang();
+			if ( lex == null ) {
+				if ( numUSAS[s] != 0 || numStandardEnglish[s] != 0 || numAAE[s] != 0 || numWhiteSpanish[s] != 0 )
+					return s;
+			}
+			else if ( numUSAS[s] != lex.freqOfUSAS() || numStandardEnglish[s] != lex.freqOfStandardEnglish()
+					|| numAAE[s] != lex.freqOfAAE() || numWhiteSpanish[s] != lex.freqOfWhiteSpanish() ) {
+				return s;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * clear
+	 *
+	 * empties the store, the slots of the people that were in it are reset
+	 */
+	public void clear() {
+		for ( int i = 0 ; i < size ; ++i ) {
+			people[i].slot = -1;
+			if ( people[i].getFirstLang() != null )
+				people[i].getFirstLang().detachOwner();
+			people[i] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * allocate
+	 *
+	 * makes every array the input length, keeping whatever is in the slots that are in use
+	 */
+	protected void allocate( int capacity ) {
+		people = copyOf( people, capacity );
+		age = copyOf( age, capacity );
+		ageClass = copyOf( ageClass, capacity );
+		race = copyOf( race, capacity );
+		gender = copyOf( gender, capacity );
+		socialClass = copyOf( socialClass, capacity );
+		status = copyOf( status, capacity );
+		generation = copyOf( generation, capacity );
+		matingID = copyOf( matingID, capacity );
+		x = copyOf( x, capacity );
+		y = copyOf( y, capacity );
+		fertile = copyOf( fertile, capacity );
+		married = copyOf( married, capacity );
+		numUSAS = copyOf( numUSAS, capacity );
+		numStandardEnglish = copyOf( numStandardEnglish, capacity );
+		numAAE = copyOf( numAAE, capacity );
+		numWhiteSpanish = copyOf( numWhiteSpanish, capacity );
+	}
+
+	/**
+	 * grow
+	 *
+	 * doubles the number of slots
+	 */
+	protected void grow() {
+		allocate( people.length * 2 );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Array Methods
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * copyOf
+	 *
+	 * returns a new array of the input length with the first size entries of the input, or an empty
+	 * one if the input is null
+	 */
+	protected int[] copyOf( int[] array, int capacity ) {
+		int[] newArray = new int[capacity];
+		if ( array != null )
+			System.arraycopy( array, 0, newArray, 0, size );
+		return newArray;
+	}
+
+	protected boolean[] copyOf( boolean[] array, int capacity ) {
+		boolean[] newArray = new boolean[capacity];
+		if ( array != null )
+			System.arraycopy( array, 0, newArray, 0, size );
+		return newArray;
+	}
+
+	protected Person[] copyOf( Person[] array, int capacity ) {
+		Person[] newArray = new Person[capacity];
+		if ( array != null )
+			System.arraycopy( array, 0, newArray, 0, size );
+		return newArray;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public Person personAt( int slot ) {
+		return people[slot];
+	}
+	public int getSize() {
+		return size;
+	}
+}
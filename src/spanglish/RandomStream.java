@@ -0,0 +1,168 @@
+package spanglish;
+
+/**
+ * RandomStream.java
+ *
+ * A java.util.Random whose numbers are worked out from a counter instead of from the previous number. Every
+ * stream has a purpose, what it is used for, and an id, such as the Person it belongs to, and every tick it
+ * starts over from a key that is mixed from the seed of the run, its purpose, its id and the tick. The n-th
+ * number of a stream in a tick is the SplitMix64 mix of the key plus n times the golden ratio, so it only
+ * depends on those four things and on how many numbers the stream gave before it in that tick, never on
+ * what any other stream did.
+ *
+ * Every Person draws from their own stream, and the Model has one for what it does on its own. The Regions
+ * and the Lexicons have none, they draw from the stream of the Person they are used for. The run is then the
+ * same every time it is run with the same seed, and the same no matter how many threads step the people or
+ * in which order the threads get to them, as long as every Person draws their numbers in the same order, see
+ * the TiledStepper and TwoPhaseListener classes. The seed and the tick are those of the SimulationContext the
+ * stream belongs to, so the streams of two Models that run at the same time never affect each other. A
+ * stream must not be drawn from by two threads at once
+ */
+
+import java.util.Random;
+
+public class RandomStream extends Random {
+
+	//////////////////////// CLASS VARIABLES
+
+	// Random is Serializable
+	private static final long	serialVersionUID = 1L;
+
+	// what a stream is used for, see the class comment
+	public static final int		modelStream = 0;
+	public static final int		personStream = 4;
+
+	// the odd number closest to 2^64 divided by the golden ratio, which spreads consecutive counters apart
+	public static final long	golden = 0x9E3779B97F4A7C15L;
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the run whose seed and tick the stream is worked out from
+	public SimulationContext	context;
+	// what the stream is used for and whose it is
+	public int					purpose;
+	public long					id;
+
+	// the key of the stream for the tick and the seed it was worked out for, see the rekey method
+	public long					key;
+	public long					keyTick = -1;
+	public int					keySeedCount = -1;
+	// the number of numbers the stream gave since the key was worked out
+	public long					counter;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * creates the stream of the input run with the input purpose and id
+	 */
+	public RandomStream( SimulationContext aContext, int aPurpose, long anID ) {
+		super( 0 );
+		context = aContext;
+		purpose = aPurpose;
+		id = anID;
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * next
+	 *
+	 * every other method of java.util.Random gets its random bits from here
+	 */
+	@Override
+	protected int next( int bits ) {
+		return (int)( nextBits() >>> ( 64 - bits ) );
+	}
+
+	/**
+	 * nextLong
+	 *
+	 * returns all 64 bits of the next number at once
+	 */
+	@Override
+	public long nextLong() {
+		return nextBits();
+	}
+
+	/**
+	 * nextGaussian
+	 *
+	 * the same polar method as java.util.Random, but the second number is thrown away instead of being kept
+	 * for the next call, so nothing is carried over from one tick to the next
+	 */
+	@Override
+	public double nextGaussian() {
+		double v1, v2, s;
+		do {
+			v1 = 2 * nextDouble() - 1;
+			v2 = 2 * nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while ( s >= 1 || s == 0 );
+		return v1 * StrictMath.sqrt( -2 * StrictMath.log( s ) / s );
+	}
+
+	/**
+	 * setSeed
+	 *
+	 * does nothing, a stream only depends on the seed of the run, see the setRunSeed method of the
+	 * SimulationContext class
+	 */
+	@Override
+	public void setSeed( long seed ) {
+	}
+
+	/**
+	 * nextBits
+	 *
+	 * returns the next 64 random bits of the stream, working out the key first if the tick or the seed changed
+	 */
+	public long nextBits() {
+		if ( keyTick != context.tick || keySeedCount != context.seedCount )
+			rekey();
+		return mix( key + ( ++counter ) * golden );
+	}
+
+	/**
+	 * rekey
+	 *
+	 * works out the key of the stream from the seed of the run, its purpose, its id and the tick, and starts
+	 * the counter over
+	 */
+	public void rekey() {
+		long h = mix( context.runSeed + golden );
+		h = mix( h ^ ( purpose + 1 ) * golden );
+		h = mix( h ^ id * golden );
+		key = mix( h ^ context.tick * golden );
+		counter = 0;
+		keyTick = context.tick;
+		keySeedCount = context.seedCount;
+	}
+
+	/**
+	 * mix
+	 *
+	 * the finalizer of SplitMix64, every bit of the input changes about half of the bits of the output
+	 */
+	public static long mix( long z ) {
+		z = ( z ^ ( z >>> 30 ) ) * 0xBF58476D1CE4E5B9L;
+		z = ( z ^ ( z >>> 27 ) ) * 0x94D049BB133111EBL;
+		return z ^ ( z >>> 31 );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public int getPurpose() {
+		return purpose;
+	}
+	public long getID() {
+		return id;
+	}
+}
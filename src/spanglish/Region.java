@@ -2,20 +2,32 @@ package spanglish;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.Random;
 
 public class Region {
 	//////////////////////// CLASS VARIABLES
 	
-	// sets the Random class
-	public static Random rng = new Random();
+	// Regions with more cells than this, and every Region of a sparse world, do not keep arrays of their free
+	// cells with a place for every cell of the Region, they only keep the places that differ from how the
+	// arrays started, see the CellMap class. the free cells are the same either way, so people are placed in
+	// the same cells in sparse and dense worlds and in Regions of any size
+	public static int maxIndexedArea = 1 << 20;
 	
-	// sets the grid that the Region is associated with
-	public static TorusWorld grid;
+	// spreads the three bits of rowBits to bits 0, 3 and 6, see the getDirectionMask method
+	public static final int[] rowSpread = { 0, 1, 8, 9, 64, 65, 72, 73 };
 	
 	
 	//////////////////////// INSTANCE VARIABLES
 	
+	// the run the Region belongs to, whose random numbers it uses, see the RandomStream class. placing a Person
+	// uses their own
+	public SimulationContext context;
+	
+	// the grid that the Region is associated with, the world of its run
+	public TorusWorld grid;
+	
 	// Coordinates containing region
 	public int xMin;
 	public int xMax;
@@ -29,15 +41,44 @@ public class Region {
 	// the size of the TorusWorld that the Region is associated with
 	public int xSize, ySize;
 	
+	// the number of grid cells in the Region that hold a Person, kept up to date by the grid
+	// see the putObjectAt method in the GridWorld class for details
+	public int numOccupants;
+	// the people standing in the Region, in the order they entered it
+	public LinkedHashSet<Person> occupants = new LinkedHashSet<Person>();
+	
+	// for every column of the Region and the ring of cells around it, the steps dx of -1, 0 and 1 that end up
+	// in a column of the Region, bit dx + 1 set if it does, and the same for every row. columnBits starts at
+	// column xMin - 1 and has boxWidth entries, rowBits starts at row yMin - 1 and has boxHeight entries. no
+	// move from any cell outside of that box ends up inside. see the getDirectionMask method
+	public int[] columnBits, rowBits;
+	public int boxWidth, boxHeight;
+	
+	// the cells of the Region that are in the grid and hold nobody, as indexed sets so one of them can be
+	// picked at random right away. the first numFree places of freeCells hold the free cells, as
+	// ( y - yMin ) * width + ( x - xMin ), and freePlace has the place of every cell of the Region in
+	// freeCells, or -1 if it is not free. see the randomFreeCell method. both are null for Regions with
+	// more than maxIndexedArea cells and in sparse worlds, those keep movedCells and movedPlaces instead
+	public int[] freeCells;
+	public int[] freePlace;
+	// the places of freeCells and the cells of freePlace that differ from how they started, where every cell
+	// of the Region that is in the grid is free and in the place of the same number. see the freeCellAt and
+	// placeOf methods
+	public CellMap movedCells, movedPlaces;
+	public int numFree;
+	
 	
 	////////////////////////// Constructors
 	
 	/**
-	 * Main Constructor. takes in the x and y range of the Region
+	 * Main Constructor. takes in the run, whose world must be made first, and the x and y range of the Region
 	 */
-	public Region(int x1, int x2, int y1, int y2 ) {
+	public Region( SimulationContext aContext, int x1, int x2, int y1, int y2 ) {
 		
-		// records the size of the grid that the Region class is associated with
+		context = aContext;
+		grid = context.world;
+		
+		// records the size of the grid that the Region is associated with
 		xSize = grid.getSizeX();
 		ySize = grid.getSizeY();
 		
@@ -60,19 +101,29 @@ public class Region {
 		// calculate the actual size of the Region
 		width = xMax - xMin +1;
 		height = yMax - yMin +1;
+		
+		// work out the legal moves from every cell once, so they never have to be searched for
+		computeDirectionMasks();
+		
+		// start with every cell free, the grid takes out the ones that are occupied
+		initFreeCells();
+		
+		// have the grid tell the Region whenever somebody enters or leaves it
+		grid.addRegion( this );
 	}
 	
 	
 	/**
 	 * getRandomPoint
 	 * 
-	 * returns a random Point that is within the Region
+	 * returns a random Point that is within the Region, drawn from the input random numbers, those of the Person
+	 * it is for
 	 */
-	public Point getRandomPoint() {
+	public Point getRandomPoint( Random random ) {
 		
 		// get a random x and y coordinate within the Region
-		int x = rng.nextInt( width ) + xMin;
-		int y = rng.nextInt( height ) + yMin;
+		int x = random.nextInt( width ) + xMin;
+		int y = random.nextInt( height ) + yMin;
 		
 		// Construct a Point object with the specified coordinates
 		Point p = new Point( x, y );
@@ -131,26 +182,74 @@ public class Region {
 			return true;
 	}
 	
+	/**
+	 * computeDirectionMasks
+	 * 
+	 * fills in columnBits and rowBits by checking, for every column and row of the Region and the ring around
+	 * it, which of the three torus wrapped columns and rows around it are inside the Region
+	 */
+	public void computeDirectionMasks() {
+		
+		boxWidth = width + 2;
+		boxHeight = height + 2;
+		columnBits = new int[boxWidth];
+		rowBits = new int[boxHeight];
+		for ( int bx = 0 ; bx < boxWidth ; ++bx ) {
+			int x = grid.xnorm( xMin - 1 + bx );
+			for ( int dx = -1 ; dx <= 1 ; ++dx ) {
+				int nx = grid.xnorm( x + dx );
+				if ( nx >= xMin && nx <= xMax )
+					columnBits[bx] |= 1 << ( dx + 1 );
+			}
+		}
+		for ( int by = 0 ; by < boxHeight ; ++by ) {
+			int y = grid.ynorm( yMin - 1 + by );
+			for ( int dy = -1 ; dy <= 1 ; ++dy ) {
+				int ny = grid.ynorm( y + dy );
+				if ( ny >= yMin && ny <= yMax )
+					rowBits[by] |= 1 << ( dy + 1 );
+			}
+		}
+	}
+	
+	/**
+	 * getDirectionMask
+	 * 
+	 * returns the moves from the cell ( x, y ) that end up inside the Region, bit d set if move d of the
+	 * GridWorld's directionX and directionY does. a move ends up inside if both its column and its row do
+	 */
+	public int getDirectionMask( int x, int y ) {
+		
+		// find the cell in the box, the box can reach across the edges of the torus
+		int bx = x - xMin + 1;
+		if ( bx < 0 )
+			bx += xSize;
+		else if ( bx >= boxWidth )
+			bx -= xSize;
+		int by = y - yMin + 1;
+		if ( by < 0 )
+			by += ySize;
+		else if ( by >= boxHeight )
+			by -= ySize;
+		
+		// return 0 if the cell is not in the box
+		if ( bx < 0 || bx >= boxWidth || by < 0 || by >= boxHeight )
+			return 0;
+		
+		// the three column bits are repeated in the group of every row that is inside
+		return columnBits[bx] * rowSpread[rowBits[by]];
+	}
+	
 	/**
 	 * getObjectsInRegion
 	 * 
-	 * returns an Person ArrayList with all of the people that are in the region
+	 * returns an Person ArrayList with all of the people that are in the region, in the order they entered it
 	 */
 	
 	public ArrayList<Person> getPeopleInRegion() {
 		
-		// Initialize point array
-		ArrayList<Person> personArray = new ArrayList<Person>();
-		
-		// iterate through all of the grid points
-		for ( int i = xMin ; i <= xMax ; ++i ) {
-			for ( int j = yMin ; j <= yMax ; ++j ) {
-				// if there is a Person at the specified location, then add it to personArray
-				if ( grid.getPersonAt( i, j ) != null)
-					personArray.add( grid.getPersonAt( i, j ) );
-			}
-		}
-		return personArray;
+		// copy the occupants, so the caller can't change them
+		return new ArrayList<Person>( occupants );
 	}
 	
 	/**
@@ -162,30 +261,332 @@ public class Region {
 	public boolean isFull() {
 		
 		// if there are more than ( height - 3) * ( width - 3 ) people in the region, then return true
-		if ( getPeopleInRegion().size() >= ( height - 3) * ( width - 3 ) )
+		if ( numOccupants >= ( height - 3) * ( width - 3 ) )
 			return true;
 		// otherwise, return false
 		else
 			return false;
 	}
 	
+	/**
+	 * personEntered
+	 * 
+	 * called by the grid when a Person is put into one of the Region's cells
+	 */
+	public void personEntered( Person p, int x, int y ) {
+		++numOccupants;
+		occupants.add( p );
+		takeCell( ( y - yMin ) * width + ( x - xMin ) );
+	}
+	
+	/**
+	 * personLeft
+	 * 
+	 * called by the grid when a Person is taken out of one of the Region's cells
+	 */
+	public void personLeft( Person p, int x, int y ) {
+		--numOccupants;
+		occupants.remove( p );
+		freeCell( ( y - yMin ) * width + ( x - xMin ) );
+	}
+	
 	
 	////////////////////////////////////////////////////////////////////////////////////////
-	// GETTERS AND SETTERS
+	// Free Cell Methods
 	////////////////////////////////////////////////////////////////////////////////////////
 	
+	/**
+	 * initFreeCells
+	 * 
+	 * makes every cell of the Region that is inside the grid free
+	 */
+	public void initFreeCells() {
+		
+		// big Regions and those of sparse worlds start with nothing moved, see the freeCellAt method
+		if ( width * height > maxIndexedArea || grid.sparse ) {
+			freeCells = null;
+			freePlace = null;
+			movedCells = new CellMap();
+			movedPlaces = new CellMap();
+			numFree = width * ( Math.min( yMax, ySize - 1 ) - yMin + 1 );
+			return;
+		}
+		
+		freeCells = new int[width * height];
+		freePlace = new int[width * height];
+		numFree = 0;
+		
+		for ( int cell = 0 ; cell < width * height ; ++cell ) {
+			// yMax can be one past the bottom of the grid, nobody can ever stand in those cells
+			if ( cell / width + yMin >= ySize ) {
+				freePlace[cell] = -1;
+				continue;
+			}
+			freePlace[cell] = numFree;
+			freeCells[numFree] = cell;
+			++numFree;
+		}
+	}
 	
-	public static Random getRng() {
-		return rng;
+	/**
+	 * freeCellAt
+	 * 
+	 * returns the cell in the input place of freeCells. the cells in the grid come before those past the
+	 * bottom of it, so every place starts with the cell of the same number
+	 */
+	public int freeCellAt( int place ) {
+		if ( freeCells != null )
+			return freeCells[place];
+		return movedCells.get( place, place );
 	}
-	public static void setRng(Random rng) {
-		Region.rng = rng;
+	
+	/**
+	 * placeOf
+	 * 
+	 * returns the place of the input cell in freeCells, or -1 if it is not free
+	 */
+	public int placeOf( int cell ) {
+		if ( freePlace != null )
+			return freePlace[cell];
+		return movedPlaces.get( cell, ( cell / width + yMin >= ySize ) ? -1 : cell );
 	}
-	public static GridWorld getGrid() {
-		return grid;
+	
+	/**
+	 * setFreeCell
+	 * 
+	 * puts the input cell in the input place of freeCells
+	 */
+	protected void setFreeCell( int place, int cell ) {
+		if ( freeCells != null )
+			freeCells[place] = cell;
+		else
+			movedCells.put( place, cell, place );
 	}
-	public static void setGrid(TorusWorld grid) {
-		Region.grid = grid;
+	
+	/**
+	 * setPlace
+	 * 
+	 * sets the place of the input cell in freeCells, -1 if it is not free
+	 */
+	protected void setPlace( int cell, int place ) {
+		if ( freePlace != null )
+			freePlace[cell] = place;
+		else
+			movedPlaces.put( cell, place, ( cell / width + yMin >= ySize ) ? -1 : cell );
+	}
+	
+	/**
+	 * takeCell
+	 * 
+	 * takes a cell out of the free cells, by moving the last free cell into its place
+	 */
+	public void takeCell( int cell ) {
+		
+		// return if the cell is not free
+		int place = placeOf( cell );
+		if ( place < 0 )
+			return;
+		
+		--numFree;
+		int last = freeCellAt( numFree );
+		setFreeCell( place, last );
+		setPlace( last, place );
+		setPlace( cell, -1 );
+	}
+	
+	/**
+	 * freeCell
+	 * 
+	 * puts a cell back into the free cells, after the last one
+	 */
+	public void freeCell( int cell ) {
+		
+		// return if the cell is already free or is outside of the grid
+		if ( placeOf( cell ) >= 0 || cell / width + yMin >= ySize )
+			return;
+		
+		setPlace( cell, numFree );
+		setFreeCell( numFree, cell );
+		++numFree;
+	}
+	
+	/**
+	 * randomFreeCell
+	 * 
+	 * returns a random free cell of the Region as y * xSize + x, each with the same probability,
+	 * or -1 if there is none. draws from the input random numbers, those of the Person being placed
+	 */
+	public int randomFreeCell( Random random ) {
+		
+		// return -1 if every cell is taken
+		if ( numFree == 0 )
+			return -1;
+		
+		int cell = freeCellAt( random.nextInt( numFree ) );
+		return ( cell / width + yMin ) * xSize + cell % width + xMin;
+	}
+	
+	/**
+	 * getFreeShare
+	 * 
+	 * returns the share of the Region's cells that are free. out of every random point that getRandomPoint
+	 * returns, this share is free
+	 */
+	public double getFreeShare() {
+		return (double)numFree / ( width * height );
+	}
+	
+	
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Cell Map
+	////////////////////////////////////////////////////////////////////////////////////////
+	
+	/**
+	 * a map from numbers to numbers, that only holds the numbers whose value differs from the one they start
+	 * with. an open addressing hash table where empty places have the key -1. a Region keeps two, so it only
+	 * takes room for the cells that somebody entered or left, not for every cell of the Region
+	 */
+	public static class CellMap {
+		
+		// the places of the table, and the number of keys in it
+		public int[]			keys;
+		public int[]			values;
+		public int				size = 0;
+		
+		public CellMap() {
+			keys = new int[4];
+			values = new int[4];
+			Arrays.fill( keys, -1 );
+		}
+		
+		/**
+		 * get
+		 * 
+		 * returns the value of the input key, or the input start value if the key is not in the map
+		 */
+		public int get( int key, int start ) {
+			int mask = keys.length - 1;
+			for ( int place = hash( key ) & mask ; keys[place] >= 0 ; place = ( place + 1 ) & mask ) {
+				if ( keys[place] == key )
+					return values[place];
+			}
+			return start;
+		}
+		
+		/**
+		 * put
+		 * 
+		 * sets the value of the input key. if the value is the same as the input start value, the key is taken out
+		 * of the map instead
+		 */
+		public void put( int key, int value, int start ) {
+			
+			if ( value == start ) {
+				remove( key );
+				return;
+			}
+			
+			insert( key, value );
+		}
+		
+		/**
+		 * insert
+		 * 
+		 * sets the value of the input key, whatever the value is
+		 */
+		protected void insert( int key, int value ) {
+			
+			// change the value if the key is already in the map
+			int mask = keys.length - 1;
+			int place = hash( key ) & mask;
+			for ( ; keys[place] >= 0 ; place = ( place + 1 ) & mask ) {
+				if ( keys[place] == key ) {
+					values[place] = value;
+					return;
+				}
+			}
+			
+			// otherwise keep the table at most half full before adding it
+			if ( 2 * ( size + 1 ) > keys.length ) {
+				grow();
+				insert( key, value );
+				return;
+			}
+			keys[place] = key;
+			values[place] = value;
+			++size;
+		}
+		
+		/**
+		 * remove
+		 * 
+		 * takes the input key out of the map, and puts the keys after it that were moved on past its place back in,
+		 * so that every key can still be found from the place its hash picks
+		 */
+		public void remove( int key ) {
+			
+			int mask = keys.length - 1;
+			int place = hash( key ) & mask;
+			while ( keys[place] != key ) {
+				if ( keys[place] < 0 )
+					return;
+				place = ( place + 1 ) & mask;
+			}
+			keys[place] = -1;
+			--size;
+			
+			for ( place = ( place + 1 ) & mask ; keys[place] >= 0 ; place = ( place + 1 ) & mask ) {
+				int k = keys[place];
+				keys[place] = -1;
+				--size;
+				insert( k, values[place] );
+			}
+		}
+		
+		/**
+		 * grow
+		 * 
+		 * doubles the length of the table and puts every key back in
+		 */
+		protected void grow() {
+			int[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = new int[oldKeys.length * 2];
+			values = new int[oldKeys.length * 2];
+			Arrays.fill( keys, -1 );
+			size = 0;
+			for ( int p = 0 ; p < oldKeys.length ; ++p ) {
+				if ( oldKeys[p] >= 0 )
+					insert( oldKeys[p], oldValues[p] );
+			}
+		}
+		
+		/**
+		 * hash
+		 * 
+		 * spreads the bits of a key, cells next to each other have keys next to each other
+		 */
+		protected static int hash( int key ) {
+			int h = key * 0x9E3779B9;
+			return h ^ ( h >>> 16 );
+		}
+		
+		public int getSize() {
+			return size;
+		}
+	}
+	
+	
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+	
+	
+	public SimulationContext getContext() {
+		return context;
+	}
+	public GridWorld getGrid() {
+		return grid;
 	}
 	public int getxMin() {
 		return xMin;
@@ -220,6 +621,12 @@ public class Region {
 	public int getHeight() {
 		return height;
 	}
+	public int getNumOccupants() {
+		return numOccupants;
+	}
+	public int getNumFree() {
+		return numFree;
+	}
 	public void setHeight(int height) {
 		this.height = height;
 	}
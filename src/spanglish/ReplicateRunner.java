@@ -0,0 +1,290 @@
+package spanglish;
+
+/**
+ * ReplicateRunner.java
+ *
+ * Runs several replicates of the Model at the same time, one per thread, and writes the statistics of their
+ * USAS series to one file at the end. Every replicate is a Model of its own with its own SimulationContext,
+ * built from the same command line arguments as a BatchModel run, and seeded with the seed of the run plus
+ * its number, so replicate r is the same no matter how many threads there are. A replicate runs
+ * replicateLength ticks, and every sampleInterval ticks, starting with the population it was built with, the
+ * mean number of USAS items of its Latinos (see the meanUSASOfLatinos method of the Model class) is sampled.
+ * Every replicate is built by the thread that runs it and let go of once it is done, so only the replicates
+ * that are running are kept. Their samples are kept until every replicate is done, and are then added to the
+ * RunningStats of their ticks in the order of the replicates, since the quantiles and the sums of the
+ * RunningStats depend on the order the samples come in. A replicate that fills up a District stops there, and
+ * the ticks after it have fewer replicates. The SweepRunner runs its replicates the same way, see the newModel
+ * and runModel methods.
+ *
+ * The replicates have no Repast schedule, the runner counts their ticks itself, see the runnerTick variable
+ * of the Model class. They write no report files, and any changes to parameters at later ticks that are
+ * read from the input file are not made
+ */
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+
+public class ReplicateRunner {
+
+	//////////////////////// CLASS VARIABLES
+
+	// the quantiles of every point of the series that are kept
+	public static final double[]		quantileProbabilities = { 0.05, 0.5, 0.95 };
+
+	// models are set up and seeded one at a time, because setting the seed of a Model also sets the seed of
+	// the one Repast random number generator. shared with the SweepRunner
+	public static final Object			setupLock = new Object();
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the command line arguments every replicate is built from
+	public String[]						args;
+	// the number of replicates, the ticks each one runs, how often they are sampled and on how many threads
+	public int							numReplicates;
+	public int							replicateLength;
+	public int							sampleInterval;
+	public int							numThreads;
+	// the seed of the first replicate, the others count up from it
+	public long							firstSeed;
+
+	// the tick every replicate stopped at, and its samples, see the runModel method
+	public int[]						lastTicks;
+	public double[][]					samples;
+	// the statistics of every point of the series, the i-th one is tick i * sampleInterval
+	public ArrayList<RunningStats>		series;
+
+	// where the statistics are written
+	public String						outputDirName;
+	public String						fileName;
+	public int							rDebug;
+
+
+	////////////////////////////////////////////////////////////////////
+	// main entry point
+	public static void main( String[] args ) {
+
+		ReplicateRunner runner = new ReplicateRunner( args );
+		runner.runAll();
+		runner.writeResults();
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * reads the parameters of the replicates from the command line arguments. the replicates themselves are
+	 * built when they run, see the runReplicate method
+	 */
+	public ReplicateRunner( String[] arguments ) {
+
+		args = arguments;
+
+		// a model built from the arguments tells the runner what to do
+		Model first = newModel( args );
+		numReplicates = Math.max( 1, first.getNumReplicates() );
+		replicateLength = first.getReplicateLength();
+		sampleInterval = Math.max( 1, first.getSampleInterval() );
+		numThreads = ( first.getReplicateThreads() > 0 ) ? first.getReplicateThreads()
+				: Runtime.getRuntime().availableProcessors();
+		numThreads = Math.min( numThreads, numReplicates );
+		outputDirName = first.getOutputDirName();
+		fileName = first.getReportFileName() + ".replicates";
+		rDebug = first.getRDebug();
+
+		// the same as the buildModelStart method of the ModelParameters class, a seed that was not set is the time
+		firstSeed = first.getSeed();
+		if ( firstSeed == 1234567 || firstSeed == 0 )
+			firstSeed = System.currentTimeMillis();
+
+		lastTicks = new int[numReplicates];
+		samples = new double[numReplicates][];
+
+		// one point for tick zero and every sampleInterval ticks after it
+		series = new ArrayList<RunningStats>();
+		for ( int t = 0 ; t <= replicateLength ; t += sampleInterval )
+			series.add( new RunningStats( quantileProbabilities ) );
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * newModel
+	 *
+	 * makes a Model and sets its parameters from the input command line arguments, the same way a BatchModel does
+	 */
+	public static Model newModel( String[] arguments ) {
+
+		Model model = new Model();
+		model.setModelType( "BatchModel" );
+		model.setCommandLineArgs( arguments );
+		model.setup();
+
+		return model;
+	}
+
+	/**
+	 * runModel
+	 *
+	 * builds the input Model, which must be set up and seeded, and runs it length ticks or until it is
+	 * overpopulated. the mean USAS of its Latinos at tick i * interval is put in samples[i], starting with the
+	 * population it was built with, the samples after it stopped are left as they are
+	 * returns the last tick it ran
+	 */
+	public static int runModel( Model model, int length, int interval, double[] samples ) {
+
+		// the population is made in tick zero
+		model.runnerTick = 0;
+		model.userBuildModel();
+		samples[0] = model.meanUSASOfLatinos();
+
+		int t = 1;
+		for ( ; t <= length ; ++t ) {
+			model.runnerTick = t;
+			model.step();
+			if ( t % interval == 0 )
+				samples[t / interval] = model.meanUSASOfLatinos();
+
+			// stop where a BatchModel run would halt, see the haltIfOverPopulated method of the Model class
+			if ( model.layout.isOverPopulated() )
+				break;
+		}
+
+		// let go of the threads of the model
+		if ( model.workers != null )
+			model.workers.shutdown();
+
+		return Math.min( t, length );
+	}
+
+	/**
+	 * runAll
+	 *
+	 * runs every replicate on numThreads threads, waits until they are all done, and adds their samples to
+	 * the statistics
+	 */
+	public void runAll() {
+
+		if ( rDebug > 0 )
+			System.out.printf( "\n==> ReplicateRunner: %d replicates of %d ticks on %d threads, seeds %d to %d\n",
+					numReplicates, replicateLength, numThreads, firstSeed, firstSeed + numReplicates - 1 );
+
+		ArrayList<Callable<Object>> tasks = new ArrayList<Callable<Object>>( numReplicates );
+		for ( int r = 0 ; r < numReplicates ; ++r )
+			tasks.add( new ReplicateTask( r ) );
+
+		WorkerPool pool = new WorkerPool( numThreads );
+		try {
+			pool.runAll( tasks );
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		// in the order of the replicates, so the statistics are the same however the threads ran
+		for ( int r = 0 ; r < numReplicates ; ++r ) {
+			for ( int i = 0 ; i <= lastTicks[r] / sampleInterval ; ++i )
+				series.get( i ).add( samples[r][i] );
+			samples[r] = null;
+		}
+	}
+
+	/**
+	 * runReplicate
+	 *
+	 * sets up and seeds replicate r, runs it replicateLength ticks or until it is overpopulated, and samples it
+	 * every sampleInterval ticks. the samples are added to the statistics by the runAll method
+	 */
+	public void runReplicate( int r ) {
+
+		Model model;
+		synchronized ( setupLock ) {
+			model = newModel( args );
+			model.setSeed( firstSeed + r );
+		}
+
+		// run the replicate, which is let go of once this returns
+		samples[r] = new double[series.size()];
+		lastTicks[r] = runModel( model, replicateLength, sampleInterval, samples[r] );
+
+		if ( rDebug > 0 )
+			System.out.printf( "==> ReplicateRunner: replicate %d with seed %d done at tick %d\n", r,
+					firstSeed + r, lastTicks[r] );
+	}
+
+	/**
+	 * writeResults
+	 *
+	 * writes the statistics of every point of the series to the file reportFileName.replicates, one line
+	 * per point
+	 */
+	public void writeResults() {
+
+		PrintWriter out = IOUtils.openFileToWrite( outputDirName, fileName, "r" );
+		if ( out == null ) {
+			System.err.printf( "\n\nReplicateRunner could not open %s in %s\n\n", fileName, outputDirName );
+			return;
+		}
+
+		out.printf( "# mean USAS of Latinos over %d replicates of %d ticks, sampled every %d ticks\n",
+				numReplicates, replicateLength, sampleInterval );
+		out.printf( "# seeds %d to %d\n", firstSeed, firstSeed + numReplicates - 1 );
+		for ( int r = 0 ; r < numReplicates ; ++r ) {
+			if ( lastTicks[r] < replicateLength )
+				out.printf( "# replicate %d was overpopulated at tick %d\n", r, lastTicks[r] );
+		}
+		out.printf( "# tick replicates mean sd min" );
+		for ( double p : quantileProbabilities )
+			out.printf( " q%02.0f", p * 100 );
+		out.printf( " max\n" );
+
+		for ( int i = 0 ; i < series.size() ; ++i ) {
+			RunningStats s = series.get( i );
+			out.printf( "%d %d %f %f %f", i * sampleInterval, s.getCount(), s.getMean(), s.standardDeviation(),
+					s.getMin() );
+			for ( int q = 0 ; q < quantileProbabilities.length ; ++q )
+				out.printf( " %f", s.quantile( q ) );
+			out.printf( " %f\n", s.getMax() );
+		}
+
+		IOUtils.closePWFile( out );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Tasks
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * runs one replicate, see the runReplicate method
+	 */
+	protected class ReplicateTask implements Callable<Object> {
+
+		// the replicate to run
+		protected int replicate;
+
+		public ReplicateTask( int r ) {
+			replicate = r;
+		}
+
+		public Object call() {
+			runReplicate( replicate );
+			return null;
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public int getNumReplicates() {
+		return numReplicates;
+	}
+	public RunningStats getStats( int i ) {
+		return series.get( i );
+	}
+}
@@ -0,0 +1,246 @@
+package spanglish;
+
+/**
+ * RunningStats.java
+ *
+ * The count, mean, variance, minimum, maximum and a few quantiles of a series of numbers that are added one at
+ * a time and never kept, used by the ReplicateRunner for every point of the USAS series of its replicates.
+ * The mean and variance are kept with Welford's method, which does not lose precision the way summing the
+ * squares does. The quantiles are estimated with the P-squared method of Jain and Chlamtac, which keeps five
+ * markers for every quantile and moves them toward where the quantile should be as numbers are added, see
+ * the QuantileEstimator class below. The estimates depend a little on the order the numbers come in.
+ * Numbers can be added from several threads at once
+ */
+
+import java.util.Arrays;
+
+public class RunningStats {
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the number of numbers added, their mean and the sum of the squares of their distances from the mean
+	public long						count = 0;
+	public double					mean = 0;
+	public double					sumSquares = 0;
+	// the smallest and largest numbers added
+	public double					min = Double.POSITIVE_INFINITY;
+	public double					max = Double.NEGATIVE_INFINITY;
+
+	// one estimator for every quantile that is kept
+	public QuantileEstimator[]		quantiles;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * keeps the input quantiles, each a probability between 0 and 1
+	 */
+	public RunningStats( double[] probabilities ) {
+		quantiles = new QuantileEstimator[probabilities.length];
+		for ( int i = 0 ; i < probabilities.length ; ++i )
+			quantiles[i] = new QuantileEstimator( probabilities[i] );
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * add
+	 *
+	 * adds the input number to every statistic
+	 */
+	public synchronized void add( double x ) {
+
+		// Welford's method
+		++count;
+		double delta = x - mean;
+		mean += delta / count;
+		sumSquares += delta * ( x - mean );
+
+		min = Math.min( min, x );
+		max = Math.max( max, x );
+
+		for ( QuantileEstimator q : quantiles )
+			q.add( x );
+	}
+
+	/**
+	 * variance
+	 *
+	 * returns the sample variance of the numbers added, zero until there are two of them
+	 */
+	public synchronized double variance() {
+		if ( count < 2 )
+			return 0;
+		return sumSquares / ( count - 1 );
+	}
+
+	/**
+	 * standardDeviation
+	 *
+	 * returns the square root of the variance
+	 */
+	public double standardDeviation() {
+		return Math.sqrt( variance() );
+	}
+
+	/**
+	 * quantile
+	 *
+	 * returns the estimate of the i-th quantile kept, in the order they were given to the constructor
+	 */
+	public synchronized double quantile( int i ) {
+		return quantiles[i].estimate();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Quantile Estimator
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * estimates one quantile with the P-squared method. The first five numbers are kept as they are. After
+	 * that there are five markers, the minimum, the maximum, the quantile and two halfway between it and the
+	 * ends. Every marker has a height, its estimate, and a position, the number of numbers at or below it.
+	 * Whenever a marker drifts a whole position away from where it should be, its height is moved along the
+	 * parabola through it and its neighbors, or along the line to a neighbor if the parabola would pass it
+	 */
+	public static class QuantileEstimator {
+
+		// the quantile estimated
+		protected double	p;
+		// the heights and positions of the markers, and where the markers should be and how far that moves
+		// with every number
+		protected double[]	heights = new double[5];
+		protected int[]		positions = new int[5];
+		protected double[]	desired = new double[5];
+		protected double[]	increments = new double[5];
+		// the number of numbers added
+		protected int		count = 0;
+
+		public QuantileEstimator( double probability ) {
+			p = probability;
+			increments[0] = 0;
+			increments[1] = p / 2;
+			increments[2] = p;
+			increments[3] = ( 1 + p ) / 2;
+			increments[4] = 1;
+		}
+
+		/**
+		 * add
+		 *
+		 * adds the input number and moves the markers
+		 */
+		public void add( double x ) {
+
+			// keep the first five numbers, sorted they become the first markers
+			if ( count < 5 ) {
+				heights[count++] = x;
+				if ( count == 5 ) {
+					Arrays.sort( heights );
+					for ( int i = 0 ; i < 5 ; ++i )
+						positions[i] = i + 1;
+					desired[0] = 1;
+					desired[1] = 1 + 2 * p;
+					desired[2] = 1 + 4 * p;
+					desired[3] = 3 + 2 * p;
+					desired[4] = 5;
+				}
+				return;
+			}
+			++count;
+
+			// find the cell the number falls in, stretching the ends if it is past them
+			int k;
+			if ( x < heights[0] ) {
+				heights[0] = x;
+				k = 0;
+			}
+			else if ( x >= heights[4] ) {
+				heights[4] = x;
+				k = 3;
+			}
+			else {
+				k = 0;
+				while ( x >= heights[k + 1] )
+					++k;
+			}
+
+			// every marker above the cell moves up one position
+			for ( int i = k + 1 ; i < 5 ; ++i )
+				++positions[i];
+			for ( int i = 0 ; i < 5 ; ++i )
+				desired[i] += increments[i];
+
+			// move the three middle markers that drifted too far
+			for ( int i = 1 ; i < 4 ; ++i ) {
+				double d = desired[i] - positions[i];
+				if ( ( d >= 1 && positions[i + 1] - positions[i] > 1 )
+						|| ( d <= -1 && positions[i - 1] - positions[i] < -1 ) ) {
+					int s = ( d > 0 ) ? 1 : -1;
+					double h = parabolic( i, s );
+					if ( heights[i - 1] < h && h < heights[i + 1] )
+						heights[i] = h;
+					else
+						heights[i] += s * ( heights[i + s] - heights[i] ) / ( positions[i + s] - positions[i] );
+					positions[i] += s;
+				}
+			}
+		}
+
+		/**
+		 * parabolic
+		 *
+		 * returns the height of marker i moved s positions along the parabola through it and its neighbors
+		 */
+		protected double parabolic( int i, int s ) {
+			double below = positions[i] - positions[i - 1];
+			double above = positions[i + 1] - positions[i];
+			return heights[i] + s / (double)( positions[i + 1] - positions[i - 1] )
+					* ( ( below + s ) * ( heights[i + 1] - heights[i] ) / above
+						+ ( above - s ) * ( heights[i] - heights[i - 1] ) / below );
+		}
+
+		/**
+		 * estimate
+		 *
+		 * returns the height of the middle marker, or while there are fewer than five numbers the quantile of
+		 * those numbers, NaN if there are none
+		 */
+		public double estimate() {
+			if ( count == 0 )
+				return Double.NaN;
+			if ( count >= 5 )
+				return heights[2];
+
+			// interpolate between the numbers kept so far
+			double[] sorted = Arrays.copyOf( heights, count );
+			Arrays.sort( sorted );
+			double r = p * ( count - 1 );
+			int lo = (int)Math.floor( r );
+			int hi = Math.min( lo + 1, count - 1 );
+			return sorted[lo] + ( r - lo ) * ( sorted[hi] - sorted[lo] );
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public synchronized long getCount() {
+		return count;
+	}
+	public synchronized double getMean() {
+		return mean;
+	}
+	public synchronized double getMin() {
+		return min;
+	}
+	public synchronized double getMax() {
+		return max;
+	}
+}
@@ -0,0 +1,397 @@
+package spanglish;
+
+/**
+ * SharedLexicon.java
+ *
+ * A subclass of PackedLexicon where the array of codes is shared between every lexicon with the same items.
+ * The arrays are never written to. Adding, removing or changing an item writes the new codes into a scratch
+ * array of the thread and then looks them up in a table of every array that is in use (hash-consing), so if
+ * another lexicon already has exactly those items, both lexicons end up with the same array, and a new array
+ * is only made for items nobody has yet. The table only keeps weak references to the arrays, so an array is
+ * let go of once no lexicon uses it any more, and it is split into segments with a lock each, so lexicons
+ * on different threads rarely wait for each other, see the Table class. Since most people in a population end
+ * up speaking one of a few lexicons, there are only a few arrays no matter how many people there are, and
+ * a lexicon that nobody changes any more, like that of a Teacher, can be read by anyone at any time.
+ * Used when the lexiconType of the SimulationContext is set to sharedLexicon
+ */
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+public class SharedLexicon extends PackedLexicon {
+
+	//////////////////////// CLASS VARIABLES
+
+	// the number of segments of a Table, a power of two
+	public static final int		numSegments = 16;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * creates an empty lexicon of the input run with room for one language
+	 */
+	public SharedLexicon( SimulationContext aContext ) {
+		super( aContext );
+		share();
+	}
+
+	/**
+	 * creates a lexicon with a single item. Used when a child is accumulating their first language or
+	 * someone is building their second language
+	 */
+	public SharedLexicon( SimulationContext aContext, int[] newItem ) {
+		super( aContext, newItem );
+		share();
+	}
+
+	/**
+	 * creates a lexicon with an ArrayList of items. Used when initializing a first language
+	 */
+	public SharedLexicon( SimulationContext aContext, java.util.ArrayList<int[]> newLang ) {
+		super( aContext, newLang );
+		share();
+	}
+
+	/**
+	 * creates a lexicon that takes the place of an already existing lexicon, see PackedLexicon for details
+	 */
+	public SharedLexicon( Lexicon lex, boolean isBilingual ) {
+		super( lex, isBilingual );
+		share();
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * toBiLexicon
+	 *
+	 * returns a bilingual shared lexicon that takes the place of this one
+	 */
+	@Override
+	public Lexicon toBiLexicon() {
+		return new SharedLexicon( this, true );
+	}
+
+	/**
+	 * copy
+	 *
+	 * returns a lexicon with the same items, which uses the same array of codes as this one
+	 */
+	@Override
+	public Lexicon copy() {
+
+		// start with an empty lexicon and give it the codes and counts of this one
+		SharedLexicon copy = new SharedLexicon( context );
+		copy.bilingual = bilingual;
+		copy.codes = codes;
+		copy.numItems = numItems;
+		copy.copyCountsFrom( this );
+
+		return copy;
+	}
+
+	/**
+	 * insertCode
+	 *
+	 * same as the insertCode method of PackedLexicon, but the codes go into the scratch array and are then shared
+	 */
+	@Override
+	protected void insertCode( int code ) {
+
+		// return if the code is invalid or there is no room
+		if ( code < 0 || numItems >= getMaxNumItems() )
+			return;
+
+		// copy every code with a smaller or equal sort key, then the new code, then the rest
+		int key = sortKey( code );
+		int[] newCodes = context.sharedTable.scratch( numItems + 1 );
+		int i = 0;
+		while ( i < numItems && sortKey( codes[i] ) <= key ) {
+			newCodes[i] = codes[i];
+			++i;
+		}
+		newCodes[i] = code;
+		for ( ; i < numItems ; ++i )
+			newCodes[i + 1] = codes[i];
+
+		codes = context.sharedTable.shared( newCodes, numItems + 1 );
+		++numItems;
+
+		codeAdded( code );
+	}
+
+	/**
+	 * removeCodeAt
+	 *
+	 * same as the removeCodeAt method of PackedLexicon, but the remaining codes go into the scratch array and are then
+	 * shared
+	 */
+	@Override
+	protected void removeCodeAt( int i ) {
+
+		int code = codes[i];
+
+		// copy every code except the one at i
+		int[] newCodes = context.sharedTable.scratch( numItems - 1 );
+		for ( int j = 0 ; j < i ; ++j )
+			newCodes[j] = codes[j];
+		for ( int j = i + 1 ; j < numItems ; ++j )
+			newCodes[j - 1] = codes[j];
+
+		codes = context.sharedTable.shared( newCodes, numItems - 1 );
+		--numItems;
+
+		codeRemoved( code );
+	}
+
+	/**
+	 * setCode
+	 *
+	 * same as the setCode method of PackedLexicon, but the changed codes go into the scratch array and are then shared
+	 */
+	@Override
+	protected void setCode( int i, int code ) {
+
+		int oldCode = codes[i];
+
+		// copy the codes and change the one at i
+		int[] newCodes = context.sharedTable.scratch( numItems );
+		System.arraycopy( codes, 0, newCodes, 0, numItems );
+		newCodes[i] = code;
+
+		codes = context.sharedTable.shared( newCodes, numItems );
+
+		codeRemoved( oldCode );
+		codeAdded( code );
+	}
+
+	/**
+	 * share
+	 *
+	 * swaps the codes that the PackedLexicon constructors made for their shared array
+	 */
+	protected void share() {
+		codes = context.sharedTable.shared( codes, numItems );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Table
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * the table of shared arrays of codes of one run. every SimulationContext has its own, so lexicons of
+	 * different runs never share arrays. the arrays are spread over numSegments segments by their hash, and
+	 * only one thread at a time looks up or adds arrays in a segment
+	 */
+	public static class Table {
+
+		// the segments, see the Segment class
+		public Segment[]				segments;
+		// the scratch array of every thread, see the scratch method
+		public ThreadLocal<int[]>		scratch = new ThreadLocal<int[]>();
+
+		public Table() {
+			segments = new Segment[numSegments];
+			for ( int s = 0 ; s < numSegments ; ++s )
+				segments[s] = new Segment();
+		}
+
+		/**
+		 * scratch
+		 *
+		 * returns an array of at least the input length that only the calling thread uses, to write codes into
+		 * before they are looked up with the shared method
+		 */
+		public int[] scratch( int length ) {
+			int[] codes = scratch.get();
+			if ( codes == null || codes.length < length ) {
+				codes = new int[Math.max( length, 16 )];
+				scratch.set( codes );
+			}
+			return codes;
+		}
+
+		/**
+		 * shared
+		 *
+		 * returns the array in the table with the same codes as the first length codes of the input. if there is
+		 * none, a copy of those codes is put in the table and returned, so the input array can be written to
+		 * again afterwards, but the returned one never
+		 */
+		public int[] shared( int[] newCodes, int length ) {
+			int hash = hash( newCodes, length );
+			// the bits of the hash spread out pick the segment, the low bits of the hash the place in it. the
+			// hashes of short arrays of small codes have no high bits
+			int spread = hash * 0x9E3779B9;
+			return segments[( spread >>> 24 ) & ( numSegments - 1 )].shared( newCodes, length, hash );
+		}
+
+		/**
+		 * clearTable
+		 *
+		 * empties the table, called from the Model class whenever a new population is made
+		 */
+		public void clearTable() {
+			for ( int s = 0 ; s < numSegments ; ++s )
+				segments[s].clear();
+		}
+
+		/**
+		 * hash
+		 *
+		 * returns the hash of the first length codes of the input, the same as Arrays.hashCode of an array
+		 * of just those codes
+		 */
+		public static int hash( int[] codes, int length ) {
+			int h = 1;
+			for ( int i = 0 ; i < length ; ++i )
+				h = 31 * h + codes[i];
+			return h;
+		}
+
+		public int getTableSize() {
+			int size = 0;
+			for ( int s = 0 ; s < numSegments ; ++s )
+				size += segments[s].getSize();
+			return size;
+		}
+	}
+
+	/**
+	 * one segment of a Table, a hash table of weak references to arrays, where the arrays with the same place
+	 * are chained. an array that no lexicon uses any more is cleared by the garbage collector and put in the
+	 * queue of the segment, and taken out of the chains the next time the segment is used
+	 */
+	public static class Segment {
+
+		// the chains of the segment, and the number of arrays in them
+		public Entry[]					chains = new Entry[64];
+		public int						size = 0;
+		// the entries whose arrays were let go of
+		public ReferenceQueue<int[]>	cleared = new ReferenceQueue<int[]>();
+
+		/**
+		 * shared
+		 *
+		 * same as the shared method of the Table, for the arrays of the segment. the hash is that of the codes
+		 */
+		public synchronized int[] shared( int[] newCodes, int length, int hash ) {
+
+			expunge();
+
+			// look for the array in the chain of its place
+			for ( Entry e = chains[hash & ( chains.length - 1 )] ; e != null ; e = e.next ) {
+				if ( e.hash != hash )
+					continue;
+				int[] codes = e.get();
+				if ( codes != null && codes.length == length && equal( codes, newCodes, length ) )
+					return codes;
+			}
+
+			// the array is new, so keep at most one array per place on average before adding it
+			if ( size + 1 > chains.length )
+				grow();
+
+			int[] codes = Arrays.copyOf( newCodes, length );
+			int place = hash & ( chains.length - 1 );
+			chains[place] = new Entry( codes, hash, chains[place], cleared );
+			++size;
+
+			return codes;
+		}
+
+		/**
+		 * expunge
+		 *
+		 * takes the entries whose arrays were let go of out of their chains
+		 */
+		protected void expunge() {
+			Entry gone;
+			while ( ( gone = (Entry)cleared.poll() ) != null ) {
+				int place = gone.hash & ( chains.length - 1 );
+				Entry previous = null;
+				for ( Entry e = chains[place] ; e != null ; e = e.next ) {
+					if ( e == gone ) {
+						if ( previous == null )
+							chains[place] = e.next;
+						else
+							previous.next = e.next;
+						--size;
+						break;
+					}
+					previous = e;
+				}
+			}
+		}
+
+		/**
+		 * grow
+		 *
+		 * doubles the number of chains and puts every entry back in
+		 */
+		protected void grow() {
+			Entry[] oldChains = chains;
+			chains = new Entry[oldChains.length * 2];
+			int mask = chains.length - 1;
+			for ( int p = 0 ; p < oldChains.length ; ++p ) {
+				Entry e = oldChains[p];
+				while ( e != null ) {
+					Entry next = e.next;
+					e.next = chains[e.hash & mask];
+					chains[e.hash & mask] = e;
+					e = next;
+				}
+			}
+		}
+
+		/**
+		 * clear
+		 *
+		 * empties the segment, the arrays that are already in use stay valid but are not shared with new lexicons
+		 */
+		public synchronized void clear() {
+			chains = new Entry[64];
+			size = 0;
+			cleared = new ReferenceQueue<int[]>();
+		}
+
+		/**
+		 * equal
+		 *
+		 * returns true if the first length codes of both arrays are the same
+		 */
+		protected static boolean equal( int[] a, int[] b, int length ) {
+			for ( int i = 0 ; i < length ; ++i ) {
+				if ( a[i] != b[i] )
+					return false;
+			}
+			return true;
+		}
+
+		public synchronized int getSize() {
+			return size;
+		}
+	}
+
+	/**
+	 * an array of a Segment, with its hash and the next entry in its chain
+	 */
+	public static class Entry extends WeakReference<int[]> {
+
+		public int			hash;
+		public Entry		next;
+
+		public Entry( int[] codes, int aHash, Entry aNext, ReferenceQueue<int[]> queue ) {
+			super( codes, queue );
+			hash = aHash;
+			next = aNext;
+		}
+	}
+}
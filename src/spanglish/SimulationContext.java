@@ -0,0 +1,282 @@
+package spanglish;
+
+/**
+ * SimulationContext.java
+ *
+ * Everything that belongs to one run of the model: the Model and its world and Districts, the parameters the
+ * people, the GeneticAlg and the lexicons read, the size of items and the one shared copy of every item, the
+ * table of the SharedLexicon class, and the seed and tick the streams of random numbers are worked out from.
+ * Every Person, Region, Lexicon, GeneticAlg and RandomStream holds the context of its run instead of reading
+ * class variables, so several Models can be run at the same time in one program, each on its own thread,
+ * without one of them changing what another one reads. Every Model has one, which its setContextParameters
+ * method fills in whenever a new population is made
+ */
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class SimulationContext {
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the model of the run, its world and the Districts laid over the world
+	public Model				model;
+	public TorusWorld			world;
+	public DistrictLayout		layout;
+
+	// the maximum number of items in a lexicon, and the number of elements in an item, the first being the index
+	public int					maxItems;
+	public int					numElements;
+	// which class Lexicon.newLexicon creates, see the Lexicon class
+	public int					lexiconType = Lexicon.listLexicon;
+
+	// the length of conversations, and whether it is random with numWordsHeard as the maximum
+	public int					numWordsHeard;
+	public int					randomWordFlow;
+	// the number of times an item must be heard before it is always accepted, see the GeneticAlg class
+	public int					threshold;
+	// the probabilities that a word heard by an adult is added to their first or second lexicon, or calls
+	// the GA on their lexicons
+	public double				adultProbL1;
+	public double				adultProbL2;
+	public double				adultProbGA;
+
+	// allows for unique ID numbers
+	public int					nextID = 1;
+	// the id of the stream of random numbers of the last Person made, see the RandomStream class
+	public long					nextStreamID = 0;
+
+	// the one shared copy of every possible item, indexed by its code. see the intern method for details
+	public int[][]				internedItems;
+	// the shared arrays of codes of the SharedLexicon class
+	public SharedLexicon.Table	sharedTable = new SharedLexicon.Table();
+
+	// the seed of the run and the current tick, every stream starts over when either of them changes
+	public long					runSeed = 0;
+	public long					tick = 0;
+	// counts the times the seed was set, so the streams also start over if it is set to the same seed again
+	public int					seedCount = 0;
+
+	// the random numbers of the Model, see the RandomStream class. the Regions and the Lexicons draw from those
+	// of the Person they are used for
+	public Random				modelRng;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * creates an empty context with its own streams of random numbers
+	 */
+	public SimulationContext() {
+		modelRng = new RandomStream( this, RandomStream.modelStream, 0 );
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Random Number Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * setRunSeed
+	 *
+	 * sets the seed of the run, called whenever the Model's seed is set. every stream of the run starts over
+	 */
+	public void setRunSeed( long seed ) {
+		runSeed = seed;
+		++seedCount;
+	}
+
+	/**
+	 * setTick
+	 *
+	 * sets the current tick, called at the start of every step of the Model. every stream of the run starts over
+	 */
+	public void setTick( long t ) {
+		tick = t;
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Item Code Methods
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * itemCode
+	 *
+	 * reduces an item to a single integer. the index is the highest part of the code and every bit after
+	 * it is one binary digit, so with 4 elements (2 1 0 1) becomes 2*8 + 5 = 21
+	 * returns -1 if the item is the wrong size or any of its bits are out of bounds
+	 */
+	public int itemCode( int[] item ) {
+
+		// return -1 if the item is invalid
+		if ( item == null || item.length != numElements || item[0] < 0 || item[0] >= maxItems )
+			return -1;
+
+		// start with the index and shift in every other bit
+		int code = item[0];
+		for ( int j = 1 ; j < numElements ; ++j ) {
+			// return -1 if the bit is not a zero or a one
+			if ( item[j] != 0 && item[j] != 1 )
+				return -1;
+			code = ( code << 1 ) | item[j];
+		}
+
+		return code;
+	}
+
+	/**
+	 * itemFromCode
+	 *
+	 * turns a code made by itemCode back into a new item
+	 */
+	public int[] itemFromCode( int code ) {
+
+		// initialize a new item
+		int[] item = new int[numElements];
+
+		// take the bits off the end of the code from the last element to the second, what is left is the index
+		for ( int j = numElements - 1 ; j > 0 ; --j ) {
+			item[j] = code & 1;
+			code >>= 1;
+		}
+		item[0] = code;
+
+		return item;
+	}
+
+	/**
+	 * indexOfCode
+	 *
+	 * returns the index, or first element, of the item with the input code
+	 */
+	public int indexOfCode( int code ) {
+		return code >> ( numElements - 1 );
+	}
+
+	/**
+	 * bitOfCode
+	 *
+	 * returns the input element of the item with the input code
+	 */
+	public int bitOfCode( int code, int element ) {
+
+		// the first element is the index, every other element is one binary digit
+		if ( element == 0 )
+			return indexOfCode( code );
+		return ( code >> ( numElements - 1 - element ) ) & 1;
+	}
+
+	/**
+	 * numItemCodes
+	 *
+	 * the number of different codes itemCode can return
+	 */
+	public int numItemCodes() {
+		return maxItems << ( numElements - 1 );
+	}
+
+	/**
+	 * inflectionMask
+	 *
+	 * returns the bits of a code that hold every element after the index and language
+	 */
+	public int inflectionMask() {
+		return ( 1 << ( numElements - 2 ) ) - 1;
+	}
+
+	/**
+	 * categoryOfCode
+	 *
+	 * same as Lexicon.categoryOf for an item that is packed into a code, see the itemCode method for details
+	 */
+	public int categoryOfCode( int code ) {
+		return ( code >> ( numElements - 4 ) ) & 7;
+	}
+
+	/**
+	 * internItems
+	 *
+	 * makes the one shared copy of every possible item. called from the Model class once maxItems and
+	 * numElements are set
+	 */
+	public void internItems() {
+		internedItems = new int[numItemCodes()][];
+		for ( int c = 0 ; c < internedItems.length ; ++c )
+			internedItems[c] = itemFromCode( c );
+	}
+
+	/**
+	 * itemOfCode
+	 *
+	 * returns the shared copy of the item with the input code
+	 */
+	public int[] itemOfCode( int code ) {
+
+		// make the shared items if it has not been done yet, or if the size of items changed
+		if ( internedItems == null || internedItems.length != numItemCodes() )
+			internItems();
+
+		return internedItems[code];
+	}
+
+	/**
+	 * intern
+	 *
+	 * every possible item has one shared copy that is identified by its code (see the itemCode method), and that
+	 * copy is what goes into lexicons. shared items are never written to, a change to an item in a lexicon puts
+	 * a different shared item in its place instead. this way there is only one integer array for each item no
+	 * matter how many people know it, and two items are the same if they are the same array
+	 * returns the shared copy of the input, or a copy of the input if it has no code
+	 */
+	public int[] intern( int[] item ) {
+
+		// items that have no code are not shared, but are copied so they are never written to either
+		int code = itemCode( item );
+		if ( code < 0 )
+			return item.clone();
+
+		return itemOfCode( code );
+	}
+
+	/**
+	 * internAll
+	 *
+	 * swaps every item in the list for its shared copy
+	 */
+	public void internAll( ArrayList<int[]> items ) {
+		for ( int i = 0 ; i < items.size() ; ++i )
+			items.set( i, intern( items.get( i ) ) );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public Model getModel() {
+		return model;
+	}
+	public TorusWorld getWorld() {
+		return world;
+	}
+	public DistrictLayout getLayout() {
+		return layout;
+	}
+	public int getMaxItems() {
+		return maxItems;
+	}
+	public int getNumElements() {
+		return numElements;
+	}
+	public int getLexiconType() {
+		return lexiconType;
+	}
+	public long getRunSeed() {
+		return runSeed;
+	}
+	public long getTick() {
+		return tick;
+	}
+}
@@ -0,0 +1,614 @@
+package spanglish;
+
+/**
+ * SlotLexicon.java
+ *
+ * A subclass of Lexicon where every item lives in a fixed slot that is picked by its index, and by its language
+ * if the lexicon is bilingual. A one language lexicon has maxItems slots, one for every index, and a bilingual
+ * lexicon has twice that, all of the English indices first and then all of the Spanish ones. Going through the
+ * slots in order gives the items in the same order that a Lexicon or BiLexicon sorts them in, so the items never
+ * have to be sorted. Adding an item, finding an item or the items with some index, and replacing an item take
+ * at most one pass over the slots. Used when the lexiconType of the SimulationContext is set to slotLexicon
+ */
+
+import java.util.ArrayList;
+import java.util.Random;
+
+public class SlotLexicon extends Lexicon {
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the item in every slot, null if the slot is empty
+	public int[][]				slots;
+	// the number of slots that are not empty
+	public int					numItems;
+	// true if the lexicon holds the items of two languages like a BiLexicon, false if it is like a Lexicon
+	public boolean				bilingual;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * creates an empty lexicon of the input run with a slot for every index of one language
+	 */
+	public SlotLexicon( SimulationContext aContext ) {
+
+		// the lexicon is not bilingual and has no items
+		super( aContext );
+		bilingual = false;
+		slots = new int[context.maxItems][];
+		numItems = 0;
+	}
+
+	/**
+	 * creates a lexicon with a single item. Used when a child is accumulating their first language or
+	 * someone is building their second language
+	 */
+	public SlotLexicon( SimulationContext aContext, int[] newItem ) {
+
+		// start with an empty lexicon
+		this( aContext );
+
+		// add the input item
+		putItem( newItem );
+	}
+
+	/**
+	 * creates a lexicon with an ArrayList of items. Used when initializing a first language
+	 */
+	public SlotLexicon( SimulationContext aContext, ArrayList<int[]> newLang ) {
+
+		// start with an empty lexicon
+		this( aContext );
+
+		// put every item of the input in its slot
+		for ( int i = 0 ; i < newLang.size() ; ++i )
+			putItem( newLang.get( i ) );
+	}
+
+	/**
+	 * creates a lexicon from an already existing lexicon, takes the place of BiLexicon( Lexicon lex ) when
+	 * isBilingual is true
+	 */
+	public SlotLexicon( Lexicon lex, boolean isBilingual ) {
+
+		super( lex.context );
+
+		// make a slot for both languages if the new lexicon is bilingual
+		bilingual = isBilingual;
+		slots = new int[getMaxNumItems()][];
+		numItems = 0;
+
+		// put every item of the input in its slot
+		for ( int i = 0 ; i < lex.getNumItems() ; ++i )
+			putItem( lex.getItem( i ) );
+
+		// the new lexicon takes the place of the input lexicon, so it also takes over its frequency index
+		// and its owner, see the ItemFrequencyIndex and PopulationStore classes for details
+		takeOver( lex );
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * addItem
+	 *
+	 * same as the addItem method of Lexicon, or of BiLexicon if the lexicon is bilingual. returns false if the
+	 * item is invalid or its slot is already taken, which means there is already an item with the same index
+	 * (and language if bilingual). otherwise the item goes in its slot
+	 */
+	@Override
+	public boolean addItem( int[] item ) {
+
+		// return false if the item is the wrong size
+		if ( item.length != context.numElements )
+			return false;
+
+		// return false if the item has no slot, or if its slot is taken
+		int slot = slotOf( item );
+		if ( slot < 0 || slots[slot] != null )
+			return false;
+
+		// if everything checks out, put the item in its slot
+		setSlot( slot, item );
+
+		return true;
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Retrieving Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * getItem()
+	 *
+	 * Given an index i, returns the i^th item, starting at i=0
+	 * Returns null if index is out of bounds
+	 */
+	@Override
+	public int[] getItem( int i ) {
+
+		// return null if the index is out of bounds
+		if ( i < 0 || i >= numItems )
+			return null;
+
+		return slots[slotAtPosition( i )];
+	}
+
+	/**
+	 * getBit
+	 *
+	 * gets the bit at the input item and element number
+	 * returns -1 if the inputs are invalid
+	 */
+	@Override
+	public int getBit( int item, int element ) {
+
+		// return -1 if the index is out of bounds
+		if ( item >= numItems || element >= context.numElements )
+			return -1;
+
+		return slots[slotAtPosition( item )][element];
+	}
+
+	/**
+	 * getRandomItemsFromLexicon
+	 *
+	 * given a positive integer numItems, returns numItems items chosen randomly from the lexicon by shuffling
+	 * a list of the items and picking the first numItems. the slots themselves are never shuffled
+	 * if numItems is larger than the size of the lexicon, then returns the entire lexicon
+	 * returns null if the input it non-positive. draws from the input random numbers
+	 */
+	@Override
+	public ArrayList<int[]> getRandomItemsFromLexicon( int numItems, Random random ) {
+
+		// return null if the number of items to be chosen is less than one
+		if ( numItems < 1 )
+			return null;
+
+		// get every item in order
+		ArrayList<int[]> tempArray = getLexicon();
+
+		// return the whole lexicon if there are not enough items to choose from. like the BiLexicon, a bilingual
+		// lexicon still shuffles when numItems is equal to the number of items
+		if ( numItems > this.numItems || ( !bilingual && numItems == this.numItems ) )
+			return tempArray;
+
+		// shuffle the list, then cut it down to the first numItems items
+		for ( int i = tempArray.size() - 1 ; i > 0 ; --i ) {
+			int j = random.nextInt( i + 1 );
+			int[] temp = tempArray.get( i );
+			tempArray.set( i, tempArray.get( j ) );
+			tempArray.set( j, temp );
+		}
+		while ( tempArray.size() > numItems )
+			tempArray.remove( tempArray.size() - 1 );
+
+		return tempArray;
+	}
+
+	/**
+	 * copyItemsTo
+	 *
+	 * puts the item of every slot that is not empty into the buffer in order, see Lexicon.sampleItems for details
+	 */
+	@Override
+	protected int copyItemsTo( int[][] buffer ) {
+
+		int size = 0;
+		for ( int s = 0 ; s < slots.length ; ++s )
+			if ( slots[s] != null )
+				buffer[size++] = slots[s];
+
+		return size;
+	}
+
+	/**
+	 * getItemsFromLexiconWithIndex
+	 *
+	 * given a specific item, denoted by its first bit, returns the items in the slots of that index as an ArrayList
+	 */
+	@Override
+	public ArrayList<int[]> getItemsFromLexiconWithIndex( int index ) {
+
+		// returns null if the input is invalid
+		if ( index < 0 || index >= context.maxItems )
+			return null;
+
+		// initialize an ArrayList of items
+		ArrayList<int[]> tempArray = new ArrayList<int[]>();
+
+		// the index has one slot for English and, if the lexicon is bilingual, one for Spanish
+		if ( slots[index] != null )
+			tempArray.add( slots[index] );
+		if ( bilingual && slots[context.maxItems + index] != null )
+			tempArray.add( slots[context.maxItems + index] );
+
+		return tempArray;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Replacing/Swapping Methods
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * replaceItem
+	 *
+	 * replaces the item at index existingItemIndex with a copy of newItem, which goes in its own slot. if another
+	 * item is already in that slot, it is replaced as well
+	 * returns if the newItem is invalid or existingItemIndex is out of bounds
+	 */
+	@Override
+	public void replaceItem( int existingItemIndex, int[] newItem ) {
+
+		// returns if the inputs are invalid
+		if ( newItem == null || newItem.length != context.numElements || existingItemIndex < 0 || existingItemIndex >= numItems )
+			return;
+
+		// return if the new item has no slot
+		int newSlot = slotOf( newItem );
+		if ( newSlot < 0 )
+			return;
+
+		// empty the slot of the old item, then put the new item in its slot
+		setSlot( slotAtPosition( existingItemIndex ), null );
+		setSlot( newSlot, newItem );
+	}
+
+	/**
+	 * replaceInflection
+	 *
+	 * replaces all bits of the item at existingItemIndex except the index and language. the index and language
+	 * decide the slot, so the new item stays where the old one was
+	 * returns if the newItem is invalid or existingItemIndex is out of bounds
+	 */
+	@Override
+	public void replaceInflection( int existingItemIndex, int[] newItem ) {
+
+		// returns if the inputs are invalid
+		if ( newItem == null || newItem.length != context.numElements || existingItemIndex < 0 || existingItemIndex >= numItems )
+			return;
+
+		// see the inflectedCopy method in the Lexicon class for details
+		int slot = slotAtPosition( existingItemIndex );
+		setSlot( slot, inflectedCopy( slots[slot], newItem ) );
+	}
+
+	/**
+	 * swapBit
+	 *
+	 * takes in an item index and an element number and replaces the bit with newElement. the changed item moves
+	 * to another slot if its index or language changed
+	 * returns if itemIndex or elementNum are out of bounds
+	 */
+	@Override
+	public void swapBit( int itemIndex, int elementNum, int newElement ) {
+
+		// return if the inputs are invalid
+		if ( itemIndex >= numItems || elementNum >= context.numElements )
+			return;
+
+		// change the bit of a copy and put the copy in place of the item, see the replaceItem method for details
+		int[] replacement = slots[slotAtPosition( itemIndex )].clone();
+		replacement[elementNum] = newElement;
+		replaceItem( itemIndex, replacement );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Checking Methods
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * inLexicon
+	 *
+	 * if the input is in the lexicon, it returns the index in which it was found. only the slot of the input
+	 * has to be checked
+	 * returns -1 if the item is invalid or it is not in the lexicon
+	 */
+	@Override
+	public int inLexicon( int[] item ) {
+
+		// return -1 if the inputs are invalid
+		if ( item == null || item.length != context.numElements )
+			return -1;
+
+		// return -1 if the item has no slot, or if the item in its slot is different. items with a code
+		// are the same if they are the same shared item, see SimulationContext.intern for details
+		int slot = slotOf( item );
+		if ( slot < 0 || !itemsEqual( slots[slot], context.intern( item ) ) )
+			return -1;
+
+		return positionOfSlot( slot );
+	}
+
+	/**
+	 * isFull
+	 *
+	 * a lexicon is full when every slot has an item in it
+	 */
+	@Override
+	public boolean isFull() {
+		return numItems >= slots.length;
+	}
+
+	/**
+	 * isEqual
+	 *
+	 * takes in another lexicon and checks if the two have the same items in the same order
+	 */
+	@Override
+	public boolean isEqual( Lexicon l ) {
+
+		// return false if the number of items between the two lexicons are not equal
+		if ( numItems != l.getNumItems() )
+			return false;
+
+		// compare every item in order
+		for ( int i = 0 ; i < numItems ; ++i )
+			if ( !itemsEqual( getItem( i ), l.getItem( i ) ) )
+				return false;
+
+		// if nothing was different, then return true
+		return true;
+	}
+
+	/**
+	 * isBilingual
+	 *
+	 * returns true if the lexicon holds items of both languages like a BiLexicon
+	 */
+	@Override
+	public boolean isBilingual() {
+		return bilingual;
+	}
+
+	/**
+	 * toBiLexicon
+	 *
+	 * returns a bilingual slot lexicon that takes the place of this one
+	 */
+	@Override
+	public Lexicon toBiLexicon() {
+		return new SlotLexicon( this, true );
+	}
+
+	/**
+	 * copy
+	 *
+	 * returns a new slot lexicon with a copy of the slots, the items in them are shared. see the copy method
+	 * of the Lexicon class
+	 */
+	@Override
+	public Lexicon copy() {
+
+		// start with an empty lexicon and give it a copy of the slots and the counts of this one
+		SlotLexicon copy = new SlotLexicon( context );
+		copy.bilingual = bilingual;
+		copy.slots = slots.clone();
+		copy.numItems = numItems;
+		copy.copyCountsFrom( this );
+
+		return copy;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Methods for Checking Item Qualities
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	@Override
+	public boolean isUSAS( int itemIndex ) {
+		return isUSAS( slots[slotAtPosition( itemIndex )] );
+	}
+
+	@Override
+	public boolean isStandardEnglish( int itemIndex ) {
+		return isStandardEnglish( slots[slotAtPosition( itemIndex )] );
+	}
+
+	@Override
+	public boolean isAAE( int itemIndex ) {
+		return isAAE( slots[slotAtPosition( itemIndex )] );
+	}
+
+	@Override
+	public boolean isWhiteSpanish( int itemIndex ) {
+		return isWhiteSpanish( slots[slotAtPosition( itemIndex )] );
+	}
+
+	/**
+	 * getNumOfBitInColumn
+	 *
+	 * given a certain bit and column, calculates the number of items with that aspect
+	 * returns -1 if the element number is out of bounds
+	 */
+	@Override
+	public int getNumOfBitInColumn( int element, int bit ) {
+
+		// return -1 if the element input is invalid
+		if( element >= context.numElements )
+			return -1;
+
+		// count every item in a slot with the input bit at the element
+		int count = 0;
+		for ( int s = 0 ; s < slots.length ; ++s )
+			if ( slots[s] != null && slots[s][element] == bit )
+				++count;
+
+		return count;
+	}
+
+	@Override
+	public void print() {
+		// iterate through every slot with an item in it
+		for ( int s = 0 ; s < slots.length ; ++s ) {
+			if ( slots[s] == null )
+				continue;
+			// print every bit and then a space
+			for ( int j = 0 ; j < context.numElements ; ++j )
+				System.out.printf( "%d ", slots[s][j] );
+			// print a line break after every item
+			System.out.print("\n");
+		}
+		System.out.print("\n\n");
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Slot Methods
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * slotOf
+	 *
+	 * returns the slot that the item belongs in, the index for a one language lexicon and the language times
+	 * maxItems plus the index for a bilingual one
+	 * returns -1 if the index or language is out of bounds
+	 */
+	public int slotOf( int[] item ) {
+
+		// return -1 if the index is out of bounds
+		if ( item[0] < 0 || item[0] >= context.maxItems )
+			return -1;
+
+		// a one language lexicon only looks at the index
+		if ( !bilingual )
+			return item[0];
+
+		// return -1 if the language is not English or Spanish
+		if ( item[1] != 0 && item[1] != 1 )
+			return -1;
+
+		return item[1] * context.maxItems + item[0];
+	}
+
+	/**
+	 * slotAtPosition
+	 *
+	 * returns the slot of the i^th item. when the lexicon is full the i^th item is in the i^th slot, otherwise
+	 * the empty slots are skipped over
+	 */
+	public int slotAtPosition( int i ) {
+
+		// every slot is taken, so the position is the slot
+		if ( numItems == slots.length )
+			return i;
+
+		// count the items up to the i^th one
+		for ( int s = 0 ; s < slots.length ; ++s ) {
+			if ( slots[s] != null ) {
+				if ( i == 0 )
+					return s;
+				--i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * positionOfSlot
+	 *
+	 * returns the position of the item in the slot among all of the items of the lexicon, the opposite of
+	 * slotAtPosition
+	 */
+	public int positionOfSlot( int slot ) {
+
+		// every slot is taken, so the slot is the position
+		if ( numItems == slots.length )
+			return slot;
+
+		// count the items in the slots before it
+		int position = 0;
+		for ( int s = 0 ; s < slot ; ++s )
+			if ( slots[s] != null )
+				++position;
+
+		return position;
+	}
+
+	/**
+	 * getMaxNumItems
+	 *
+	 * returns maxItems for a one language lexicon and twice that for a bilingual one
+	 */
+	public int getMaxNumItems() {
+		if ( bilingual )
+			return context.maxItems * 2;
+		else
+			return context.maxItems;
+	}
+
+	/**
+	 * putItem
+	 *
+	 * puts the item in its slot if it has one, used by the constructors which, like those of Lexicon, do not
+	 * check the items
+	 */
+	protected void putItem( int[] item ) {
+
+		// ignore items that have no slot
+		int slot = slotOf( item );
+		if ( slot >= 0 )
+			setSlot( slot, item );
+	}
+
+	/**
+	 * setSlot
+	 *
+	 * puts the shared copy of newItem in the slot in place of the item that was there, either can be null. keeps
+	 * numItems up to date and lets the frequency index know about the change. see SimulationContext.intern for details
+	 */
+	protected void setSlot( int slot, int[] newItem ) {
+
+		// only shared items go in the slots
+		if ( newItem != null )
+			newItem = context.intern( newItem );
+
+		// the old item leaves the lexicon
+		if ( slots[slot] != null ) {
+			itemRemoved( slots[slot] );
+			--numItems;
+		}
+
+		slots[slot] = newItem;
+
+		// the new item enters it
+		if ( newItem != null ) {
+			itemAdded( newItem );
+			++numItems;
+		}
+	}
+
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * returns the items of the lexicon in order as a new ArrayList, changing the list does not change the lexicon
+	 */
+	@Override
+	public ArrayList<int[]> getLexicon() {
+		ArrayList<int[]> items = new ArrayList<int[]>( numItems );
+		for ( int s = 0 ; s < slots.length ; ++s )
+			if ( slots[s] != null )
+				items.add( slots[s] );
+		return items;
+	}
+	@Override
+	public void setLexicon( ArrayList<int[]> lexicon ) {
+		// empty every slot, then put the new items in theirs
+		for ( int s = 0 ; s < slots.length ; ++s )
+			setSlot( s, null );
+		for ( int i = 0 ; i < lexicon.size() ; ++i )
+			putItem( lexicon.get( i ) );
+	}
+	@Override
+	public int getNumItems() {
+		return numItems;
+	}
+}
@@ -0,0 +1,149 @@
+package spanglish;
+
+/**
+ * SparseTorusWorld.java
+ *
+ * A TorusWorld that keeps its cells in square chunks that are only made once somebody steps into them,
+ * instead of in the Object2DGrid, which has a slot for every cell. A world of 10,000 x 10,000 cells takes
+ * hundreds of megabytes as an Object2DGrid even when almost every cell is empty, while this one only takes
+ * a small table of chunks plus the chunks that hold somebody. A chunk that empties is kept, so somebody
+ * walking back and forth over the edge of a chunk does not make a new one every time, and the chunks that
+ * are still empty are let go of once a year, see the releaseEmptyCells method. The spatial index keeps its
+ * buckets the same way, see the SpatialIndex class. Every other method is the same as in the
+ * TorusWorld, since they all go through getObjectAt, putObjectAt and isOccupied. Used when the Model's
+ * sparseWorld is set to 1
+ */
+
+public class SparseTorusWorld extends TorusWorld {
+
+	//////////////////////// CLASS VARIABLES
+
+	// chunks are chunkSize x chunkSize cells, chunkSize is a power of two so the cell of a chunk is found with
+	// shifts and masks
+	public static final int		chunkBits = 6;
+	public static final int		chunkSize = 1 << chunkBits;
+	public static final int		chunkMask = chunkSize - 1;
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the objects in the cells of every chunk, row by row, chunks are numbered row by row. null for the
+	// chunks nobody has stepped into since they were last let go of
+	public Object[][]			chunks;
+	// the number of cells of every chunk that hold something
+	public int[]				chunkCounts;
+	// the number of chunk columns and rows, the last ones may reach past the edge of the world
+	public int					chunksX, chunksY;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * creates an empty world of the input size, that is connected to the input Model
+	 */
+	public SparseTorusWorld( int sizeX, int sizeY, Model aModel ) {
+		super( sizeX, sizeY, aModel, true );
+
+		// every chunk starts empty
+		chunksX = ( sizeX + chunkSize - 1 ) >> chunkBits;
+		chunksY = ( sizeY + chunkSize - 1 ) >> chunkBits;
+		chunks = new Object[chunksX * chunksY][];
+		chunkCounts = new int[chunksX * chunksY];
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Occupancy Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * getObjectAt
+	 *
+	 * returns the object in the cell ( x, y ), or null if it is empty
+	 */
+	@Override
+	public Object getObjectAt( int x, int y ) {
+
+		// nothing is in a chunk that was never made
+		Object[] chunk = chunks[( y >> chunkBits ) * chunksX + ( x >> chunkBits )];
+		if ( chunk == null )
+			return null;
+
+		return chunk[( ( y & chunkMask ) << chunkBits ) + ( x & chunkMask )];
+	}
+
+	/**
+	 * setCell
+	 *
+	 * puts the object in the cell ( x, y ), making its chunk if it is the first object in it
+	 */
+	@Override
+	protected void setCell( int x, int y, Object object ) {
+
+		int c = ( y >> chunkBits ) * chunksX + ( x >> chunkBits );
+		int cell = ( ( y & chunkMask ) << chunkBits ) + ( x & chunkMask );
+
+		// emptying a cell of a chunk that was never made does nothing
+		if ( chunks[c] == null ) {
+			if ( object == null )
+				return;
+			chunks[c] = new Object[chunkSize * chunkSize];
+		}
+
+		// count the cells of the chunk that hold something
+		Object old = chunks[c][cell];
+		if ( old == null && object != null )
+			++chunkCounts[c];
+		else if ( old != null && object == null )
+			--chunkCounts[c];
+		chunks[c][cell] = object;
+	}
+
+	/**
+	 * releaseEmptyCells
+	 *
+	 * lets go of every chunk where nobody is standing, called by the Model once a year
+	 */
+	@Override
+	public void releaseEmptyCells() {
+		for ( int c = 0 ; c < chunks.length ; ++c ) {
+			if ( chunks[c] != null && chunkCounts[c] == 0 )
+				chunks[c] = null;
+		}
+	}
+
+	/**
+	 * cellLock
+	 *
+	 * returns the lock that is held while the cell ( x, y ) is changed. cells in different tiles can share a
+	 * chunk, so all the cells of a chunk share a lock
+	 */
+	@Override
+	protected Object cellLock( int x, int y ) {
+		return cellLocks[( ( y >> chunkBits ) * chunksX + ( x >> chunkBits ) ) & ( numCellLocks - 1 )];
+	}
+
+	/**
+	 * isOccupied
+	 *
+	 * returns true if the cell ( x, y ) holds something. there are no occupancy bits in a sparse world
+	 */
+	@Override
+	public boolean isOccupied( int x, int y ) {
+		return getObjectAt( x, y ) != null;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public int getNumChunksInUse() {
+		int numInUse = 0;
+		for ( int c = 0 ; c < chunks.length ; ++c ) {
+			if ( chunks[c] != null )
+				++numInUse;
+		}
+		return numInUse;
+	}
+}
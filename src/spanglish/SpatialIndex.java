@@ -0,0 +1,598 @@
+package spanglish;
+
+/**
+ * SpatialIndex.java
+ *
+ * Splits the grid into square buckets of bucketSize by bucketSize cells and keeps a list of the people standing
+ * in each bucket, along with the cell each of them is in. The GridWorld tells the index whenever a Person is
+ * put into or taken out of a cell (see the putObjectAt method in the GridWorld class), so the index always
+ * agrees with the grid. A radius query only looks at the people in the buckets that overlap the square around
+ * the center, so its cost depends on how many people are nearby instead of how many cells there are. The
+ * square wraps around the edges of the world the same way as the getNeighbors method of the TorusWorld class.
+ * On top of the buckets sits a pyramid of the highest status in every block of buckets, so the search for the
+ * neighbor with the highest status can skip every block where nobody could beat the best person found so far.
+ * Every query keeps its state in its own Query, so several threads can query the index at once. People in
+ * different tiles can also enter, leave and change their status at the same time (see the TiledStepper class),
+ * so every bucket and every block of the pyramid is changed while holding its lock, one of numLocks locks
+ * that the buckets and blocks share. Only one lock is held at a time, and a block is always worked out from
+ * the blocks below it while holding its own lock, so the last thread to change a block sees every block below.
+ * A bucket is only made when the first person enters it, and the buckets are kept in pages of pageSize by
+ * pageSize buckets that are also only made when they are first needed, so a world that is mostly empty does
+ * not keep a slot for every bucket. The levels of the pyramid above the buckets are kept for the whole grid,
+ * but the first of them already has a quarter as many blocks as there are buckets
+ */
+
+import java.util.ArrayList;
+
+public class SpatialIndex {
+
+	//////////////////////// CLASS VARIABLES
+
+	// the width and height of a bucket in cells, used by the GridWorld
+	public static int			defaultBucketSize = 8;
+	// the number of people a bucket has room for at first, it doubles whenever it fills up
+	public static final int		initialBucketCapacity = 4;
+	// the number of locks the buckets and blocks share, a power of two
+	public static final int		numLocks = 256;
+	// pages are pageSize x pageSize buckets, pageSize is a power of two
+	public static final int		pageBits = 5;
+	public static final int		pageSize = 1 << pageBits;
+	public static final int		pageMask = pageSize - 1;
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the size of the grid
+	public int					xSize, ySize;
+	// the width and height of a bucket in cells
+	public int					bucketSize;
+	// the number of bucket columns and rows, the last ones may be smaller than bucketSize
+	public int					bucketsX, bucketsY;
+
+	// the buckets of every page, pages are numbered row by row and so are the buckets of a page. null for
+	// the pages and buckets nobody has entered yet, see the bucketAt method
+	public Bucket[][]			pages;
+	// the number of page columns and rows, the last ones may reach past the last bucket
+	public int					pagesX, pagesY;
+
+	// the highest status in every block of buckets, -1 where there is nobody. level zero is the buckets
+	// themselves, which keep their own highest status, so maxStatus[0] is null. every level above has one
+	// block per two by two blocks of the level below, up to a single block for the whole grid. kept up to
+	// date as people enter and leave buckets and as their status changes, see the blockMax method
+	public int[][]				maxStatus;
+	// the number of columns and rows of blocks at every level
+	public int[]				levelColumns, levelRows;
+
+	// the locks of the buckets and blocks, see the lockOf method, and the lock held while a page is made
+	protected Object[]			locks;
+	protected Object			pageLock = new Object();
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * creates an empty index for a grid of the input size
+	 */
+	public SpatialIndex( int xSize, int ySize, int bucketSize ) {
+
+		this.xSize = xSize;
+		this.ySize = ySize;
+		this.bucketSize = bucketSize;
+
+		// round up so the last column and row of buckets cover the rest of the grid
+		bucketsX = ( xSize + bucketSize - 1 ) / bucketSize;
+		bucketsY = ( ySize + bucketSize - 1 ) / bucketSize;
+
+		// every page starts empty, it is made when the first person enters one of its buckets
+		pagesX = ( bucketsX + pageMask ) >> pageBits;
+		pagesY = ( bucketsY + pageMask ) >> pageBits;
+		pages = new Bucket[pagesX * pagesY][];
+
+		// count the levels of the pyramid, halving the number of blocks until there is only one
+		int numLevels = 1;
+		for ( int c = bucketsX, r = bucketsY ; c > 1 || r > 1 ; c = ( c + 1 ) / 2, r = ( r + 1 ) / 2 )
+			++numLevels;
+
+		// every block of every level above the buckets starts empty
+		maxStatus = new int[numLevels][];
+		levelColumns = new int[numLevels];
+		levelRows = new int[numLevels];
+		int columns = bucketsX;
+		int rows = bucketsY;
+		for ( int l = 0 ; l < numLevels ; ++l ) {
+			levelColumns[l] = columns;
+			levelRows[l] = rows;
+			if ( l > 0 ) {
+				maxStatus[l] = new int[columns * rows];
+				for ( int b = 0 ; b < columns * rows ; ++b )
+					maxStatus[l][b] = -1;
+			}
+			columns = ( columns + 1 ) / 2;
+			rows = ( rows + 1 ) / 2;
+		}
+
+		locks = new Object[numLocks];
+		for ( int i = 0 ; i < numLocks ; ++i )
+			locks[i] = new Object();
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Occupancy Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * personEntered
+	 *
+	 * called by the grid when a Person is put into the cell ( x, y )
+	 */
+	public void personEntered( Person p, int x, int y ) {
+
+		int column = x / bucketSize;
+		int row = y / bucketSize;
+		synchronized ( lockOf( 0, row * bucketsX + column ) ) {
+
+			// make the bucket if nobody has been in it yet
+			Bucket bucket = bucketAt( column, row );
+			if ( bucket == null )
+				bucket = newBucket( column, row );
+
+			// the person may have the highest status in the bucket now
+			bucket.add( p, x, y );
+			if ( !bucket.refresh() )
+				return;
+		}
+		refreshBlocks( column, row );
+	}
+
+	/**
+	 * personLeft
+	 *
+	 * called by the grid when a Person is taken out of the cell ( x, y )
+	 */
+	public void personLeft( Person p, int x, int y ) {
+
+		int column = x / bucketSize;
+		int row = y / bucketSize;
+		synchronized ( lockOf( 0, row * bucketsX + column ) ) {
+
+			// the person may have had the highest status in the bucket
+			Bucket bucket = bucketAt( column, row );
+			if ( bucket == null || !bucket.remove( p, x, y ) || !bucket.refresh() )
+				return;
+		}
+		refreshBlocks( column, row );
+	}
+
+	/**
+	 * statusChanged
+	 *
+	 * called by the grid when the status of the Person in the cell ( x, y ) changes
+	 */
+	public void statusChanged( int x, int y ) {
+
+		int column = x / bucketSize;
+		int row = y / bucketSize;
+		synchronized ( lockOf( 0, row * bucketsX + column ) ) {
+			Bucket bucket = bucketAt( column, row );
+			if ( bucket == null || !bucket.refresh() )
+				return;
+		}
+		refreshBlocks( column, row );
+	}
+
+	/**
+	 * bucketAt
+	 *
+	 * returns the bucket in the given column and row, or null if nobody has entered it yet
+	 */
+	public Bucket bucketAt( int column, int row ) {
+		Bucket[] page = pages[( row >> pageBits ) * pagesX + ( column >> pageBits )];
+		if ( page == null )
+			return null;
+		return page[( ( row & pageMask ) << pageBits ) + ( column & pageMask )];
+	}
+
+	/**
+	 * newBucket
+	 *
+	 * makes the bucket in the given column and row, and its page if it is the first bucket of it. the caller
+	 * holds the lock of the bucket, and the page is made while holding the lock of the pages, since the
+	 * buckets of a page can be in different tiles
+	 */
+	protected Bucket newBucket( int column, int row ) {
+
+		int p = ( row >> pageBits ) * pagesX + ( column >> pageBits );
+		Bucket[] page = pages[p];
+		if ( page == null ) {
+			synchronized ( pageLock ) {
+				if ( pages[p] == null )
+					pages[p] = new Bucket[pageSize * pageSize];
+				page = pages[p];
+			}
+		}
+
+		Bucket bucket = new Bucket();
+		page[( ( row & pageMask ) << pageBits ) + ( column & pageMask )] = bucket;
+		return bucket;
+	}
+
+	/**
+	 * blockMax
+	 *
+	 * returns the highest status in the block of the given level, column and row, -1 if there is nobody
+	 */
+	protected int blockMax( int level, int column, int row ) {
+		if ( level > 0 )
+			return maxStatus[level][row * levelColumns[level] + column];
+		Bucket bucket = bucketAt( column, row );
+		return ( bucket == null ) ? -1 : bucket.maxStatus;
+	}
+
+	/**
+	 * refreshBlocks
+	 *
+	 * goes up the pyramid from the bucket in the given column and row, each block takes the highest status of
+	 * the up to four blocks below it, until one of them stays the same. every block is worked out while
+	 * holding its lock
+	 */
+	protected void refreshBlocks( int column, int row ) {
+
+		for ( int l = 1 ; l < maxStatus.length ; ++l ) {
+			column /= 2;
+			row /= 2;
+			int block = row * levelColumns[l] + column;
+			synchronized ( lockOf( l, block ) ) {
+				int blockMax = -1;
+				for ( int r = 2 * row ; r < Math.min( 2 * row + 2, levelRows[l - 1] ) ; ++r )
+					for ( int c = 2 * column ; c < Math.min( 2 * column + 2, levelColumns[l - 1] ) ; ++c )
+						blockMax = Math.max( blockMax, blockMax( l - 1, c, r ) );
+
+				// the blocks further up can not change if this one did not
+				if ( maxStatus[l][block] == blockMax )
+					return;
+				maxStatus[l][block] = blockMax;
+			}
+		}
+	}
+
+	/**
+	 * lockOf
+	 *
+	 * returns the lock of the block of the given level, level zero is the buckets
+	 */
+	protected Object lockOf( int level, int block ) {
+		return locks[( block * maxStatus.length + level ) & ( numLocks - 1 )];
+	}
+
+	/**
+	 * bucketOf
+	 *
+	 * returns the number of the bucket that holds the cell ( x, y ), buckets are numbered row by row
+	 */
+	public int bucketOf( int x, int y ) {
+		return ( y / bucketSize ) * bucketsX + ( x / bucketSize );
+	}
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Query Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * getHighestStatusNeighbor
+	 *
+	 * returns the person with the highest status within radius cells of ( x, y ), not counting p, or null if
+	 * there is nobody. gives the same answer as the getHighestStatusNeighbor method of the TorusWorld class,
+	 * so ties go to the person whose cell comes first when the square is read row by row from its upper left corner
+	 */
+	public Person getHighestStatusNeighbor( Person p, int x, int y, int radius ) {
+
+		// the corner and size of the square, at most the whole world, and nobody has been found yet
+		Query query = new Query();
+		query.spanX = Math.min( 2 * radius + 1, xSize );
+		int spanY = Math.min( 2 * radius + 1, ySize );
+		query.startX = norm( x - radius, xSize );
+		query.startY = norm( y - radius, ySize );
+		query.center = p;
+
+		// the square can wrap around the edges, so it is searched in up to four pieces that do not
+		int startX = query.startX;
+		int startY = query.startY;
+		int endX = startX + query.spanX;
+		int endY = startY + spanY;
+		searchRectangle( query, startX, Math.min( endX, xSize ), startY, Math.min( endY, ySize ) );
+		if ( endX > xSize )
+			searchRectangle( query, 0, endX - xSize, startY, Math.min( endY, ySize ) );
+		if ( endY > ySize )
+			searchRectangle( query, startX, Math.min( endX, xSize ), 0, endY - ySize );
+		if ( endX > xSize && endY > ySize )
+			searchRectangle( query, 0, endX - xSize, 0, endY - ySize );
+
+		return query.best;
+	}
+
+	/**
+	 * searchRectangle
+	 *
+	 * searches the cells from x0 to x1 - 1 and from y0 to y1 - 1, starting from the blocks of the highest level
+	 * that are no bigger than the rectangle. starting any higher would only add blocks that are mostly outside of it
+	 */
+	protected void searchRectangle( Query query, int x0, int x1, int y0, int y1 ) {
+
+		// pick the level to start at
+		int level = 0;
+		int longestSide = Math.max( x1 - x0, y1 - y0 );
+		while ( level < maxStatus.length - 1 && ( bucketSize << ( level + 1 ) ) <= longestSide )
+			++level;
+
+		// search every block of that level that overlaps the rectangle
+		int blockSize = bucketSize << level;
+		for ( int r = y0 / blockSize ; r <= ( y1 - 1 ) / blockSize ; ++r )
+			for ( int c = x0 / blockSize ; c <= ( x1 - 1 ) / blockSize ; ++c )
+				searchBlock( query, level, c, r, x0, x1, y0, y1 );
+	}
+
+	/**
+	 * searchBlock
+	 *
+	 * looks for the person with the highest status in the block of the given level, column and row, only counting
+	 * the cells from x0 to x1 - 1 and from y0 to y1 - 1. the block is skipped if nobody in it has a status at
+	 * least as high as the best person found so far, otherwise the blocks below it are searched
+	 */
+	protected void searchBlock( Query query, int level, int column, int row, int x0, int x1, int y0, int y1 ) {
+
+		// skip the block if it is empty or nobody in it can beat the best person found so far
+		int max = blockMax( level, column, row );
+		if ( max < 0 || ( query.best != null && max < query.best.getStatus() ) )
+			return;
+
+		// skip the block if it does not overlap the cells that are searched
+		int blockSize = bucketSize << level;
+		int blockX = column * blockSize;
+		int blockY = row * blockSize;
+		if ( blockX >= x1 || blockX + blockSize <= x0 || blockY >= y1 || blockY + blockSize <= y0 )
+			return;
+
+		// a block at the bottom level is a single bucket, so look at everyone in it
+		if ( level == 0 ) {
+			searchBucket( query, bucketAt( column, row ), x0, x1, y0, y1 );
+			return;
+		}
+
+		// otherwise search the up to four blocks below it
+		for ( int r = 2 * row ; r < Math.min( 2 * row + 2, levelRows[level - 1] ) ; ++r )
+			for ( int c = 2 * column ; c < Math.min( 2 * column + 2, levelColumns[level - 1] ) ; ++c )
+				searchBlock( query, level - 1, c, r, x0, x1, y0, y1 );
+	}
+
+	/**
+	 * searchBucket
+	 *
+	 * keeps the person in the bucket with the highest status who is in the searched cells, if they beat the best
+	 * person found so far. ties go to the person whose cell comes first when the whole square is read row by row
+	 * from its upper left corner, the same as the cell scan in the TorusWorld class
+	 */
+	protected void searchBucket( Query query, Bucket bucket, int x0, int x1, int y0, int y1 ) {
+
+		Person[] people = bucket.people;
+		int[] xs = bucket.xs;
+		int[] ys = bucket.ys;
+
+		for ( int i = bucket.count - 1 ; i >= 0 ; --i ) {
+
+			// skip the person at the center and anybody outside of the searched cells
+			Person neighbor = people[i];
+			if ( neighbor == query.center || xs[i] < x0 || xs[i] >= x1 || ys[i] < y0 || ys[i] >= y1 )
+				continue;
+
+			// the place of the cell when the square is read row by row
+			int dx = xs[i] - query.startX;
+			if ( dx < 0 )
+				dx += xSize;
+			int dy = ys[i] - query.startY;
+			if ( dy < 0 )
+				dy += ySize;
+			int rank = dy * query.spanX + dx;
+
+			// keep the person if their status is higher, or the same and their cell is read first
+			if ( query.best == null || neighbor.getStatus() > query.best.getStatus()
+					|| ( neighbor.getStatus() == query.best.getStatus() && rank < query.bestRank ) ) {
+				query.best = neighbor;
+				query.bestRank = rank;
+			}
+		}
+	}
+
+	/**
+	 * getPeopleWithin
+	 *
+	 * returns everyone within radius cells of ( x, y ) as a new ArrayList, in no particular order
+	 */
+	public ArrayList<Person> getPeopleWithin( int x, int y, int radius ) {
+
+		ArrayList<Person> found = new ArrayList<Person>();
+
+		// the corner and size of the square, see the method above for details
+		int spanX = Math.min( 2 * radius + 1, xSize );
+		int spanY = Math.min( 2 * radius + 1, ySize );
+		int startX = norm( x - radius, xSize );
+		int startY = norm( y - radius, ySize );
+		int[] columns = new int[Math.min( spanX / bucketSize + 2, bucketsX )];
+		int[] rows = new int[Math.min( spanY / bucketSize + 2, bucketsY )];
+		int numColumns = overlappingBuckets( startX, spanX, xSize, columns );
+		int numRows = overlappingBuckets( startY, spanY, ySize, rows );
+
+		// add everyone in the overlapping buckets who is inside the square
+		for ( int r = 0 ; r < numRows ; ++r ) {
+			for ( int c = 0 ; c < numColumns ; ++c ) {
+				Bucket bucket = bucketAt( columns[c], rows[r] );
+				if ( bucket == null )
+					continue;
+				for ( int i = 0 ; i < bucket.count ; ++i ) {
+					int dx = norm( bucket.xs[i] - startX, xSize );
+					int dy = norm( bucket.ys[i] - startY, ySize );
+					if ( dx < spanX && dy < spanY )
+						found.add( bucket.people[i] );
+				}
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * overlappingBuckets
+	 *
+	 * walks span cells along one side of the grid starting at start, wrapping around at size, and puts the
+	 * number of every bucket it passes through into the output array. returns the number of buckets, each is
+	 * only listed once
+	 */
+	protected int overlappingBuckets( int start, int span, int size, int[] output ) {
+
+		int count = 0;
+		int cell = start;
+		int remaining = span;
+
+		while ( remaining > 0 ) {
+
+			// the bucket of the current cell, unless the walk has wrapped back around to the first bucket
+			int bucket = cell / bucketSize;
+			if ( count > 0 && bucket == output[0] )
+				break;
+			output[count++] = bucket;
+
+			// jump to the first cell of the next bucket, or to the start of the grid
+			int next = Math.min( ( bucket + 1 ) * bucketSize, size );
+			remaining -= next - cell;
+			cell = ( next == size ) ? 0 : next;
+		}
+
+		return count;
+	}
+
+	/**
+	 * norm
+	 *
+	 * returns the input wrapped around into the range zero to size - 1
+	 */
+	public static int norm( int value, int size ) {
+		value %= size;
+		return ( value < 0 ) ? value + size : value;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Bucket and Query Classes
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * Bucket
+	 *
+	 * the people standing in one bucket, along with their cells, and the highest status among them. only
+	 * the first count people are in use, the arrays double whenever they fill up
+	 */
+	public static class Bucket {
+		public Person[]		people = new Person[initialBucketCapacity];
+		public int[]		xs = new int[initialBucketCapacity];
+		public int[]		ys = new int[initialBucketCapacity];
+		public int			count = 0;
+		public int			maxStatus = -1;
+
+		/**
+		 * add
+		 *
+		 * puts the person at the end of the bucket
+		 */
+		public void add( Person p, int x, int y ) {
+
+			// make room if the bucket is full
+			if ( count == people.length ) {
+				Person[] newPeople = new Person[count * 2];
+				int[] newXs = new int[count * 2];
+				int[] newYs = new int[count * 2];
+				System.arraycopy( people, 0, newPeople, 0, count );
+				System.arraycopy( xs, 0, newXs, 0, count );
+				System.arraycopy( ys, 0, newYs, 0, count );
+				people = newPeople;
+				xs = newXs;
+				ys = newYs;
+			}
+
+			people[count] = p;
+			xs[count] = x;
+			ys[count] = y;
+			++count;
+		}
+
+		/**
+		 * remove
+		 *
+		 * takes the person out of the bucket and puts the last person of the bucket in their place
+		 * returns false if they were not in it
+		 */
+		public boolean remove( Person p, int x, int y ) {
+			int last = count - 1;
+			for ( int i = 0 ; i <= last ; ++i ) {
+				if ( people[i] == p && xs[i] == x && ys[i] == y ) {
+					people[i] = people[last];
+					xs[i] = xs[last];
+					ys[i] = ys[last];
+					people[last] = null;
+					--count;
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/**
+		 * refresh
+		 *
+		 * finds the highest status in the bucket again
+		 * returns true if it changed, and the blocks above the bucket must be refreshed
+		 */
+		public boolean refresh() {
+			int max = -1;
+			for ( int i = 0 ; i < count ; ++i )
+				if ( people[i].getStatus() > max )
+					max = people[i].getStatus();
+
+			if ( max == maxStatus )
+				return false;
+			maxStatus = max;
+			return true;
+		}
+	}
+
+	/**
+	 * Query
+	 *
+	 * the state of one highest status query: the person at the center, the best person found so far and the
+	 * corner and width of the square, see the getHighestStatusNeighbor method
+	 */
+	protected static class Query {
+		Person			center, best;
+		int				bestRank;
+		int				startX, startY, spanX;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public int getBucketSize() {
+		return bucketSize;
+	}
+	public int getNumPeopleInBucket( int bucket ) {
+		Bucket b = bucketAt( bucket % bucketsX, bucket / bucketsX );
+		return ( b == null ) ? 0 : b.count;
+	}
+	public int getNumPagesInUse() {
+		int numInUse = 0;
+		for ( int p = 0 ; p < pages.length ; ++p ) {
+			if ( pages[p] != null )
+				++numInUse;
+		}
+		return numInUse;
+	}
+}
@@ -0,0 +1,157 @@
+package spanglish;
+
+/**
+ * SpatialIndexBenchmark.java
+ *
+ * Compares the two ways the TorusWorld can find the neighbor with the highest status: looking at every cell
+ * around the person (scanHighestStatusNeighbor) and looking only at the people in the nearby buckets of the
+ * spatial index. For every density and radius, a grid the size of the default model is filled with people
+ * of random status and every person is queried many times. The answers of the two methods are also compared
+ * to make sure they agree. Run it with
+ *     java -cp <classpath> spanglish.SpatialIndexBenchmark [sizeX sizeY bucketSize]
+ */
+
+import java.util.Random;
+
+public class SpatialIndexBenchmark {
+
+	//////////////////////// CLASS VARIABLES
+
+	// the share of cells that hold a person, the model's work band is around 0.05
+	public static double[]		densities = { 0.01, 0.05, 0.2, 0.5 };
+	// the radii to query, the sight radius of a person is 3, 6 or 10
+	public static int[]			radii = { 1, 2, 3, 6, 10, 20, 40 };
+	// the number of times every person is queried for each density and radius
+	public static int			repetitions = 200;
+	// seed of the random numbers, so every run places the same people
+	public static long			seed = 12345;
+
+
+	////////////////////////////////////////////////////////////////////
+	// main entry point
+	public static void main( String[] args ) {
+
+		// the size of the grid and of the buckets can be set on the command line
+		int sizeX = 100, sizeY = 100;
+		if ( args.length >= 2 ) {
+			sizeX = Integer.parseInt( args[0] );
+			sizeY = Integer.parseInt( args[1] );
+		}
+		if ( args.length >= 3 )
+			SpatialIndex.defaultBucketSize = Integer.parseInt( args[2] );
+
+		System.out.printf( "grid %d x %d, buckets of %d x %d cells\n", sizeX, sizeY,
+				SpatialIndex.defaultBucketSize, SpatialIndex.defaultBucketSize );
+		System.out.printf( "%8s %6s %8s %12s %12s %8s\n", "density", "radius", "people", "scan ns", "index ns", "speedup" );
+
+		for ( double density : densities ) {
+
+			// fill a new grid
+			TorusWorld world = new TorusWorld( sizeX, sizeY, null );
+			Person[] people = populate( world, density );
+
+			for ( int radius : radii ) {
+
+				// run both once without timing, so the timed runs are not slowed down by the JIT compiler
+				checkAgreement( world, people, radius );
+				timeScan( world, people, radius );
+				timeIndex( world, people, radius );
+
+				long scanNanos = timeScan( world, people, radius );
+				long indexNanos = timeIndex( world, people, radius );
+				double queries = (double)people.length * repetitions;
+
+				System.out.printf( "%8.2f %6d %8d %12.1f %12.1f %8.2f\n", density, radius, people.length,
+						scanNanos / queries, indexNanos / queries, (double)scanNanos / indexNanos );
+			}
+		}
+	}
+
+	/**
+	 * populate
+	 *
+	 * puts people of random status in the input share of the cells of the world, and returns them
+	 */
+	public static Person[] populate( TorusWorld world, double density ) {
+
+		Random rng = new Random( seed );
+		// the people are not part of a model run, they are only put in the cells
+		SimulationContext context = new SimulationContext();
+		int sizeX = world.getSizeX();
+		int sizeY = world.getSizeY();
+		int numPeople = (int)( density * sizeX * sizeY );
+		Person[] people = new Person[numPeople];
+
+		for ( int i = 0 ; i < numPeople ; ++i ) {
+
+			// pick an empty cell
+			int x, y;
+			do {
+				x = rng.nextInt( sizeX );
+				y = rng.nextInt( sizeY );
+			} while ( world.getObjectAt( x, y ) != null );
+
+			// put a person with a random status there, statuses in the model are between 0 and 40
+			Person p = new Person( context );
+			p.setStatus( rng.nextInt( 41 ) );
+			world.putObjectAt( x, y, p );
+			p.setX( x );
+			p.setY( y );
+			people[i] = p;
+		}
+
+		return people;
+	}
+
+	/**
+	 * checkAgreement
+	 *
+	 * stops the benchmark if the two methods ever return a different neighbor
+	 */
+	public static void checkAgreement( TorusWorld world, Person[] people, int radius ) {
+		for ( Person p : people ) {
+			Person scanned = world.scanHighestStatusNeighbor( p, radius );
+			Person indexed = world.spatialIndex.getHighestStatusNeighbor( p, p.getX(), p.getY(), radius );
+			if ( scanned != indexed )
+				throw new IllegalStateException( "the spatial index and the cell scan disagree at radius " + radius );
+		}
+	}
+
+	/**
+	 * timeScan
+	 *
+	 * returns the number of nanoseconds it takes to query every person repetitions times by looking at every cell
+	 */
+	public static long timeScan( TorusWorld world, Person[] people, int radius ) {
+		long start = System.nanoTime();
+		int found = 0;
+		for ( int r = 0 ; r < repetitions ; ++r )
+			for ( Person p : people )
+				if ( world.scanHighestStatusNeighbor( p, radius ) != null )
+					++found;
+		long time = System.nanoTime() - start;
+		// use the count so the queries can not be skipped
+		if ( found < 0 )
+			System.out.print( found );
+		return time;
+	}
+
+	/**
+	 * timeIndex
+	 *
+	 * returns the number of nanoseconds it takes to query every person repetitions times through the spatial index
+	 */
+	public static long timeIndex( TorusWorld world, Person[] people, int radius ) {
+		long start = System.nanoTime();
+		int found = 0;
+		for ( int r = 0 ; r < repetitions ; ++r )
+			for ( Person p : people )
+				if ( world.spatialIndex.getHighestStatusNeighbor( p, p.getX(), p.getY(), radius ) != null )
+					++found;
+		long time = System.nanoTime() - start;
+		// use the count so the queries can not be skipped
+		if ( found < 0 )
+			System.out.print( found );
+		return time;
+	}
+}
@@ -0,0 +1,203 @@
+package spanglish;
+
+/**
+ * StatusQueue.java
+ *
+ * Keeps the people of the Model in the order statusActivationOrder steps them in, from the lowest status to
+ * the highest, without sorting. Status is a small integer, so there is one bucket of people for every
+ * status. A person who is added, or whose status changes, goes into the arrivals of the bucket of their
+ * status, and the place they leave is set to null. The order method then merges the arrivals of every
+ * bucket into the bucket, skips the nulls, and lists the buckets one after the other.
+ *
+ * The order is exactly the one a stable sort of the previous order by status gives, with the people added
+ * since then at the end in the order they were added, which is how the Model used to sort visibleList every
+ * tick. Every person has a rank, their place in the last order or, if they were added after it, a rank
+ * after everyone in it. The people who stayed in a bucket are already in order of rank, and the arrivals
+ * are put in order of rank before they are merged in. Only a few people change status in a tick and people
+ * are added in order of rank, so this costs little, and making the order takes time in proportion to the
+ * number of people and statuses
+ */
+
+import java.util.ArrayList;
+
+public class StatusQueue {
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the people of every status in order of rank, with null in the places of the people who left
+	public ArrayList<ArrayList<Person>>		buckets = new ArrayList<ArrayList<Person>>();
+	// the people who came into every status since the last order, with null in the places of those who left
+	public ArrayList<ArrayList<Person>>		arrivals = new ArrayList<ArrayList<Person>>();
+	// the list a bucket is merged into, which then takes the place of the bucket
+	public ArrayList<Person>				merged = new ArrayList<Person>();
+
+	// the rank of the next person added, and the number of people in the queue
+	public int								nextRank = 0;
+	public int								size = 0;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * add
+	 *
+	 * adds the person after everyone in the queue. called whenever someone is added to visibleList
+	 */
+	public synchronized void add( Person p ) {
+		p.queueRank = nextRank++;
+		enter( p, p.getStatus() );
+		++size;
+	}
+
+	/**
+	 * remove
+	 *
+	 * takes the person out of the queue. called whenever someone is removed from visibleList
+	 */
+	public synchronized void remove( Person p ) {
+		if ( p.queueBucket < 0 )
+			return;
+		leave( p );
+		p.queueBucket = -1;
+		--size;
+	}
+
+	/**
+	 * statusChanged
+	 *
+	 * moves the person to the bucket of their new status. called by the statusChanged method of the Person
+	 * class, so synchronized, since people on different threads can hear items at the same time
+	 */
+	public synchronized void statusChanged( Person p ) {
+		if ( p.queueBucket < 0 || p.queueBucket == p.getStatus() )
+			return;
+		leave( p );
+		enter( p, p.getStatus() );
+	}
+
+	/**
+	 * enter
+	 *
+	 * puts the person at the end of the arrivals of the input status
+	 */
+	protected void enter( Person p, int s ) {
+
+		// make buckets up to the status
+		while ( buckets.size() <= s ) {
+			buckets.add( new ArrayList<Person>() );
+			arrivals.add( new ArrayList<Person>() );
+		}
+
+		ArrayList<Person> arrived = arrivals.get( s );
+		p.queueBucket = s;
+		p.queueSlot = arrived.size();
+		p.queueArrival = true;
+		arrived.add( p );
+	}
+
+	/**
+	 * leave
+	 *
+	 * leaves null in the place of the person in their bucket or its arrivals
+	 */
+	protected void leave( Person p ) {
+		if ( p.queueArrival )
+			arrivals.get( p.queueBucket ).set( p.queueSlot, null );
+		else
+			buckets.get( p.queueBucket ).set( p.queueSlot, null );
+	}
+
+	/**
+	 * order
+	 *
+	 * fills the input list with everyone in the queue from the lowest status to the highest, see the class
+	 * comment, and gives everyone the rank of their place in it
+	 */
+	public synchronized void order( ArrayList<Person> list ) {
+
+		list.clear();
+		list.ensureCapacity( size );
+
+		for ( int s = 0 ; s < buckets.size() ; ++s ) {
+			ArrayList<Person> members = buckets.get( s );
+			ArrayList<Person> arrived = arrivals.get( s );
+
+			// drop the arrivals who left again, and put the rest in order of rank
+			int numArrived = 0;
+			for ( int i = 0 ; i < arrived.size() ; ++i ) {
+				Person p = arrived.get( i );
+				if ( p == null )
+					continue;
+				// insert p among the ones before it, they are usually in order already
+				int j = numArrived++;
+				while ( j > 0 && arrived.get( j - 1 ).queueRank > p.queueRank ) {
+					arrived.set( j, arrived.get( j - 1 ) );
+					--j;
+				}
+				arrived.set( j, p );
+			}
+
+			// merge the arrivals into the people who stayed, skipping the ones who left
+			merged.clear();
+			int a = 0;
+			for ( int i = 0 ; i < members.size() ; ++i ) {
+				Person p = members.get( i );
+				if ( p == null )
+					continue;
+				while ( a < numArrived && arrived.get( a ).queueRank < p.queueRank )
+					merged.add( arrived.get( a++ ) );
+				merged.add( p );
+			}
+			while ( a < numArrived )
+				merged.add( arrived.get( a++ ) );
+			arrived.clear();
+
+			// everyone in the bucket gets their new place and rank
+			for ( int i = 0 ; i < merged.size() ; ++i ) {
+				Person p = merged.get( i );
+				p.queueSlot = i;
+				p.queueArrival = false;
+				p.queueRank = list.size();
+				list.add( p );
+			}
+
+			// the merged list becomes the bucket, and the old bucket is merged into next
+			buckets.set( s, merged );
+			merged = members;
+		}
+
+		nextRank = list.size();
+	}
+
+	/**
+	 * rebuild
+	 *
+	 * empties the queue and adds everyone in the input list in its order, called when visibleList was put in
+	 * some other order, so the next order starts from it
+	 */
+	public synchronized void rebuild( ArrayList<Person> list ) {
+
+		for ( int s = 0 ; s < buckets.size() ; ++s ) {
+			buckets.get( s ).clear();
+			arrivals.get( s ).clear();
+		}
+		nextRank = 0;
+		size = 0;
+
+		for ( Person p : list )
+			add( p );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public int getSize() {
+		return size;
+	}
+	public int getNumBuckets() {
+		return buckets.size();
+	}
+}
@@ -0,0 +1,262 @@
+package spanglish;
+
+/**
+ * SweepDesign.java
+ *
+ * The points of a parameter sweep of the SweepRunner, read from a sweep file. Every line of the file that is
+ * not empty or a comment starting with # is one of
+ *
+ *     design grid          every combination of the values of every parameter, the default
+ *     design lhs           a Latin hypercube of the ranges of every parameter
+ *     points 20            the number of points of a Latin hypercube
+ *     wordFlow 2 4 8       a parameter and its values for a grid, or its lowest and highest value for a
+ *                          Latin hypercube
+ *
+ * A parameter is anything that can be set from the command line, by its name or by its alias, see the
+ * storeParameter method of the ModelParameters class. In a grid the first parameter changes the slowest. In
+ * a Latin hypercube the range of every parameter is cut into as many equal parts as there are points, and
+ * every part is used by exactly one point, at a random place within it. Parameters that hold integers are
+ * rounded. The hypercube is worked out from the seed of the sweep, so the same sweep file and seed always
+ * give the same points
+ */
+
+import java.io.BufferedReader;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Random;
+
+public class SweepDesign {
+
+	//////////////////////// CLASS VARIABLES
+
+	// the kinds of design
+	public static final int					gridDesign = 0;
+	public static final int					latinHypercubeDesign = 1;
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the kind of design, and the number of points of a Latin hypercube
+	public int								design = gridDesign;
+	public int								numSamples = 0;
+
+	// the names of the parameters, the types of their set methods, and the values from the sweep file
+	public ArrayList<String>				names = new ArrayList<String>();
+	public ArrayList<String>				types = new ArrayList<String>();
+	public ArrayList<String[]>				levels = new ArrayList<String[]>();
+
+	// the value of every parameter at every point, as it is given on the command line
+	public ArrayList<String[]>				points = new ArrayList<String[]>();
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * reads the sweep file with the input name and works out its points. the model is used to find out what
+	 * the parameters are, and the seed to place the points of a Latin hypercube
+	 */
+	public SweepDesign( String fileName, Model model, long seed ) {
+
+		readFile( fileName, model );
+
+		if ( design == gridDesign )
+			makeGrid();
+		else
+			makeLatinHypercube( new Random( seed ) );
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * readFile
+	 *
+	 * reads the design, the number of points and the parameters from the sweep file, see the class comment
+	 */
+	public void readFile( String fileName, Model model ) {
+
+		BufferedReader in = IOUtils.openFileToRead( fileName );
+		if ( in == null )
+			throw new IllegalArgumentException( "could not open the sweep file " + fileName );
+
+		String line;
+		while ( ( line = IOUtils.readBRLine( in ) ) != null ) {
+
+			// skip empty lines and comments
+			line = line.trim();
+			if ( line.length() == 0 || line.charAt( 0 ) == '#' )
+				continue;
+			String[] tokens = line.split( "\\s+" );
+			if ( tokens.length < 2 )
+				throw new IllegalArgumentException( "sweep file line has no value: " + line );
+
+			if ( tokens[0].equals( "design" ) ) {
+				if ( tokens[1].equals( "grid" ) )
+					design = gridDesign;
+				else if ( tokens[1].equals( "lhs" ) )
+					design = latinHypercubeDesign;
+				else
+					throw new IllegalArgumentException( "unknown sweep design " + tokens[1] );
+			}
+			else if ( tokens[0].equals( "points" ) ) {
+				numSamples = IOUtils.tokenToInt( tokens[1] );
+			}
+			else {
+				addParameter( model, tokens );
+			}
+		}
+		IOUtils.closeBRFile( in );
+
+		if ( names.size() == 0 )
+			throw new IllegalArgumentException( "the sweep file " + fileName + " has no parameters" );
+		if ( design == latinHypercubeDesign && numSamples < 1 )
+			throw new IllegalArgumentException( "a Latin hypercube needs a number of points" );
+	}
+
+	/**
+	 * addParameter
+	 *
+	 * adds the parameter named by the first token with the values of the other tokens, after checking that
+	 * the model can set it to every one of them
+	 */
+	public void addParameter( Model model, String[] tokens ) {
+
+		// find the set method the same way storeParameter does
+		String name = model.aliasToParameterName( tokens[0] );
+		Method setm = model.findSetMethodFor( name );
+		if ( setm == null )
+			throw new IllegalArgumentException( "unknown sweep parameter " + tokens[0] );
+		String type = model.getParTypeOfSetMethod( setm );
+
+		String[] values = new String[tokens.length - 1];
+		for ( int i = 1 ; i < tokens.length ; ++i ) {
+			values[i - 1] = tokens[i];
+			checkValue( type, tokens[i] );
+		}
+
+		names.add( name );
+		types.add( type );
+		levels.add( values );
+	}
+
+	/**
+	 * checkValue
+	 *
+	 * throws an exception if the value can not be given to a set method of the input type
+	 */
+	public static void checkValue( String type, String value ) {
+		try {
+			if ( type.equals( "int" ) )
+				Integer.parseInt( value );
+			else if ( type.equals( "long" ) )
+				Long.parseLong( value );
+			else if ( type.equals( "double" ) || type.equals( "float" ) )
+				Double.parseDouble( value );
+		}
+		catch ( NumberFormatException e ) {
+			throw new IllegalArgumentException( "sweep value " + value + " is not a " + type );
+		}
+	}
+
+	/**
+	 * makeGrid
+	 *
+	 * makes a point for every combination of the values of every parameter, the first parameter changing the
+	 * slowest
+	 */
+	public void makeGrid() {
+
+		int numPoints = 1;
+		for ( String[] values : levels )
+			numPoints *= values.length;
+
+		for ( int i = 0 ; i < numPoints ; ++i ) {
+			// count point i out in the number of values of every parameter, starting from the last one
+			String[] point = new String[names.size()];
+			int rest = i;
+			for ( int d = names.size() - 1 ; d >= 0 ; --d ) {
+				String[] values = levels.get( d );
+				point[d] = values[rest % values.length];
+				rest /= values.length;
+			}
+			points.add( point );
+		}
+	}
+
+	/**
+	 * makeLatinHypercube
+	 *
+	 * makes numSamples points, see the class comment
+	 */
+	public void makeLatinHypercube( Random rng ) {
+
+		double[][] values = new double[numSamples][names.size()];
+		for ( int d = 0 ; d < names.size() ; ++d ) {
+
+			if ( levels.get( d ).length != 2 )
+				throw new IllegalArgumentException( "a Latin hypercube needs the lowest and highest value of "
+						+ names.get( d ) );
+			String type = types.get( d );
+			if ( !type.equals( "int" ) && !type.equals( "long" ) && !type.equals( "double" )
+					&& !type.equals( "float" ) )
+				throw new IllegalArgumentException( "a Latin hypercube can not sweep " + names.get( d ) );
+			double low = Double.parseDouble( levels.get( d )[0] );
+			double high = Double.parseDouble( levels.get( d )[1] );
+
+			// shuffle which part of the range every point uses
+			int[] parts = new int[numSamples];
+			for ( int i = 0 ; i < numSamples ; ++i )
+				parts[i] = i;
+			for ( int i = numSamples - 1 ; i > 0 ; --i ) {
+				int j = rng.nextInt( i + 1 );
+				int swap = parts[i];
+				parts[i] = parts[j];
+				parts[j] = swap;
+			}
+
+			// a random place in the part
+			for ( int i = 0 ; i < numSamples ; ++i )
+				values[i][d] = low + ( high - low ) * ( parts[i] + rng.nextDouble() ) / numSamples;
+		}
+
+		for ( int i = 0 ; i < numSamples ; ++i ) {
+			String[] point = new String[names.size()];
+			for ( int d = 0 ; d < names.size() ; ++d ) {
+				if ( types.get( d ).equals( "int" ) || types.get( d ).equals( "long" ) )
+					point[d] = Long.toString( Math.round( values[i][d] ) );
+				else
+					point[d] = Double.toString( values[i][d] );
+			}
+			points.add( point );
+		}
+	}
+
+	/**
+	 * arguments
+	 *
+	 * returns the command line arguments that set every parameter to its value at the input point
+	 */
+	public String[] arguments( int point ) {
+		String[] args = new String[names.size()];
+		for ( int d = 0 ; d < names.size() ; ++d )
+			args[d] = names.get( d ) + "=" + points.get( point )[d];
+		return args;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public int getNumPoints() {
+		return points.size();
+	}
+	public int getNumParameters() {
+		return names.size();
+	}
+	public String[] getPoint( int point ) {
+		return points.get( point );
+	}
+}
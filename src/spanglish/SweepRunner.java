@@ -0,0 +1,442 @@
+package spanglish;
+
+/**
+ * SweepRunner.java
+ *
+ * Runs the Model at every point of a parameter sweep, numReplicates times at each, all in one program. The
+ * points are read from a sweep file, see the SweepDesign class, and every other command line argument is
+ * given to every run, so for example
+ *
+ *     java spanglish.SweepRunner sweep.txt reps=4 repLength=4000 repThreads=8 seed=42
+ *
+ * Every run of a point is a job, job point * numReplicates + replicate, run the same way as a replicate of
+ * the ReplicateRunner. Replicate r of every point is seeded with the seed of the sweep plus r, so the
+ * points are compared with the same random numbers. The jobs are run on a ForkJoinPool, whose threads take
+ * jobs from each other when they run out, so points that run longer than others do not leave threads
+ * waiting.
+ *
+ * Every job that is done is written right away as one line of the checkpoint file reportFileName.sweep.log,
+ * which ends with a checksum of the rest of the line. If the sweep is run again with the same sweep file and
+ * arguments it reads the checkpoint file and only runs the jobs that are not in it. Once every job is done,
+ * everything is written to reportFileName.sweep: a header that tells on which lines the points and the jobs
+ * are, a line for every point with its values and the mean and standard deviation of the USAS of its
+ * replicates at the last tick that is sampled, and a line for every job in the order of their numbers with
+ * its samples of the USAS series
+ */
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32;
+
+public class SweepRunner {
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the command line arguments every job is built from, and the points of the sweep
+	public String[]						args;
+	public SweepDesign					design;
+	// the number of replicates of every point, the ticks each one runs, how often they are sampled and on how
+	// many threads
+	public int							numReplicates;
+	public int							replicateLength;
+	public int							sampleInterval;
+	public int							numThreads;
+	// the seed of replicate zero of every point, the others count up from it
+	public long							firstSeed;
+
+	// the line of every job that is done, null until then, and the mean USAS at its last sample
+	public String[]						jobLines;
+	public double[]						finalUSAS;
+	// the jobs that failed this time
+	public int							numFailed = 0;
+
+	// the checkpoint file, and where the results are written
+	public PrintWriter					checkpoint;
+	public String						outputDirName;
+	public String						fileName;
+	public String						checkpointName;
+	public int							rDebug;
+
+
+	////////////////////////////////////////////////////////////////////
+	// main entry point
+	public static void main( String[] args ) {
+
+		if ( args.length < 1 ) {
+			System.err.printf( "usage: SweepRunner sweepFile [parameter=value ...]\n" );
+			System.exit( 1 );
+		}
+
+		SweepRunner runner = new SweepRunner( args );
+		runner.runAll();
+		runner.writeResults();
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * reads the sweep file named by the first argument and the parameters of the runs from the others, and
+	 * reads the checkpoint file of the sweep if there is one
+	 */
+	public SweepRunner( String[] arguments ) {
+
+		args = new String[arguments.length - 1];
+		System.arraycopy( arguments, 1, args, 0, args.length );
+
+		// a model with the arguments tells the runner what to do
+		Model base = ReplicateRunner.newModel( args );
+		numReplicates = Math.max( 1, base.getNumReplicates() );
+		replicateLength = base.getReplicateLength();
+		sampleInterval = Math.max( 1, base.getSampleInterval() );
+		numThreads = ( base.getReplicateThreads() > 0 ) ? base.getReplicateThreads()
+				: Runtime.getRuntime().availableProcessors();
+		outputDirName = base.getOutputDirName();
+		fileName = base.getReportFileName() + ".sweep";
+		checkpointName = fileName + ".log";
+		rDebug = base.getRDebug();
+
+		// a sweep that is run again keeps its seed, so its points and its jobs stay the same
+		firstSeed = readCheckpointSeed();
+		if ( firstSeed == 0 ) {
+			firstSeed = base.getSeed();
+			if ( firstSeed == 1234567 || firstSeed == 0 )
+				firstSeed = System.currentTimeMillis();
+		}
+
+		design = new SweepDesign( arguments[0], base, firstSeed );
+		jobLines = new String[design.getNumPoints() * numReplicates];
+		finalUSAS = new double[jobLines.length];
+		readCheckpoint();
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * runAll
+	 *
+	 * runs every job that is not done yet on numThreads threads and waits until they are all done
+	 */
+	public void runAll() {
+
+		ArrayList<Integer> jobs = new ArrayList<Integer>();
+		for ( int j = 0 ; j < jobLines.length ; ++j ) {
+			if ( jobLines[j] == null )
+				jobs.add( j );
+		}
+		if ( rDebug > 0 )
+			System.out.printf( "\n==> SweepRunner: %d points of %d replicates, %d jobs left, on %d threads\n",
+					design.getNumPoints(), numReplicates, jobs.size(), numThreads );
+		if ( jobs.size() == 0 )
+			return;
+
+		// start the checkpoint file, or add to it
+		boolean started = new File( outputDirName, checkpointName ).exists();
+		checkpoint = IOUtils.openFileToWrite( outputDirName, checkpointName, "a" );
+		if ( checkpoint == null )
+			throw new IllegalStateException( "could not open the checkpoint file " + checkpointName );
+		if ( !started )
+			checkpoint.printf( "# seed %d\n", firstSeed );
+		else
+			// end a line that was cut short when the sweep was stopped, it is skipped when it is read
+			checkpoint.println();
+		checkpoint.flush();
+
+		ForkJoinPool pool = new ForkJoinPool( numThreads );
+		try {
+			pool.invoke( new JobRange( jobs, 0, jobs.size() ) );
+		}
+		finally {
+			pool.shutdown();
+			IOUtils.closePWFile( checkpoint );
+		}
+	}
+
+	/**
+	 * runJob
+	 *
+	 * runs job j and writes it to the checkpoint file. a job that fails is not written, so it is run again
+	 * the next time the sweep is run
+	 */
+	public void runJob( int j ) {
+
+		int point = j / numReplicates;
+		int replicate = j % numReplicates;
+
+		try {
+			// the arguments of the sweep, then the values of the point
+			String[] pointArgs = design.arguments( point );
+			String[] jobArgs = new String[args.length + pointArgs.length];
+			System.arraycopy( args, 0, jobArgs, 0, args.length );
+			System.arraycopy( pointArgs, 0, jobArgs, args.length, pointArgs.length );
+
+			Model model;
+			synchronized ( ReplicateRunner.setupLock ) {
+				model = ReplicateRunner.newModel( jobArgs );
+				model.setSeed( firstSeed + replicate );
+			}
+
+			// the samples after a run is overpopulated are missing
+			double[] samples = new double[replicateLength / sampleInterval + 1];
+			Arrays.fill( samples, Double.NaN );
+			int lastTick = ReplicateRunner.runModel( model, replicateLength, sampleInterval, samples );
+
+			finishJob( j, jobLine( j, lastTick, samples ), samples[samples.length - 1] );
+		}
+		catch ( RuntimeException e ) {
+			System.err.printf( "\n\nSweepRunner: job %d, point %d replicate %d, failed\n", j, point, replicate );
+			e.printStackTrace();
+			synchronized ( this ) {
+				++numFailed;
+			}
+		}
+	}
+
+	/**
+	 * jobLine
+	 *
+	 * returns the line of job j in the checkpoint file and the results: its number, point, replicate, seed and
+	 * last tick, the values of its point, and its samples
+	 */
+	public String jobLine( int j, int lastTick, double[] samples ) {
+
+		StringBuilder line = new StringBuilder();
+		line.append( j ).append( ' ' ).append( j / numReplicates ).append( ' ' ).append( j % numReplicates );
+		line.append( ' ' ).append( firstSeed + j % numReplicates ).append( ' ' ).append( lastTick );
+		for ( String value : design.getPoint( j / numReplicates ) )
+			line.append( ' ' ).append( value );
+		for ( double s : samples )
+			line.append( ' ' ).append( s );
+
+		return line.toString();
+	}
+
+	/**
+	 * finishJob
+	 *
+	 * keeps the line of job j and writes it to the checkpoint file right away
+	 */
+	public synchronized void finishJob( int j, String line, double usas ) {
+
+		jobLines[j] = line;
+		finalUSAS[j] = usas;
+		checkpoint.println( line + " " + checksum( line ) );
+		checkpoint.flush();
+
+		if ( rDebug > 0 )
+			System.out.printf( "==> SweepRunner: job %d done\n", j );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Checkpoint Methods
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * checksum
+	 *
+	 * returns the CRC-32 of the input line in hexadecimal, written at the end of every line of the checkpoint
+	 * file so a line that was cut short anywhere, even in the middle of its last number, is not used
+	 */
+	public static String checksum( String line ) {
+		CRC32 crc = new CRC32();
+		for ( int i = 0 ; i < line.length() ; ++i )
+			crc.update( line.charAt( i ) );
+		return Long.toHexString( crc.getValue() );
+	}
+
+	/**
+	 * readCheckpointSeed
+	 *
+	 * returns the seed written at the top of the checkpoint file, or 0 if there is none
+	 */
+	public long readCheckpointSeed() {
+
+		BufferedReader in = IOUtils.openFileToRead( new File( outputDirName, checkpointName ).getPath() );
+		if ( in == null )
+			return 0;
+
+		String line = IOUtils.readBRLine( in );
+		IOUtils.closeBRFile( in );
+		if ( line == null || !line.startsWith( "# seed " ) )
+			return 0;
+		return Long.parseLong( line.substring( 7 ).trim() );
+	}
+
+	/**
+	 * readCheckpoint
+	 *
+	 * keeps every job in the checkpoint file that belongs to this sweep. a line whose checksum does not match,
+	 * because it was cut short when the sweep was stopped, or that is for different points, is skipped and its
+	 * job is run again
+	 */
+	public void readCheckpoint() {
+
+		BufferedReader in = IOUtils.openFileToRead( new File( outputDirName, checkpointName ).getPath() );
+		if ( in == null )
+			return;
+
+		int numSamples = replicateLength / sampleInterval + 1;
+		int numRead = 0;
+		String line;
+		while ( ( line = IOUtils.readBRLine( in ) ) != null ) {
+			if ( line.startsWith( "#" ) )
+				continue;
+
+			// the line and its checksum
+			line = line.trim();
+			int end = line.lastIndexOf( ' ' );
+			if ( end < 0 || !line.substring( end + 1 ).equals( checksum( line.substring( 0, end ) ) ) )
+				continue;
+			line = line.substring( 0, end );
+
+			// the number, point, replicate, seed and last tick, the values and the samples
+			String[] tokens = line.split( " " );
+			if ( tokens.length != 5 + design.getNumParameters() + numSamples )
+				continue;
+			try {
+				int j = Integer.parseInt( tokens[0] );
+				if ( j < 0 || j >= jobLines.length || Integer.parseInt( tokens[1] ) != j / numReplicates
+						|| Long.parseLong( tokens[3] ) != firstSeed + j % numReplicates )
+					continue;
+				String[] point = design.getPoint( j / numReplicates );
+				boolean same = true;
+				for ( int d = 0 ; d < point.length ; ++d )
+					same &= point[d].equals( tokens[5 + d] );
+				if ( !same )
+					continue;
+
+				finalUSAS[j] = Double.parseDouble( tokens[tokens.length - 1] );
+				jobLines[j] = line;
+				++numRead;
+			}
+			catch ( NumberFormatException e ) {
+				// cut short, run it again
+			}
+		}
+		IOUtils.closeBRFile( in );
+
+		if ( rDebug > 0 )
+			System.out.printf( "==> SweepRunner: %d jobs read from %s\n", numRead, checkpointName );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Results
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * writeResults
+	 *
+	 * writes the points and the jobs to the file reportFileName.sweep, see the class comment. nothing is
+	 * written until every job is done
+	 */
+	public void writeResults() {
+
+		int numLeft = 0;
+		for ( String line : jobLines ) {
+			if ( line == null )
+				++numLeft;
+		}
+		if ( numLeft > 0 ) {
+			System.err.printf( "\n\nSweepRunner: %d jobs are not done, run the sweep again to finish them\n\n",
+					numLeft );
+			return;
+		}
+
+		PrintWriter out = IOUtils.openFileToWrite( outputDirName, fileName, "r" );
+		if ( out == null ) {
+			System.err.printf( "\n\nSweepRunner could not open %s in %s\n\n", fileName, outputDirName );
+			return;
+		}
+
+		// the header is six lines, then a line for every point, then a line for every job
+		int numPoints = design.getNumPoints();
+		int lastSampleTick = ( replicateLength / sampleInterval ) * sampleInterval;
+		int firstPointLine = 7;
+		int firstJobLine = firstPointLine + numPoints + 1;
+		out.printf( "# sweep of %d points of %d replicates of %d ticks, mean USAS of Latinos every %d ticks\n",
+				numPoints, numReplicates, replicateLength, sampleInterval );
+		out.printf( "# seeds %d to %d\n", firstSeed, firstSeed + numReplicates - 1 );
+		out.printf( "# point p is on line %d + p, job j is on line %d + j, job j is point j / %d and replicate "
+				+ "j %% %d\n", firstPointLine, firstJobLine, numReplicates, numReplicates );
+		out.printf( "# point line: point" );
+		for ( String name : design.names )
+			out.printf( " %s", name );
+		out.printf( " replicates mean sd, of the USAS at tick %d\n", lastSampleTick );
+		out.printf( "# job line: job point replicate seed lastTick, the values of the point, the USAS at ticks "
+				+ "0 %d ... %d, NaN after lastTick\n", sampleInterval, lastSampleTick );
+		out.printf( "# points\n" );
+
+		for ( int p = 0 ; p < numPoints ; ++p ) {
+			// the replicates that reached the last tick that is sampled
+			RunningStats stats = new RunningStats( new double[0] );
+			for ( int r = 0 ; r < numReplicates ; ++r ) {
+				if ( !Double.isNaN( finalUSAS[p * numReplicates + r] ) )
+					stats.add( finalUSAS[p * numReplicates + r] );
+			}
+			out.printf( "%d", p );
+			for ( String value : design.getPoint( p ) )
+				out.printf( " %s", value );
+			out.printf( " %d %f %f\n", stats.getCount(), stats.getMean(), stats.standardDeviation() );
+		}
+
+		out.printf( "# jobs\n" );
+		for ( String line : jobLines )
+			out.println( line );
+
+		IOUtils.closePWFile( out );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Tasks
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * runs the jobs from index start up to, but not including, index end of the list, by splitting them in
+	 * halves until there is one, so idle threads can take the halves that are waiting
+	 */
+	protected class JobRange extends RecursiveAction {
+
+		// RecursiveAction is Serializable
+		private static final long serialVersionUID = 1L;
+
+		// the jobs and the part of them to run
+		protected ArrayList<Integer> jobs;
+		protected int start, end;
+
+		public JobRange( ArrayList<Integer> list, int s, int e ) {
+			jobs = list;
+			start = s;
+			end = e;
+		}
+
+		protected void compute() {
+			if ( end - start == 1 ) {
+				runJob( jobs.get( start ) );
+				return;
+			}
+			int middle = ( start + end ) / 2;
+			invokeAll( new JobRange( jobs, start, middle ), new JobRange( jobs, middle, end ) );
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public int getNumJobs() {
+		return jobLines.length;
+	}
+	public int getNumFailed() {
+		return numFailed;
+	}
+}
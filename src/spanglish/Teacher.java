@@ -22,7 +22,8 @@ public class Teacher extends Person {
 	 * constructor called an initialization. sets random age between 22 and 64, and sets other statistics
 	 * based on a prior distribution. gives the teachers a strict afro/anglo first lexicon, sets color yellow
 	 */
-	public Teacher() {
+	public Teacher( SimulationContext aContext ) {
+		super( aContext );
 		
 		// the Teacher is white with probAnglo probability
 		if ( rng.nextDouble() < probAnglo )
@@ -46,7 +47,7 @@ public class Teacher extends Person {
 			socialClass = Model.MIDDLECLASS;
 		
 		// when randomly assigned, the Teacher's age is between 22 and 63
-		age = rng.nextInt( 42 ) + 22;
+		setAge( rng.nextInt( 42 ) + 22 );
 		// all Teachers are adults
 		ageClass = Model.ADULT;
 		// Teachers have the highest possible status
@@ -59,9 +60,11 @@ public class Teacher extends Person {
 		// set Teacher color yellow
 		setColor( Color.yellow );
 		
+		// they come from outside the model, so they get the District of a random cell
+		district = context.layout.randomDistrict( rng );
 		// Teachers can occupy both the school and work areas
-		regions.add( school );
-		regions.add( work );
+		regions.add( district.school );
+		regions.add( district.work );
 	}
 	
 	/**
@@ -69,6 +72,7 @@ public class Teacher extends Person {
 	 * qualities into that of a teacher. 
 	 */
 	public Teacher( Person p ) {
+		super( p.context );
 		
 		/*
 		 * Gets the race, gender, social class and both languages of the input Person and
@@ -77,21 +81,25 @@ public class Teacher extends Person {
 		race = p.getRace();
 		gender = p.getGender();
 		socialClass = p.getSocialClass();
-		firstLang = p.getFirstLang();
-		secondLang = p.getSecondLang();
+		// the Teacher gets copies of the lexicons, so they stay the same while the input Person keeps learning
+		firstLang = p.getFirstLang().copy();
+		if ( p.getSecondLang() != null )
+			secondLang = p.getSecondLang().copy();
 		
 		// Teachers have the highest possible status
 		status = 40;
 		
 		// new Teachers have an age of 22
-		age = 22;
+		setAge( 22 );
 
 		// set Teacher color yellow
 		setColor( Color.yellow );
 		
+		// they stay in the District of the person they were cloned from
+		district = p.getDistrict();
 		// Teachers can occupy both the school and work areas
-		regions.add( school );
-		regions.add( work );
+		regions.add( district.school );
+		regions.add( district.work );
 	}
 	
 	/**
@@ -104,6 +112,16 @@ public class Teacher extends Person {
 	public void step() {
 	}
 	
+	/**
+	 * chooseItems
+	 * 
+	 * a teacher hears nothing, the same as in their step method
+	 */
+	@Override
+	public void chooseItems() {
+		heardItems.numItems = 0;
+	}
+	
 	/**
 	 * updateStats
 	 * 
@@ -111,7 +129,7 @@ public class Teacher extends Person {
 	 */
 	@Override
 	public void updateStats() {
-		status = 40;
+		setStatus( 40 );
 		
 	}
 	
@@ -134,7 +152,7 @@ public class Teacher extends Person {
 	@Override
 	public boolean retire() {
 		// Teachers are retired if they are 65 or older
-		if ( age > 64 )
+		if ( getAge() > 64 )
 			return true;
 		// otherwise, they are not retired
 		else
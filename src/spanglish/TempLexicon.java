@@ -2,236 +2,268 @@ package spanglish;
 
 /**
  * TempLexicon.java
- * 
+ *
  * A subclass of the Lexicon class, has all of the same methods as the Lexicon class with a few extras
  * The purpose of the TempLexicon is to act as a Temporary Memory Buffer by collecting all of the words
  * that a person has heard, regardless of language. It also has the capacity to store the number of times any
  * given word has been heard by the person
+ * Every item that can possibly be heard has its own count, found by its code (see SimulationContext.itemCode), so
+ * hearing an item or looking up how many times it was heard never has to search through the heard items
  */
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 
 public class TempLexicon extends Lexicon {
-	
+
 	// because the TempLexicon records the number of times the item was heard in the first bit,
 	// we must add one extra to the capacity for the size of items
-	public static int numTempElements = numElements + 1;
+	public int			numTempElements;
+
+	// the number of times every item was heard, indexed by the code of the item
+	public int[]		timesHeard;
+	// the order in which the items were first heard, indexed by the code of the item
+	public int[]		firstHeard;
+	// the code of the item heard the most for every index, -1 if no item with that index was heard
+	// see the heardMoreThan method for details
+	public int[]		mostHeard;
+	// the number of different items that were heard
+	public int			numHeard;
 
 	//////////////////////////////////////////////////////////////////////////////////////
 	// Constructors
 	//////////////////////////////////////////////////////////////////////////////////////
-	
+
 	/**
-	 * empty constructor that is not really used.
+	 * empty constructor for the input run, used by the Model class to count up the most common items
 	 */
-	public TempLexicon() {
-		
-		// initialize an ArrayList of items
-		lexicon = new ArrayList<int[]>();
+	public TempLexicon( SimulationContext aContext ) {
+
+		// nothing has been heard yet
+		super( aContext );
+		numTempElements = context.numElements + 1;
+		timesHeard = new int[context.numItemCodes()];
+		firstHeard = new int[context.numItemCodes()];
+		mostHeard = new int[context.maxItems];
+		for ( int i = 0 ; i < context.maxItems ; ++i )
+			mostHeard[i] = -1;
+		numHeard = 0;
 	}
-	
+
 	/**
 	 * Default Constructor
-	 * 
-	 * Begins temp lexicon by adding one heard item
-	 * sticks a one in front of the item to denote the fact its only been heard once
+	 *
+	 * Begins temp lexicon by hearing one item
 	 */
-	public TempLexicon( int[] item ) {
+	public TempLexicon( SimulationContext aContext, int[] item ) {
 
-		// initialize an ArrayList of items
-		lexicon = new ArrayList<int[]>();
-		
-		// create a new item with one extra bin for the number of times heard
-		int[] tempItem = new int[numTempElements];
-		
-		// the first bit is one to signify that the item has been heard once
-		tempItem[0] = 1;
-		
-		// after the first bit, the item should look like the input item
-		for ( int i = 1 ; i < numTempElements ; ++i )
-			tempItem[i] = item[i - 1];
-		
-		// add the item to the new initialized ArrayList
-		lexicon.add(tempItem);
+		// start with an empty temp lexicon
+		this( aContext );
+
+		// the item has been heard once
+		hearItem( item );
 	}
-	
+
 	//////////////////////////////////////////////////////////////////////////////////////
 	// Methods
 	//////////////////////////////////////////////////////////////////////////////////////
-	
+
 	/**
 	 * hearItem
-	 * 
-	 * If someone hears an item for the first time, it is inserted into their temp lexicon with a one in front of it
-	 * If it was already in the working memory, the number in front of the item is incremented
-	 * to denote the number of times it's been heard
+	 *
+	 * increments the number of times the item has been heard and returns it, it is one if the item was
+	 * heard for the first time
+	 * returns -1 if the input is invalid
 	 */
 	public int hearItem( int[] item ) {
-	
+
 		// return -1 if the input it invalid
-		if ( item.length != numElements )
+		int code = context.itemCode( item );
+		if ( code < 0 )
 			return -1;
-		
-		// if they have already heard the item
-		// see the heardItem method for details
-		if ( heardItem( item ) != -1 ) {
-			
-			// increment the number of times the item was heard
-			++lexicon.get( heardItem( item ) )[0];
-			
-			// return the number of times the item has now been heard
-			return lexicon.get(heardItem( item ))[0];
-		}
-		
-		// if they haven't heard the input item yet, initialize an int array
-		int[] tempItem = new int[numTempElements];
-		
-		// the first bit is one to signify that the item has been heard once
-		tempItem[0] = 1;
-		
-		// after the first bit, the item should look like the input item
-		for ( int i = 1 ; i < numTempElements ; ++i )
-			tempItem[i] = item[i - 1];
-		
-		// add tempItem to the TempLexicon
-		lexicon.add(tempItem);
-		
-		// re-sort the TempLexicon using the Comparator
-		// see the Comparator below for details
-		Collections.sort( lexicon,
-				  (java.util.Comparator<? super int[]>) new TempLexiconComparator() );
-		
-		// return one to signify that the item has been heard once
-		return 1;
+
+		// one more different item has been heard if it is the first time hearing this one
+		if ( timesHeard[code] == 0 )
+			firstHeard[code] = numHeard++;
+
+		// increment the number of times the item was heard
+		++timesHeard[code];
+
+		// only this item's count went up, so it is either the new most heard item of its index or nothing changed
+		int index = item[0];
+		if ( mostHeard[index] < 0 || heardMoreThan( code, mostHeard[index] ) )
+			mostHeard[index] = code;
+
+		// return the number of times the item has now been heard
+		return timesHeard[code];
 	}
-	
+
 	/**
-	 * hearItem
-	 * 
+	 * heardItem
+	 *
 	 * determines whether the person has heard the item, if they haven't return -1
-	 * if they have heard it, then it returns the index in the temp lexion in which it was heard
+	 * if they have heard it, then it returns the index of the item among the heard items, which are in
+	 * the order of their codes
 	 */
 	public int heardItem( int[] item ) {
-		
-		// initialize a new item that has a regular amount of elements. that is, it doens't include
-		// a bit that signifies the number of times heard
-		int[] tempItem = new int[numElements];
-		
-		// iterating over all of the items in the TempLexicon
-		for ( int i = 0 ; i < lexicon.size() ; ++i ) {
-			
-			// set tempItem equal to the current item, not including the first bit
-			for ( int j = 1 ; j < numTempElements ; ++j ) {
-				tempItem[j - 1] = lexicon.get( i )[j];
-			}
-			
-			// if the item was found in the TempLexicon, then return the index in which is was heard
-			if ( itemsEqual( item, tempItem ) ) {
-				return i;
-			}
-		}
-		
-		// if it hasn't been heard, return -1
-		return -1;
+
+		// return -1 if the item is invalid or has not been heard
+		int code = context.itemCode( item );
+		if ( code < 0 || timesHeard[code] == 0 )
+			return -1;
+
+		// count the heard items with smaller codes
+		int position = 0;
+		for ( int c = 0 ; c < code ; ++c )
+			if ( timesHeard[c] > 0 )
+				++position;
+
+		return position;
 	}
-	
+
 	/**
 	 * numTimesHeard
-	 * 
+	 *
 	 * if the item was heard, then returns the number of times it was heard. Otherwise, returns zero
 	 */
 	public int numTimesHeard( int[] item ) {
-		
-		// if the item is not in the TempLexicon, then return 0
-		if ( heardItem( item ) == -1 )
+
+		// if the item is invalid, then it was never heard
+		int code = context.itemCode( item );
+		if ( code < 0 )
 			return 0;
-		
-		// otherwise, return the first bit at the index the indicates the number of times the item was heard
-		return lexicon.get( heardItem( item ) )[0];
+
+		return timesHeard[code];
 	}
-	
+
 	/**
 	 * getMostHeardWithIndex
-	 * 
+	 *
 	 * given an index, this method returns the item with the index which has been heard the most. mostly used
-	 * to calculate the commonLex in the model class
+	 * to calculate the commonLex in the model class. see the heardMoreThan method for how ties are broken
+	 * returns null if no item with the index was heard
 	 */
 	public int[] getMostHeardWithIndex( int index ) {
-		
-		// initialize a new ArrayList of items
-		ArrayList<int[]> tempArray = new ArrayList<int[]>();
-		
-		// iterate over every item in the TempLexicon
-		for ( int i = 0 ; i < lexicon.size() ; ++i ) {
-			// if the item has the same index as the input, add it to the tempArray
-			if ( lexicon.get(i)[1] == index ) {
-				tempArray.add( lexicon.get(i) );
-			}
-		}
-		
-		// return null if there are no items in the temp lexicon with the given index
-		if ( tempArray == null || tempArray.size() == 0 )
+
+		// return null if the index is invalid or there are no items in the temp lexicon with the given index
+		if ( index < 0 || index >= context.maxItems || mostHeard[index] < 0 )
 			return null;
-		
-		// initialize the maximum number of times an item was heard and the index of that item
-		int maxTimesHeard = 0;
-		int maxIndex = 0;
-		
-		// iterating over every item in the TempLexicon with the specified index
-		for ( int i = 0 ; i < tempArray.size() ; ++i ) {	
-			// if the number of times the item was heard is greater than the current maximum
-			if ( tempArray.get( i )[0] > maxTimesHeard ) {
-				
-				// reset the maximum and record the index of that maximum
-				maxTimesHeard = tempArray.get( i )[0];
-				maxIndex = i;
-			}
-		}
-		
-		// initialize a new int array
-		int[] mostHeardItem = new int[numElements];
-		
-		// construct the mostHeardItem from the item at maxIndex calculated earlier
-		for ( int i = 0 ; i < numElements ; ++i ) {
-			mostHeardItem[i] = tempArray.get( maxIndex )[i + 1];
-		}
-		
-		return mostHeardItem;
+
+		// construct a new item from the code of the most heard item
+		return context.itemFromCode( mostHeard[index] );
 	}
-	
-	
-	@Override
-	public void print() {
-		for ( int i = 0 ; i < lexicon.size() ; ++i ) {
-			for ( int j = 0 ; j < numTempElements ; ++j ) {
-				System.out.printf( "%d ",lexicon.get( i )[j]);
+
+	/**
+	 * heardMoreThan
+	 *
+	 * returns true if the item with code1 comes before the item with code2 when looking for the most heard item.
+	 * that is the item heard more times, or if they were heard the same number of times then the English one, or
+	 * if they are the same language then the one that was heard first
+	 */
+	public boolean heardMoreThan( int code1, int code2 ) {
+
+		// the item heard more times comes first
+		if ( timesHeard[code1] != timesHeard[code2] )
+			return timesHeard[code1] > timesHeard[code2];
+
+		// then the item with the lower language
+		if ( context.bitOfCode( code1, 1 ) != context.bitOfCode( code2, 1 ) )
+			return context.bitOfCode( code1, 1 ) < context.bitOfCode( code2, 1 );
+
+		// then the item that was heard first
+		return firstHeard[code1] < firstHeard[code2];
+	}
+
+	/**
+	 * codeAtPosition
+	 *
+	 * returns the code of the i^th heard item, in the order of their codes, or -1 if there is none
+	 */
+	public int codeAtPosition( int i ) {
+
+		// skip over the codes that were never heard
+		for ( int c = 0 ; c < timesHeard.length ; ++c ) {
+			if ( timesHeard[c] > 0 ) {
+				if ( i == 0 )
+					return c;
+				--i;
 			}
-			System.out.print("\n");
 		}
-		System.out.print("\n");
+
+		return -1;
 	}
-	
-	
+
 	////////////////////////////////////////////////////////////////////////////////////////
-	// Comparator
+	// Overridden Lexicon Methods
 	////////////////////////////////////////////////////////////////////////////////////////
 
 	/**
-	 * Sorts by the second element of each item because the first element is the count
-	 * Also sorts by the language, because the temp lexicon takes in both languages
+	 * getItem
+	 *
+	 * returns a new item for the i^th heard item, with the number of times it was heard as the first bit
+	 * returns null if i is out of bounds
 	 */
-	private class TempLexiconComparator implements Comparator<int[]> {
-		@Override
-		public int compare ( int[] item1, int[] item2 ) {
-			int num1 = ( 100 * item1[1] ) + item1[2];
-			int num2 = ( 100 * item2[1] ) + item2[2];
-			if ( num1 > num2 )
-				return 1;
-			else if ( num1 < num2 )
-				return -1;
-			return 0;
+	@Override
+	public int[] getItem( int i ) {
+
+		// return null if the index is out of bounds
+		if ( i < 0 || i >= numHeard )
+			return null;
+
+		// the number of times heard goes in front of the item
+		int code = codeAtPosition( i );
+		int[] item = context.itemFromCode( code );
+		int[] tempItem = new int[numTempElements];
+		tempItem[0] = timesHeard[code];
+		for ( int j = 1 ; j < numTempElements ; ++j )
+			tempItem[j] = item[j - 1];
+
+		return tempItem;
+	}
+
+	/**
+	 * getBit
+	 *
+	 * gets the bit at the input item and element number, where element zero is the number of times the item
+	 * was heard. returns -1 if the inputs are invalid
+	 */
+	@Override
+	public int getBit( int item, int element ) {
+
+		// return -1 if the index is out of bounds
+		if ( item < 0 || item >= numHeard || element < 0 || element >= numTempElements )
+			return -1;
+
+		// the first bit is the number of times heard, see the bitOfCode method for the rest
+		int code = codeAtPosition( item );
+		if ( element == 0 )
+			return timesHeard[code];
+		return context.bitOfCode( code, element - 1 );
+	}
+
+	@Override
+	public ArrayList<int[]> getLexicon() {
+		ArrayList<int[]> items = new ArrayList<int[]>();
+		for ( int i = 0 ; i < numHeard ; ++i )
+			items.add( getItem( i ) );
+		return items;
+	}
+
+	@Override
+	public int getNumItems() {
+		return numHeard;
+	}
+
+	@Override
+	public void print() {
+		for ( int c = 0 ; c < timesHeard.length ; ++c ) {
+			if ( timesHeard[c] == 0 )
+				continue;
+			System.out.printf( "%d ", timesHeard[c] );
+			for ( int j = 0 ; j < context.numElements ; ++j ) {
+				System.out.printf( "%d ", context.bitOfCode( c, j ) );
+			}
+			System.out.print("\n");
 		}
+		System.out.print("\n");
 	}
 }
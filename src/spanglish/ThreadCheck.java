@@ -0,0 +1,133 @@
+package spanglish;
+
+/**
+ * ThreadCheck.java
+ *
+ * Checks that stepping the world in tiles gives the same run on one thread as on several, see the TiledStepper
+ * class. Two Models are built from the same command line arguments and seed, both with tiledActivationOrder,
+ * one stepping its tiles on one thread and the other on numThreads threads. After every tick the people of
+ * both, their places, statuses, ages and lexicons, and the free cells of every Region, in the order the
+ * Regions keep them, are reduced to one number, and the run stops at the first tick where the two differ.
+ * Run it with
+ *     java -cp <classpath> spanglish.ThreadCheck numThreads ticks [parameter=value ...]
+ */
+
+import java.util.Arrays;
+
+public class ThreadCheck {
+
+	////////////////////////////////////////////////////////////////////
+	// main entry point
+	public static void main( String[] args ) {
+
+		if ( args.length < 2 ) {
+			System.err.printf( "usage: ThreadCheck numThreads ticks [parameter=value ...]\n" );
+			System.exit( 1 );
+		}
+		int numThreads = Integer.parseInt( args[0] );
+		int ticks = Integer.parseInt( args[1] );
+
+		// the same arguments for both, then the activation order and the threads
+		String[] modelArgs = new String[args.length];
+		System.arraycopy( args, 2, modelArgs, 0, args.length - 2 );
+		modelArgs[args.length - 2] = "actOrder=" + Model.tiledActivationOrder;
+		modelArgs[args.length - 1] = "threads=1";
+		Model single = ReplicateRunner.newModel( modelArgs );
+		modelArgs[args.length - 1] = "threads=" + numThreads;
+		Model several = ReplicateRunner.newModel( modelArgs );
+
+		// both seeded the way the ReplicateRunner seeds a replicate
+		long seed = single.getSeed();
+		single.setSeed( seed );
+		several.setSeed( seed );
+
+		System.out.printf( "ThreadCheck: 1 thread against %d threads, seed %d, %d ticks\n", numThreads, seed,
+				ticks );
+
+		int tick = run( single, several, ticks );
+
+		if ( single.workers != null )
+			single.workers.shutdown();
+		if ( several.workers != null )
+			several.workers.shutdown();
+
+		if ( tick >= 0 ) {
+			System.out.printf( "ThreadCheck: the runs differ at tick %d\n", tick );
+			System.exit( 1 );
+		}
+		System.out.printf( "ThreadCheck: the runs are the same\n" );
+	}
+
+	/**
+	 * run
+	 *
+	 * builds both models and steps them side by side the input number of ticks, or until one of them is
+	 * overpopulated, the same way the ReplicateRunner does
+	 * returns the first tick the two differ at, or -1 if they never do
+	 */
+	public static int run( Model a, Model b, int ticks ) {
+
+		// the populations are made in tick zero
+		a.runnerTick = b.runnerTick = 0;
+		a.userBuildModel();
+		b.userBuildModel();
+		if ( digest( a ) != digest( b ) )
+			return 0;
+
+		for ( int t = 1 ; t <= ticks ; ++t ) {
+			a.runnerTick = b.runnerTick = t;
+			a.step();
+			b.step();
+			if ( digest( a ) != digest( b ) )
+				return t;
+
+			// stop where a BatchModel run would halt, see the haltIfOverPopulated method of the Model class
+			if ( a.layout.isOverPopulated() || b.layout.isOverPopulated() )
+				break;
+		}
+		return -1;
+	}
+
+	/**
+	 * digest
+	 *
+	 * reduces everyone in visibleList and the free cells of every Region of the model to one number, see the
+	 * class comment
+	 */
+	public static long digest( Model model ) {
+
+		long h = 17;
+		for ( Person p : model.visibleList ) {
+			h = h * 31 + p.getId();
+			h = h * 31 + p.getX();
+			h = h * 31 + p.getY();
+			h = h * 31 + p.getStatus();
+			h = h * 31 + p.getAge();
+			h = h * 31 + digest( p.getFirstLang() );
+			h = h * 31 + digest( p.getSecondLang() );
+		}
+
+		// the order of the free cells decides where the next person is placed in a Region
+		for ( Region r : model.world.regions ) {
+			h = h * 31 + r.numOccupants;
+			h = h * 31 + r.numFree;
+			for ( int i = 0 ; i < r.numFree ; ++i )
+				h = h * 31 + r.freeCellAt( i );
+		}
+		return h;
+	}
+
+	/**
+	 * digest
+	 *
+	 * reduces the items of a lexicon to one number, 7 if there is none
+	 */
+	public static long digest( Lexicon lex ) {
+		if ( lex == null )
+			return 7;
+		long h = 17;
+		for ( int i = 0 ; i < lex.getNumItems() ; ++i )
+			h = h * 31 + Arrays.hashCode( lex.getItem( i ) );
+		return h;
+	}
+}
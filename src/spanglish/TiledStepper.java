@@ -0,0 +1,304 @@
+package spanglish;
+
+/**
+ * TiledStepper.java
+ *
+ * Steps the people of the Model on several threads at once, used when the Model's activationOrder is set to
+ * tiledActivationOrder. The world is split into tiles, and every tile is given a color so that two tiles of
+ * the same color are always at least one whole tile apart, also across the edges of the torus. A tile is at
+ * least twice the halo wide, the farthest a person can look (their sightRadius) plus the one cell they can
+ * move, so everything a person in one tile reads or changes in the grid is within the halo around their tile,
+ * and the halos of tiles of the same color never overlap. The tiles of one color are then stepped at the same
+ * time, one color after the other. Within a tile, people step and move the same way and in the same order as
+ * with statusActivationOrder.
+ *
+ * Children are the exception: they listen to their parents, who can be anywhere in the world, so they are
+ * stepped after all of the tiles. A child only listens to their parents, who do not change while the children
+ * step, so the children all listen at the same time, and then move one by one in order. The few things every
+ * thread can change are kept safe without one lock for the whole world: every cell is changed while holding
+ * the lock it shares with the cells of its word of the occupancy bitset, see the cellLock method of the
+ * GridWorld class, the spatial index locks its buckets and blocks, the counts of the ItemFrequencyIndex are
+ * synchronized and every segment of the table of the SharedLexicon class has its own lock.
+ * The blocks of the spatial index that are bigger than a tile are read by queries from several tiles, but only
+ * to skip blocks whose highest status can not beat the best person found so far, and the people of a tile
+ * are only ever changed by its own thread, so a query finds the same person as the cell by cell search.
+ *
+ * Nothing a tile reads may depend on how far the other tiles of its color have got, so the outcome is the
+ * same no matter how many threads there are. While the tiles of a color are stepped, the frequencies the
+ * GeneticAlg uses are kept as they were before them, see the freeze method of the ItemFrequencyIndex class,
+ * and every tile keeps its changes to the Regions, whose free cells are kept in an order that depends on the
+ * order of the changes. Once the tiles of the color are done, the changes are made tile by tile, see the
+ * bufferRegionChanges method of the GridWorld class
+ */
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+
+public class TiledStepper {
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the model whose people are stepped, and its world
+	public Model							model;
+	public TorusWorld						world;
+
+	// the farthest from their tile a person can read or change a cell
+	public int								haloWidth;
+	// the number of tile columns and rows, and the size of a tile. the last ones also take the leftover cells
+	public int								tilesX, tilesY;
+	public int								tileWidth, tileHeight;
+	// the color of every tile, tiles are numbered row by row, and the number of colors
+	public int[]							tileColors;
+	public int								numColors;
+
+	// the people in every tile this tick, in the order they step
+	public ArrayList<ArrayList<Person>>		tilePeople;
+	// the changes the people of every tile made to the Regions while the tiles were stepped, see the class
+	// comment
+	public ArrayList<ArrayList<GridWorld.RegionChange>>	tileChanges;
+	// the children, who step after the tiles
+	public ArrayList<Person>				children = new ArrayList<Person>();
+
+	// the threads that step the tiles
+	public WorkerPool						workers;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * splits the world of the input Model into tiles that are stepped on the input threads
+	 */
+	public TiledStepper( Model aModel, WorkerPool pool ) {
+
+		model = aModel;
+		world = aModel.world;
+		workers = pool;
+
+		// a person can look sightRadius cells away and move one cell
+		haloWidth = Person.maxSightRadius + 1;
+
+		// tiles at least twice the halo wide, see the class comment
+		tilesX = Math.max( 1, world.getSizeX() / ( 2 * haloWidth ) );
+		tilesY = Math.max( 1, world.getSizeY() / ( 2 * haloWidth ) );
+		tileWidth = world.getSizeX() / tilesX;
+		tileHeight = world.getSizeY() / tilesY;
+
+		// color the tiles, see the colorOf method below
+		int colorsX = numColorsFor( tilesX );
+		int colorsY = numColorsFor( tilesY );
+		numColors = colorsX * colorsY;
+		tileColors = new int[tilesX * tilesY];
+		for ( int j = 0 ; j < tilesY ; ++j ) {
+			for ( int i = 0 ; i < tilesX ; ++i )
+				tileColors[j * tilesX + i] = colorOf( j, tilesY ) * colorsX + colorOf( i, tilesX );
+		}
+
+		// every tile starts empty
+		tilePeople = new ArrayList<ArrayList<Person>>( tilesX * tilesY );
+		tileChanges = new ArrayList<ArrayList<GridWorld.RegionChange>>( tilesX * tilesY );
+		for ( int t = 0 ; t < tilesX * tilesY ; ++t ) {
+			tilePeople.add( new ArrayList<Person>() );
+			tileChanges.add( new ArrayList<GridWorld.RegionChange>() );
+		}
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * step
+	 *
+	 * steps and maybe moves everyone in the input list once, in the order of the list within every tile
+	 */
+	public void step( ArrayList<Person> people ) {
+
+		// put everyone in the tile they are standing in, children aside
+		for ( int t = 0 ; t < tilePeople.size() ; ++t )
+			tilePeople.get( t ).clear();
+		children.clear();
+		for ( Person p : people ) {
+			if ( p.getAgeClass() == Model.CHILD )
+				children.add( p );
+			else
+				tilePeople.get( tileOf( p.getX(), p.getY() ) ).add( p );
+		}
+
+		// step the tiles of every color at the same time
+		world.concurrentStep = true;
+		try {
+			for ( int c = 0 ; c < numColors ; ++c ) {
+				ArrayList<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+				for ( int t = 0 ; t < tilePeople.size() ; ++t ) {
+					if ( tileColors[t] == c && tilePeople.get( t ).size() > 0 )
+						tasks.add( new TileTask( t ) );
+				}
+
+				// against the frequencies as they were before the color
+				model.itemIndex.freeze();
+				try {
+					workers.runAll( tasks );
+				}
+				finally {
+					model.itemIndex.thaw();
+				}
+
+				// then the changes to the Regions, in the order of the tiles
+				for ( int t = 0 ; t < tileChanges.size() ; ++t )
+					world.applyRegionChanges( tileChanges.get( t ) );
+			}
+		}
+		finally {
+			world.concurrentStep = false;
+		}
+
+		// then the children
+		stepChildren();
+	}
+
+	/**
+	 * stepChildren
+	 *
+	 * steps every child at the same time, against the frequencies as they were before them, and then moves
+	 * them one by one in order. a child only draws the random number that decides if they move after their
+	 * step, so they move the same as if they had been stepped one by one, see the stepPerson method
+	 */
+	public void stepChildren() {
+
+		// no more parts than children
+		int numParts = Math.min( children.size(), workers.getNumThreads() * TwoPhaseListener.partsPerThread );
+		ArrayList<Callable<Object>> tasks = new ArrayList<Callable<Object>>( numParts );
+		for ( int i = 0 ; i < numParts ; ++i )
+			tasks.add( new ChildTask( i * children.size() / numParts, ( i + 1 ) * children.size() / numParts ) );
+
+		if ( tasks.size() > 0 ) {
+			model.itemIndex.freeze();
+			try {
+				workers.runAll( tasks );
+			}
+			finally {
+				model.itemIndex.thaw();
+			}
+		}
+
+		for ( Person p : children ) {
+			if ( p.getRng().nextDouble() < ( p.getStatus() / model.maxStatus ) )
+				p.move();
+		}
+	}
+
+	/**
+	 * stepPerson
+	 *
+	 * steps the person and moves them with the probability of the ratio of their status to the maximum
+	 * status, the same as statusActivationOrder in the Model class
+	 */
+	public void stepPerson( Person p ) {
+		p.step();
+		if ( p.getRng().nextDouble() < ( p.getStatus() / model.maxStatus ) )
+			p.move();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Tile Methods
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * tileOf
+	 *
+	 * returns the tile that holds the cell ( x, y )
+	 */
+	public int tileOf( int x, int y ) {
+		int i = Math.min( x / tileWidth, tilesX - 1 );
+		int j = Math.min( y / tileHeight, tilesY - 1 );
+		return j * tilesX + i;
+	}
+
+	/**
+	 * numColorsFor
+	 *
+	 * returns the number of colors needed along a ring of numTiles tiles, see the colorOf method
+	 */
+	public static int numColorsFor( int numTiles ) {
+		if ( numTiles == 1 )
+			return 1;
+		return ( numTiles % 2 == 0 ) ? 2 : 3;
+	}
+
+	/**
+	 * colorOf
+	 *
+	 * returns the color of tile i along a ring of numTiles tiles. the colors alternate, and if the number of
+	 * tiles is odd the last tile gets a third color, so that it differs from the first tile it wraps around to
+	 */
+	public static int colorOf( int i, int numTiles ) {
+		if ( numTiles % 2 == 1 && numTiles > 1 && i == numTiles - 1 )
+			return 2;
+		return i % 2;
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Tasks
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * steps the people of one tile in order, see the stepPerson method
+	 */
+	protected class TileTask implements Callable<Object> {
+
+		// the tile to step
+		protected int tile;
+
+		public TileTask( int t ) {
+			tile = t;
+		}
+
+		public Object call() {
+			// the changes to the Regions are kept for later, see the class comment
+			world.bufferRegionChanges( tileChanges.get( tile ) );
+			try {
+				ArrayList<Person> people = tilePeople.get( tile );
+				for ( int i = 0 ; i < people.size() ; ++i )
+					stepPerson( people.get( i ) );
+			}
+			finally {
+				world.bufferRegionChanges( null );
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * steps the children from index start up to, but not including, index end
+	 */
+	protected class ChildTask implements Callable<Object> {
+
+		// the part of the children to step
+		protected int start, end;
+
+		public ChildTask( int s, int e ) {
+			start = s;
+			end = e;
+		}
+
+		public Object call() {
+			for ( int i = start ; i < end ; ++i )
+				children.get( i ).step();
+			return null;
+		}
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public int getNumTiles() {
+		return tilesX * tilesY;
+	}
+	public int getNumThreads() {
+		return workers.getNumThreads();
+	}
+}
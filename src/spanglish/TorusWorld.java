@@ -15,10 +15,20 @@ import java.util.ArrayList;
 
 public class TorusWorld extends GridWorld {
 
+	// the smallest radius at which getHighestStatusNeighbor uses the spatial index instead of looking at
+	// every cell. the index is faster from a radius of six on at every density that was tried, and the gap
+	// grows with the radius, see the SpatialIndexBenchmark class
+	public static int indexRadius = 6;
+
 	public TorusWorld ( int sizeX, int sizeY, Model aModel ) {
 		super( sizeX, sizeY, aModel );
 	}
 
+	// for the worlds that keep the cells themselves, see the SparseTorusWorld class
+	protected TorusWorld ( int sizeX, int sizeY, Model aModel, boolean keepsCells ) {
+		super( sizeX, sizeY, aModel, keepsCells );
+	}
+
 
 	/**
 	 * moveObject
@@ -53,7 +63,8 @@ public class TorusWorld extends GridWorld {
 	
 	/**
 	 * Takes an object and increments the object somewhere in a one grid radius of
-	 * its current position. Iterates through
+	 * its current position, staying in its regions. Every move that stays in the regions is
+	 * equally likely. Returns false if the object could not move
 	 * @param obj
 	 * @return
 	 */
@@ -63,32 +74,22 @@ public class TorusWorld extends GridWorld {
 		int currentY = obj.getY();
 		
 		// if there are no open neighbors, return false
-		if ( getOpenNeighborLocations( currentX, currentY ).size() == 0 )
+		if ( !hasOpenNeighbor( currentX, currentY ) )
 			return false;
 
-		// get random move and set new position
-		int dx = rng.nextInt(3) - 1;
-		int dy = rng.nextInt(3) - 1;
-		int newX = xnorm( currentX + dx );
-		int newY = ynorm( currentY + dy );
-		
-		// check if new random direction is in the object's region
-		while( !obj.inRegion( newX, newY ) ) {
-			dx = rng.nextInt(3) - 1;
-			dy = rng.nextInt(3) - 1;
-			newX = xnorm( currentX + dx );
-			newY = ynorm( currentY + dy );
-		}
-		
-		
-
-		// first check to be sure new location is in the world!
-		if ( newX < 0 || newY < 0 || newX >= xSize || newY >= ySize ) {
+		// get the moves that stay in the object's regions, and return false if there are none,
+		// which can only happen if the object is far from all of them
+		int mask = obj.getDirectionMask( currentX, currentY );
+		if ( mask == 0 )
 			return false;
-		}
+		
+		// pick one of those moves at random and set new position
+		int d = randomDirection( mask, obj.getRng() );
+		int newX = xnorm( currentX + directionX[d] );
+		int newY = ynorm( currentY + directionY[d] );
 
 		// see if new cell is empty.
-		if ( getObjectAt(newX, newY) != null ) {
+		if ( isOccupied( newX, newY ) ) {
 			return false;
 		}
 
@@ -99,6 +100,21 @@ public class TorusWorld extends GridWorld {
 		obj.setY(newY);
 		return true;
 	}
+	
+	/**
+	 * hasOpenNeighbor
+	 * 
+	 * returns true if any cell in the Moore neighborhood around x,y is open, including x,y itself, wrapping
+	 * around the edges. overrides the method in the GridWorld class
+	 */
+	@Override
+	public boolean hasOpenNeighbor( int x, int y ) {
+		for ( int d = 0 ; d < 9 ; ++d ) {
+			if ( !isOccupied( xnorm( x + directionX[d] ), ynorm( y + directionY[d] ) ) )
+				return true;
+		}
+		return false;
+	}
 
 
 	/**
@@ -168,29 +184,94 @@ public class TorusWorld extends GridWorld {
 	/**
 	 * getNeighbors()
 	 * 
-	 * Gets all neighbors within a specified grid radius, returns null if there are no neighbors
+	 * Gets all neighbors within a specified grid radius, wrapping around the edges of the torus. Every cell
+	 * is looked at only once, even if the radius is more than half the size of the world
 	 */
 	public ArrayList<Person> getNeighbors( Person p, int radius ) {
 		
 		// initialize an ArrayList of Person
 		ArrayList<Person> objList = new ArrayList<Person>();
 		
-		// iterate through all of the neighboring points
-		for (int ty = ynorm( p.getY() - radius ); ty <= ynorm( p.getY() + radius ); ++ty) {
-			for (int tx = xnorm( p.getX() - radius ); tx <= xnorm( p.getX() + radius ); ++tx) {
-				// if there is a Person on that point and the Person is not the inputed Person
-				if (getPersonAt( tx, ty ) != null && getPersonAt( tx, ty ) != p ) {
-					
-					// Get the Person at the specified coordinates
-					Person obj1 = (Person)getObjectAt( tx, ty );
-					
-					// add the Person to the list
-					objList.add( obj1 );
-				}
+		// the number of columns and rows to search, at most the whole world
+		int spanX = Math.min( 2 * radius + 1, xSize );
+		int spanY = Math.min( 2 * radius + 1, ySize );
+		
+		// iterate through all of the neighboring points, starting at the upper left corner and wrapping around
+		int ty = ynorm( p.getY() - radius );
+		for ( int j = 0 ; j < spanY ; ++j ) {
+			int tx = xnorm( p.getX() - radius );
+			for ( int i = 0 ; i < spanX ; ++i ) {
+				// if there is a Person on that point and the Person is not the inputed Person, add them to the list
+				Object obj = getObjectAt( tx, ty );
+				if ( obj instanceof Person && obj != p )
+					objList.add( (Person)obj );
+				
+				// move one column right, wrapping around the edge
+				if ( ++tx == xSize )
+					tx = 0;
 			}
+			// move one row down, wrapping around the edge
+			if ( ++ty == ySize )
+				ty = 0;
 		}
 		return objList;
 	}
+	
+	/**
+	 * getHighestStatusNeighbor
+	 * 
+	 * returns the neighbor within radius with the highest status, or null if there are no neighbors. small
+	 * squares are searched cell by cell and larger ones through the spatial index, both give the same answer
+	 * see the scanHighestStatusNeighbor method below and the SpatialIndex class for details
+	 */
+	public Person getHighestStatusNeighbor( Person p, int radius ) {
+		if ( radius >= indexRadius )
+			return spatialIndex.getHighestStatusNeighbor( p, p.getX(), p.getY(), radius );
+		else
+			return scanHighestStatusNeighbor( p, radius );
+	}
+	
+	/**
+	 * scanHighestStatusNeighbor
+	 * 
+	 * searches the same cells as getNeighbors, but only keeps track of the neighbor with the highest status
+	 * instead of building a list. if several neighbors share the highest status, the first one found is
+	 * returned, the same one that Collections.max would pick from the list of getNeighbors
+	 * returns null if there are no neighbors
+	 */
+	public Person scanHighestStatusNeighbor( Person p, int radius ) {
+		
+		// nobody has been found yet
+		Person best = null;
+		
+		// the number of columns and rows to search, at most the whole world
+		int spanX = Math.min( 2 * radius + 1, xSize );
+		int spanY = Math.min( 2 * radius + 1, ySize );
+		
+		// iterate through all of the neighboring points in the same order as getNeighbors
+		int ty = ynorm( p.getY() - radius );
+		for ( int j = 0 ; j < spanY ; ++j ) {
+			int tx = xnorm( p.getX() - radius );
+			for ( int i = 0 ; i < spanX ; ++i ) {
+				// if there is a Person on that point who is not the inputed Person, keep them if their
+				// status is higher than everyone found so far
+				Object obj = getObjectAt( tx, ty );
+				if ( obj instanceof Person && obj != p ) {
+					Person neighbor = (Person)obj;
+					if ( best == null || neighbor.getStatus() > best.getStatus() )
+						best = neighbor;
+				}
+				
+				// move one column right, wrapping around the edge
+				if ( ++tx == xSize )
+					tx = 0;
+			}
+			// move one row down, wrapping around the edge
+			if ( ++ty == ySize )
+				ty = 0;
+		}
+		return best;
+	}
 
 	/**
 	 * xnorm
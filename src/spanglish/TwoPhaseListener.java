@@ -0,0 +1,126 @@
+package spanglish;
+
+/**
+ * TwoPhaseListener.java
+ *
+ * Lets everyone in the Model listen once a tick on several threads at once, used when the Model's
+ * twoPhaseListen is set to 1. In the sequential activation orders a person hears items that the people
+ * before them in the same tick may have just changed, so no two people can listen at the same time. Here a
+ * tick is split into two phases instead. In the first, every person picks who they listen to and samples
+ * the items they hear, only reading the lexicons and the statuses, which nobody changes until the phase is
+ * over, see the chooseItems method of the Person class. In the second, every person hears the items they
+ * sampled, only changing their own lexicons, see the hearChosenItems method. The frequencies the GeneticAlg
+ * uses are kept as they were at the start of the second phase, see the freeze method of the
+ * ItemFrequencyIndex class. Everyone draws from their own stream of random numbers, see the RandomStream
+ * class, so the outcome is the same no matter how many threads there are or which thread gets to whom
+ */
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+
+public class TwoPhaseListener {
+
+	//////////////////////// CLASS VARIABLES
+
+	// the number of parts the people are split into for every thread, more parts even out the work
+	public static int						partsPerThread = 4;
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the model whose people listen, and its world
+	public Model							model;
+	public TorusWorld						world;
+
+	// the threads that run the phases
+	public WorkerPool						workers;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * lets the people of the input Model listen on the input threads
+	 */
+	public TwoPhaseListener( Model aModel, WorkerPool pool ) {
+		model = aModel;
+		world = aModel.world;
+		workers = pool;
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * listen
+	 *
+	 * lets everyone in the input list listen once, see the class comment. nobody moves
+	 */
+	public void listen( ArrayList<Person> people ) {
+
+		// the first phase only reads
+		runPhase( people, false );
+
+		// the second phase hears against the frequencies as they were before it
+		model.itemIndex.freeze();
+		try {
+			runPhase( people, true );
+		}
+		finally {
+			model.itemIndex.thaw();
+		}
+	}
+
+	/**
+	 * runPhase
+	 *
+	 * splits the people into parts and runs the first or the second phase on every part at the same time
+	 */
+	public void runPhase( ArrayList<Person> people, boolean hear ) {
+
+		// no more parts than people
+		int numParts = Math.min( people.size(), workers.getNumThreads() * partsPerThread );
+		ArrayList<Callable<Object>> tasks = new ArrayList<Callable<Object>>( numParts );
+		for ( int i = 0 ; i < numParts ; ++i )
+			tasks.add( new PhaseTask( people, i * people.size() / numParts, ( i + 1 ) * people.size() / numParts,
+					hear ) );
+
+		if ( tasks.size() > 0 )
+			workers.runAll( tasks );
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// Tasks
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * runs one phase for the people from index start up to, but not including, index end
+	 */
+	protected static class PhaseTask implements Callable<Object> {
+
+		// the people and the part of them to run
+		protected ArrayList<Person> people;
+		protected int start, end;
+		// true for the second phase
+		protected boolean hear;
+
+		public PhaseTask( ArrayList<Person> list, int s, int e, boolean h ) {
+			people = list;
+			start = s;
+			end = e;
+			hear = h;
+		}
+
+		public Object call() {
+			for ( int i = start ; i < end ; ++i ) {
+				if ( hear )
+					people.get( i ).hearChosenItems();
+				else
+					people.get( i ).chooseItems();
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package spanglish;
+
+/**
+ * WorkerPool.java
+ *
+ * The threads the Model steps people on, shared by the TiledStepper and the TwoPhaseListener. The threads
+ * are daemon threads, so they do not keep the program running once the model is done, and a task that
+ * fails stops the model run
+ */
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+public class WorkerPool {
+
+	//////////////////////// INSTANCE VARIABLES
+
+	// the threads that run the tasks
+	public ExecutorService					executor;
+	public int								numThreads;
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Constructors
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * starts the input number of threads, or one per processor if threads is zero or less
+	 */
+	public WorkerPool( int threads ) {
+
+		numThreads = ( threads > 0 ) ? threads : Runtime.getRuntime().availableProcessors();
+		executor = Executors.newFixedThreadPool( numThreads, new ThreadFactory() {
+			public Thread newThread( Runnable r ) {
+				Thread t = new Thread( r, "WorkerPool" );
+				t.setDaemon( true );
+				return t;
+			}
+		} );
+	}
+
+
+	//////////////////////////////////////////////////////////////////////////////////////
+	// Methods
+	//////////////////////////////////////////////////////////////////////////////////////
+
+	/**
+	 * runAll
+	 *
+	 * runs the tasks on the threads and waits until they are all done. a task that fails stops the model run
+	 */
+	public void runAll( ArrayList<Callable<Object>> tasks ) {
+
+		// one task is run right here
+		if ( tasks.size() == 1 ) {
+			try {
+				tasks.get( 0 ).call();
+			}
+			catch ( Exception e ) {
+				throw new IllegalStateException( "a task could not be run", e );
+			}
+			return;
+		}
+
+		try {
+			for ( Future<Object> f : executor.invokeAll( tasks ) )
+				f.get();
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException( "interrupted while running the tasks", e );
+		}
+		catch ( ExecutionException e ) {
+			throw new IllegalStateException( "a task could not be run", e.getCause() );
+		}
+	}
+
+	/**
+	 * shutdown
+	 *
+	 * stops the threads, called when the Model builds a new world
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	////////////////////////////////////////////////////////////////////////////////////////
+	// GETTERS AND SETTERS
+	////////////////////////////////////////////////////////////////////////////////////////
+
+	public int getNumThreads() {
+		return numThreads;
+	}
+}